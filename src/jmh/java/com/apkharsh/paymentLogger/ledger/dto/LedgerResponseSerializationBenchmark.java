@@ -0,0 +1,75 @@
+package com.apkharsh.paymentLogger.ledger.dto;
+
+import com.apkharsh.paymentLogger.user.dto.UserInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a GET /ledgers body: LedgerResponse rows with their three @JsonFormat Instant fields
+ * (formatted through the annotation's pattern, not ISO_INSTANT) and both participants resolved.
+ * <p>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="LedgerResponseSerializationBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LedgerResponseSerializationBenchmark {
+
+    @Param({"50", "1000"})
+    private int rows;
+
+    private ObjectMapper objectMapper;
+    private List<LedgerResponse> ledgers;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder().build();
+
+        UserInfo payer = UserInfo.builder().id("65f1c2a9e4b0a1b2c3d4e5f6").name("Payer Name").email("payer@example.com").build();
+        UserInfo payee = UserInfo.builder().id("65f1c2a9e4b0a1b2c3d4e5f7").name("Payee Name").email("payee@example.com").build();
+        Instant now = Instant.parse("2026-01-15T10:15:30.123Z");
+        ledgers = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Instant timestamp = now.minus(i, ChronoUnit.HOURS);
+            ledgers.add(LedgerResponse.builder()
+                    .id(String.format("65f1c2a9e4b0a1b2%08x", i))
+                    .payerId(payer.getId())
+                    .payeeId(payee.getId())
+                    .amount(BigDecimal.valueOf(1999 + i, 2))
+                    .timestamp(timestamp)
+                    .description("Groceries at the corner store #" + i)
+                    .category("groceries")
+                    .payer(payer)
+                    .payee(payee)
+                    .createdAt(timestamp)
+                    .updatedAt(timestamp)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeList() {
+        return objectMapper.writeValueAsBytes(ledgers);
+    }
+}
@@ -0,0 +1,79 @@
+package com.apkharsh.paymentLogger.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtService work done on every authenticated request (validate, then read the subject: two parses of the same
+ * token) and on every login/refresh (sign an access token).
+ * <p>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="JwtServiceBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String USER_ID = "65f1c2a9e4b0a1b2c3d4e5f6";
+
+    private JwtService jwtService;
+    private String accessToken;
+    private String forgedToken;
+    private Map<String, Object> claims;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "benchmark-secret-key-with-at-least-256-bits-of-entropy");
+        ReflectionTestUtils.setField(jwtService, "accessExpirationMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtService, "refreshExpirationDays", 7L);
+
+        claims = Map.of("email", "payer@example.com", "role", "USER");
+        accessToken = jwtService.generateAccessToken(USER_ID, claims);
+        // Same header and claims, broken signature: the rejection path of isTokenValid
+        forgedToken = accessToken.substring(0, accessToken.length() - 4) + "AAAA";
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(accessToken);
+    }
+
+    @Benchmark
+    public boolean isTokenValidForged() {
+        return jwtService.isTokenValid(forgedToken);
+    }
+
+    @Benchmark
+    public String extractSubject() {
+        return jwtService.extractSubject(accessToken);
+    }
+
+    /**
+     * What JwtAuthenticationFilter does per request
+     */
+    @Benchmark
+    public String validateThenExtract() {
+        return jwtService.isTokenValid(accessToken) ? jwtService.extractSubject(accessToken) : null;
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateAccessToken(USER_ID, claims);
+    }
+}
@@ -2,11 +2,15 @@ package com.apkharsh.paymentLogger.auth.dto;
 
 import lombok.Data;
 
-import java.util.UUID;
-
 @Data
 public class SignupResponse {
-    private UUID userID;
+    /**
+     * Breaking change: this used to be a java.util.UUID. It is still a JSON string, but with the default
+     * app.ids.strategy=objectid new users get a 24-hex-digit ObjectId, which is not a UUID. Clients that parse it as
+     * a UUID should treat it as an opaque string, or the server can be run with app.ids.strategy=uuid.
+     * Users created before the switch keep their UUID ids.
+     */
+    private String userID;
     private String name;
     private String email;
 }
@@ -6,9 +6,11 @@ import com.apkharsh.paymentLogger.auth.service.AuthService;
 import com.apkharsh.paymentLogger.email.EmailService;
 import com.apkharsh.paymentLogger.exceptions.NotFoundException;
 import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.apkharsh.paymentLogger.id.IdGenerator;
 import com.apkharsh.paymentLogger.security.JwtService;
 import com.apkharsh.paymentLogger.user.entity.User;
 import com.apkharsh.paymentLogger.user.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -20,13 +22,13 @@ import org.springframework.transaction.annotation.Transactional;
 import java.security.SecureRandom;
 import java.time.Duration;
 import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import static com.apkharsh.paymentLogger.security.util.JwtUtil.buildJWTClaims;
 import static com.apkharsh.paymentLogger.security.util.SecurityUtils.getCurrentUserId;
 
 @Service
+@Timed(value = "auth.service", histogram = true)
 @Transactional
 @RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
@@ -36,6 +38,7 @@ public class AuthServiceImpl implements AuthService {
     private final JwtService jwtService;
     private final StringRedisTemplate redisTemplate;
     private final EmailService emailService;
+    private final IdGenerator idGenerator;
 
     private static final String ACC_CREATE_OTP_KEY_PREFIX = "acc_create:otp:";
     private static final String ACC_VERIFIED_KEY_PREFIX = "acc_create:verified:";
@@ -373,7 +376,7 @@ public class AuthServiceImpl implements AuthService {
 
     private User createUserFromRequest(SignupRequest request) {
         return User.builder()
-                .id(UUID.randomUUID().toString())
+                .id(idGenerator.newId())
                 .email(request.getEmail())
                 .password(passwordEncoder.encode(request.getPassword()))
                 .role(ROLE.USER) // NTD LATER
@@ -382,7 +385,7 @@ public class AuthServiceImpl implements AuthService {
 
     private SignupResponse buildSignupResponse(User user) {
         SignupResponse signupResponse = new SignupResponse();
-        signupResponse.setUserID(UUID.fromString(user.getId()));
+        signupResponse.setUserID(user.getId());
         signupResponse.setEmail(user.getEmail());
         signupResponse.setName(user.getName());
         return signupResponse;
@@ -0,0 +1,66 @@
+package com.apkharsh.paymentLogger.balance.cache;
+
+import com.apkharsh.paymentLogger.balance.dto.CounterpartyTotals;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Counterparty summaries of closed date ranges (ending before today, UTC). New ledgers can still be backdated
+ * into such a range, so every write evicts the summaries of both participants (see BalanceServiceImpl);
+ * the TTL bounds staleness when the write happened on another instance.
+ * <p>
+ * The aggregation runs on the caller's thread after an empty future is installed (see CategoryMatcherCache),
+ * never inside the cache's map compute.
+ */
+@Component
+@Slf4j
+public class CounterpartySummaryCache {
+
+    private final AsyncCache<Key, List<CounterpartyTotals>> cache;
+
+    public CounterpartySummaryCache(@Value("${app.cache.counterparty-summary.max-size:1000}") long maxSize,
+                                    @Value("${app.cache.counterparty-summary.ttl:1h}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+        log.info("Counterparty summary cache initialized [maxSize={}, ttl={}]", maxSize, ttl);
+    }
+
+    public List<CounterpartyTotals> get(String userId, LocalDate startDate, LocalDate endDate, int limit,
+                                        Supplier<List<CounterpartyTotals>> loader) {
+        CompletableFuture<List<CounterpartyTotals>> loading = new CompletableFuture<>();
+        CompletableFuture<List<CounterpartyTotals>> totals =
+                cache.get(new Key(userId, startDate, endDate, limit), (key, executor) -> loading);
+        if (totals == loading) {
+            try {
+                loading.complete(List.copyOf(loader.get()));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return totals.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public void invalidateUser(String userId) {
+        cache.synchronous().asMap().keySet().removeIf(key -> key.userId().equals(userId));
+    }
+
+    private record Key(String userId, LocalDate startDate, LocalDate endDate, int limit) {
+    }
+}
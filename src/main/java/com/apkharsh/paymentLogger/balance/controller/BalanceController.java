@@ -0,0 +1,43 @@
+package com.apkharsh.paymentLogger.balance.controller;
+
+import com.apkharsh.paymentLogger.balance.dto.BalanceResponse;
+import com.apkharsh.paymentLogger.balance.service.BalanceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "/balances")
+@RequiredArgsConstructor
+public class BalanceController {
+
+    private final BalanceService balanceService;
+
+    /**
+     * Net position of the current user against every counterparty they have exchanged payments with
+     */
+    @GetMapping
+    public ResponseEntity<List<BalanceResponse>> getBalances() {
+        return new ResponseEntity<>(balanceService.getBalances(), HttpStatus.OK);
+    }
+
+    /**
+     * Top counterparties by volume (sent + received) over a date range, computed in Mongo
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<List<BalanceResponse>> getCounterpartySummary(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return new ResponseEntity<>(balanceService.getCounterpartySummary(startDate, endDate, limit), HttpStatus.OK);
+    }
+}
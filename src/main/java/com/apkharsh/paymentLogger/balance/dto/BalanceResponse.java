@@ -0,0 +1,36 @@
+package com.apkharsh.paymentLogger.balance.dto;
+
+import com.apkharsh.paymentLogger.user.dto.UserInfo;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BalanceResponse {
+
+    private String counterpartyId;
+    private UserInfo counterparty;
+
+    private BigDecimal sent;
+    private BigDecimal received;
+
+    /**
+     * sent - received: positive means the counterparty owes the current user
+     */
+    private BigDecimal net;
+
+    private long ledgerCount;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX", timezone = "UTC")
+    private Instant lastTimestamp;
+}
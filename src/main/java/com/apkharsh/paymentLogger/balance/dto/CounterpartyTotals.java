@@ -0,0 +1,11 @@
+package com.apkharsh.paymentLogger.balance.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One row of the counterparty summary as it comes out of $group, before counterparty details are attached
+ */
+public record CounterpartyTotals(String counterpartyId, BigDecimal sent, BigDecimal received, long ledgerCount,
+                                 Instant lastTimestamp) {
+}
@@ -0,0 +1,57 @@
+package com.apkharsh.paymentLogger.balance.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Running totals between a user and one counterparty, maintained with $inc on every ledger write.
+ * Each ledger touches two documents: (payer, payee) and (payee, payer).
+ */
+@Document(collection = "counterparty_balances")
+@CompoundIndex(name = "user_last_timestamp_idx", def = "{'userId': 1, 'lastTimestamp': -1}")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CounterpartyBalance {
+
+    /**
+     * userId + ":" + counterpartyId, so an upsert targets the _id index directly
+     */
+    @Id
+    private String id;
+
+    private String userId;
+
+    private String counterpartyId;
+
+    /**
+     * Total paid by userId to counterpartyId
+     */
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal sent;
+
+    /**
+     * Total paid by counterpartyId to userId
+     */
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal received;
+
+    private long ledgerCount;
+
+    private Instant lastTimestamp;
+
+    public static String idOf(String userId, String counterpartyId) {
+        return userId + ":" + counterpartyId;
+    }
+}
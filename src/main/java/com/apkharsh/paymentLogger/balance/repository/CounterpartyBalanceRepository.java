@@ -0,0 +1,13 @@
+package com.apkharsh.paymentLogger.balance.repository;
+
+import com.apkharsh.paymentLogger.balance.entity.CounterpartyBalance;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CounterpartyBalanceRepository extends MongoRepository<CounterpartyBalance, String> {
+
+    List<CounterpartyBalance> findByUserIdOrderByLastTimestampDesc(String userId);
+}
@@ -0,0 +1,30 @@
+package com.apkharsh.paymentLogger.balance.runner;
+
+import com.apkharsh.paymentLogger.balance.service.BalanceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds counterparty_balances from ledgers at startup, e.g.
+ * java -jar app.jar --app.balances.rebuild=true
+ */
+@Component
+@ConditionalOnProperty(name = "app.balances.rebuild", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceRebuildRunner implements ApplicationRunner {
+
+    private final BalanceService balanceService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Rebuilding counterparty balances from ledgers");
+        long started = System.currentTimeMillis();
+        balanceService.rebuild();
+        log.info("Counterparty balances rebuilt in {} ms", System.currentTimeMillis() - started);
+    }
+}
@@ -0,0 +1,27 @@
+package com.apkharsh.paymentLogger.balance.service;
+
+import com.apkharsh.paymentLogger.balance.dto.BalanceResponse;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BalanceService {
+
+    /**
+     * Fold freshly written ledgers into the balances of both participants (one bulk round trip)
+     */
+    void applyLedgers(List<Ledger> ledgers);
+
+    List<BalanceResponse> getBalances();
+
+    /**
+     * Top counterparties of the current user by volume between startDate and endDate (inclusive, UTC)
+     */
+    List<BalanceResponse> getCounterpartySummary(LocalDate startDate, LocalDate endDate, int limit);
+
+    /**
+     * Recompute every balance from the ledgers collection and the cold tier
+     */
+    void rebuild();
+}
@@ -0,0 +1,409 @@
+package com.apkharsh.paymentLogger.balance.service.impl;
+
+import com.apkharsh.paymentLogger.balance.cache.CounterpartySummaryCache;
+import com.apkharsh.paymentLogger.balance.dto.BalanceResponse;
+import com.apkharsh.paymentLogger.balance.dto.CounterpartyTotals;
+import com.apkharsh.paymentLogger.balance.entity.CounterpartyBalance;
+import com.apkharsh.paymentLogger.balance.repository.CounterpartyBalanceRepository;
+import com.apkharsh.paymentLogger.balance.service.BalanceService;
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.entity.LedgerFields;
+import com.apkharsh.paymentLogger.ledger.migration.LegacyLedgerFormat;
+import com.apkharsh.paymentLogger.ledger.repository.LedgerRepository;
+import com.apkharsh.paymentLogger.ledger.tiering.LedgerColdAggregator;
+import com.apkharsh.paymentLogger.ledger.tiering.LedgerSegmentStore;
+import com.apkharsh.paymentLogger.user.cache.UserInfoCache;
+import com.apkharsh.paymentLogger.user.dto.UserInfo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static com.apkharsh.paymentLogger.security.util.SecurityUtils.getCurrentUserId;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceServiceImpl implements BalanceService {
+
+    private static final int REBUILD_BULK_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final CounterpartyBalanceRepository balanceRepository;
+    private final UserInfoCache userInfoCache;
+    private final CounterpartySummaryCache summaryCache;
+    private final LedgerRepository ledgerRepository;
+    private final LedgerSegmentStore segmentStore;
+    private final LedgerColdAggregator coldAggregator;
+    private final LegacyLedgerFormat legacyFormat;
+
+    @Value("${app.balances.rebuild.partitions:4}")
+    private int rebuildPartitions;
+
+    @Value("${app.balances.summary.max-limit:100}")
+    private int maxSummaryLimit;
+
+    @Override
+    public void applyLedgers(List<Ledger> ledgers) {
+        if (ledgers.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CounterpartyBalance.class);
+        Set<String> participants = new HashSet<>();
+        for (Ledger ledger : ledgers) {
+            addUpserts(bulk, ledger.getPayerId(), ledger.getPayeeId(), new Decimal128(ledger.getAmount()), 1, ledger.getTimestamp());
+            participants.add(ledger.getPayerId());
+            participants.add(ledger.getPayeeId());
+        }
+        bulk.execute();
+        participants.forEach(summaryCache::invalidateUser);
+    }
+
+    @Override
+    public List<BalanceResponse> getBalances() {
+        List<CounterpartyBalance> balances = balanceRepository.findByUserIdOrderByLastTimestampDesc(getCurrentUserId());
+        if (balances.isEmpty()) {
+            return List.of();
+        }
+        Map<String, UserInfo> counterparties = userInfoCache.getAll(
+                balances.stream().map(CounterpartyBalance::getCounterpartyId).toList());
+
+        List<BalanceResponse> responses = new ArrayList<>(balances.size());
+        for (CounterpartyBalance balance : balances) {
+            BigDecimal sent = balance.getSent() != null ? balance.getSent() : BigDecimal.ZERO;
+            BigDecimal received = balance.getReceived() != null ? balance.getReceived() : BigDecimal.ZERO;
+            responses.add(BalanceResponse.builder()
+                    .counterpartyId(balance.getCounterpartyId())
+                    .counterparty(counterparties.get(balance.getCounterpartyId()))
+                    .sent(sent)
+                    .received(received)
+                    .net(sent.subtract(received))
+                    .ledgerCount(balance.getLedgerCount())
+                    .lastTimestamp(balance.getLastTimestamp())
+                    .build());
+        }
+        return responses;
+    }
+
+    @Override
+    public List<BalanceResponse> getCounterpartySummary(LocalDate startDate, LocalDate endDate, int limit) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new ValidationException("A valid startDate and endDate are required");
+        }
+        if (limit < 1 || limit > maxSummaryLimit) {
+            throw new ValidationException("Limit must be between 1 and " + maxSummaryLimit);
+        }
+        String userId = getCurrentUserId();
+
+        // A range that ended before today can only change through a backdated write, which evicts it
+        boolean closed = endDate.isBefore(LocalDate.now(ZoneOffset.UTC));
+        List<CounterpartyTotals> totals = closed
+                ? summaryCache.get(userId, startDate, endDate, limit, () -> summarize(userId, startDate, endDate, limit))
+                : summarize(userId, startDate, endDate, limit);
+        if (totals.isEmpty()) {
+            return List.of();
+        }
+        Map<String, UserInfo> counterparties = userInfoCache.getAll(
+                totals.stream().map(CounterpartyTotals::counterpartyId).toList());
+
+        List<BalanceResponse> responses = new ArrayList<>(totals.size());
+        for (CounterpartyTotals row : totals) {
+            responses.add(BalanceResponse.builder()
+                    .counterpartyId(row.counterpartyId())
+                    .counterparty(counterparties.get(row.counterpartyId()))
+                    .sent(row.sent())
+                    .received(row.received())
+                    .net(row.sent().subtract(row.received()))
+                    .ledgerCount(row.ledgerCount())
+                    .lastTimestamp(row.lastTimestamp())
+                    .build());
+        }
+        return responses;
+    }
+
+    /**
+     * One $group over the user's ledgers in range; the $match is an $or of the payer and payee index branches (plus
+     * the long-key ones while legacy reads are on), so only the user's own ledgers are read and only one row per
+     * counterparty comes back.
+     * Ranges reaching into the cold tier (see LedgerTieringJob) are summed from the merged hot and cold rows instead.
+     */
+    private List<CounterpartyTotals> summarize(String userId, LocalDate startDate, LocalDate endDate, int limit) {
+        Instant from = startDate.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = endDate.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        if (segmentStore.reaches(from)) {
+            return summarizeMerged(userId, from, to, limit);
+        }
+
+        // Raw stages aren't mapped, so they name the stored keys
+        String payer = "$" + LedgerFields.PAYER;
+        String payee = "$" + LedgerFields.PAYEE;
+        Document amount = new Document("$toDecimal", "$" + LedgerFields.AMOUNT);
+        Document isPayer = new Document("$eq", List.of(payer, userId));
+        Document isPayee = new Document("$eq", List.of(payee, userId));
+        Document group = new Document("$group", new Document()
+                .append("_id", new Document("$cond", List.of(isPayer, payee, payer)))
+                .append("sent", new Document("$sum", new Document("$cond", List.of(isPayer, amount, Decimal128.POSITIVE_ZERO))))
+                .append("received", new Document("$sum", new Document("$cond", List.of(isPayee, amount, Decimal128.POSITIVE_ZERO))))
+                .append("count", new Document("$sum", 1))
+                .append("last", new Document("$max", "$" + LedgerFields.TIMESTAMP)));
+
+        Document match = new Document("$and", List.of(
+                new Document("$or", List.of(legacyFormat.filter(LedgerFields.PAYER, userId), legacyFormat.filter(LedgerFields.PAYEE, userId))),
+                legacyFormat.filter(LedgerFields.TIMESTAMP, new Document("$gte", Date.from(from)).append("$lt", Date.from(to)))));
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> new Document("$match", match));
+        stages.addAll(legacyFormat.normalizeStages());
+        stages.add(context -> group);
+        stages.add(context -> new Document("$addFields", new Document("volume", new Document("$add", List.of("$sent", "$received")))));
+        stages.add(context -> new Document("$sort", new Document("volume", -1).append("_id", 1)));
+        stages.add(context -> new Document("$limit", limit));
+
+        List<CounterpartyTotals> totals = new ArrayList<>();
+        for (Document row : mongoTemplate.aggregate(Aggregation.newAggregation(stages), ledgers(), Document.class).getMappedResults()) {
+            totals.add(new CounterpartyTotals(
+                    row.getString("_id"),
+                    row.get("sent", Decimal128.class).bigDecimalValue(),
+                    row.get("received", Decimal128.class).bigDecimalValue(),
+                    row.get("count", Number.class).longValue(),
+                    row.get("last", Date.class).toInstant()));
+        }
+        return totals;
+    }
+
+    /**
+     * {@code to} is exclusive; streamLedgers takes an inclusive bound, and stored timestamps have millisecond precision
+     */
+    private List<CounterpartyTotals> summarizeMerged(String userId, Instant from, Instant to, int limit) {
+        Map<String, Totals> byCounterparty = new HashMap<>();
+        try (Stream<Ledger> ledgers = ledgerRepository.streamLedgers(userId, from, to.minusMillis(1))) {
+            ledgers.forEach(ledger -> {
+                if (ledger.getAmount() == null) {
+                    return;
+                }
+                boolean isPayer = userId.equals(ledger.getPayerId());
+                String counterparty = isPayer ? ledger.getPayeeId() : ledger.getPayerId();
+                Totals totals = byCounterparty.computeIfAbsent(counterparty, key -> new Totals());
+                totals.add(ledger, isPayer, userId.equals(ledger.getPayeeId()));
+            });
+        }
+        return byCounterparty.entrySet().stream()
+                .map(entry -> new CounterpartyTotals(entry.getKey(), entry.getValue().sent, entry.getValue().received,
+                        entry.getValue().count, entry.getValue().last))
+                .sorted(Comparator.comparing((CounterpartyTotals row) -> row.sent().add(row.received())).reversed()
+                        .thenComparing(CounterpartyTotals::counterpartyId, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Partitions the ledger history into equal time slices and aggregates them concurrently.
+     * Partial sums from each slice are $inc'ed into the same documents, so slices can finish in any order.
+     * Ledgers in the cold tier are folded in afterwards (see rebuildCold).
+     * Writes that land while the rebuild runs may be counted twice or not at all; run it while ingestion is paused.
+     */
+    @Override
+    public void rebuild() {
+        Instant first = boundaryTimestamp(Sort.Direction.ASC);
+        Instant last = boundaryTimestamp(Sort.Direction.DESC);
+
+        mongoTemplate.remove(new Query(), CounterpartyBalance.class);
+        long coldPairs = rebuildCold();
+        if (first == null || last == null) {
+            log.info("Balance rebuild: no ledgers found in Mongo [coldPayerPayeePairs={}]", coldPairs);
+            return;
+        }
+
+        // Upper bound is exclusive, so stretch the last slice past the newest ledger
+        long start = first.toEpochMilli();
+        long end = last.toEpochMilli() + 1;
+        int partitions = (int) Math.max(1, Math.min(rebuildPartitions, end - start));
+        long step = (end - start + partitions - 1) / partitions;
+
+        ExecutorService executor = Executors.newFixedThreadPool(partitions);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (long from = start; from < end; from += step) {
+                Instant sliceStart = Instant.ofEpochMilli(from);
+                Instant sliceEnd = Instant.ofEpochMilli(Math.min(from + step, end));
+                futures.add(executor.submit(() -> rebuildPartition(sliceStart, sliceEnd)));
+            }
+            long pairs = 0;
+            for (Future<Long> future : futures) {
+                pairs += future.get();
+            }
+            log.info("Balance rebuild finished [partitions={}, payerPayeePairs={}, coldPayerPayeePairs={}]", futures.size(), pairs, coldPairs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Balance rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Balance rebuild failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Raw stages, so documents still in the long-key format are counted too (see LegacyLedgerFormat)
+     */
+    private long rebuildPartition(Instant from, Instant to) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> new Document("$match",
+                legacyFormat.filter(LedgerFields.TIMESTAMP, new Document("$gte", Date.from(from)).append("$lt", Date.from(to)))));
+        stages.addAll(legacyFormat.normalizeStages());
+        // A ledger without both participants has no balance to land on
+        stages.add(context -> new Document("$match", new Document(LedgerFields.PAYER, new Document("$type", "string"))
+                .append(LedgerFields.PAYEE, new Document("$type", "string"))));
+        stages.add(context -> new Document("$group", new Document()
+                .append("_id", new Document("payerId", "$" + LedgerFields.PAYER).append("payeeId", "$" + LedgerFields.PAYEE))
+                .append("total", new Document("$sum", new Document("$toDecimal", "$" + LedgerFields.AMOUNT)))
+                .append("count", new Document("$sum", 1))
+                .append("last", new Document("$max", "$" + LedgerFields.TIMESTAMP))));
+        Aggregation aggregation = Aggregation.newAggregation(stages)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        long pairs = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CounterpartyBalance.class);
+        int pending = 0;
+        try (Stream<Document> groups = mongoTemplate.aggregateStream(aggregation, ledgers(), Document.class)) {
+            for (Document group : (Iterable<Document>) groups::iterator) {
+                Document key = group.get("_id", Document.class);
+                addUpserts(bulk, key.getString("payerId"), key.getString("payeeId"),
+                        group.get("total", Decimal128.class),
+                        group.get("count", Number.class).longValue(),
+                        group.get("last", Date.class).toInstant());
+                pairs++;
+                if (++pending == REBUILD_BULK_SIZE) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CounterpartyBalance.class);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+        log.debug("Balance rebuild partition done [from={}, to={}, pairs={}]", from, to, pairs);
+        return pairs;
+    }
+
+    /**
+     * Sums the cold tier per payer/payee pair and $inc's it into the balances, like one more partition.
+     * The sums come in bounded chunks, and rows still in Mongo are skipped (see LedgerColdAggregator).
+     */
+    private long rebuildCold() {
+        return coldAggregator.sum(ledger -> new Pair(ledger.getPayerId(), ledger.getPayeeId()), chunk -> {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CounterpartyBalance.class);
+            chunk.forEach((pair, totals) ->
+                    addUpserts(bulk, pair.payerId(), pair.payeeId(), new Decimal128(totals.amount()), totals.count(), totals.last()));
+            bulk.execute();
+        });
+    }
+
+    private void addUpserts(BulkOperations bulk, String payerId, String payeeId, Decimal128 amount, long count, Instant last) {
+        if (Objects.equals(payerId, payeeId)) {
+            // Paying yourself is both sent and received on the same document
+            bulk.upsert(byId(payerId, payeeId), balanceUpdate(payerId, payeeId, count, last)
+                    .inc("sent", amount)
+                    .inc("received", amount));
+            return;
+        }
+        bulk.upsert(byId(payerId, payeeId), balanceUpdate(payerId, payeeId, count, last).inc("sent", amount));
+        bulk.upsert(byId(payeeId, payerId), balanceUpdate(payeeId, payerId, count, last).inc("received", amount));
+    }
+
+    private Query byId(String userId, String counterpartyId) {
+        return Query.query(Criteria.where("_id").is(CounterpartyBalance.idOf(userId, counterpartyId)));
+    }
+
+    private Update balanceUpdate(String userId, String counterpartyId, long count, Instant last) {
+        return new Update()
+                .setOnInsert("userId", userId)
+                .setOnInsert("counterpartyId", counterpartyId)
+                .inc("ledgerCount", count)
+                .max("lastTimestamp", last);
+    }
+
+    /**
+     * Oldest (ASC) or newest (DESC) ledger timestamp, in either storage format
+     */
+    private Instant boundaryTimestamp(Sort.Direction direction) {
+        Instant boundary = boundaryTimestamp(LedgerFields.TIMESTAMP, direction);
+        if (legacyFormat.isLegacyReadsEnabled()) {
+            Instant legacy = boundaryTimestamp(LedgerFields.LEGACY_TIMESTAMP, direction);
+            if (boundary == null || legacy != null && (direction == Sort.Direction.ASC ? legacy.isBefore(boundary) : legacy.isAfter(boundary))) {
+                boundary = legacy;
+            }
+        }
+        return boundary;
+    }
+
+    private Instant boundaryTimestamp(String key, Sort.Direction direction) {
+        Query query = new Query(Criteria.where(key).type(JsonSchemaObject.Type.DATE)).with(Sort.by(direction, key)).limit(1);
+        query.fields().include(key);
+        Document ledger = mongoTemplate.findOne(query, Document.class, ledgers());
+        return ledger != null ? ledger.getDate(key).toInstant() : null;
+    }
+
+    private String ledgers() {
+        return mongoTemplate.getCollectionName(Ledger.class);
+    }
+
+    private record Pair(String payerId, String payeeId) {
+    }
+
+    /**
+     * Running totals for one counterparty or payer/payee pair
+     */
+    private static final class Totals {
+        private BigDecimal sent = BigDecimal.ZERO;
+        private BigDecimal received = BigDecimal.ZERO;
+        private long count;
+        private Instant last;
+
+        void add(Ledger ledger, boolean sentByUser, boolean receivedByUser) {
+            if (sentByUser) {
+                sent = sent.add(ledger.getAmount());
+            }
+            if (receivedByUser) {
+                received = received.add(ledger.getAmount());
+            }
+            count++;
+            if (last == null || ledger.getTimestamp().isAfter(last)) {
+                last = ledger.getTimestamp();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.apkharsh.paymentLogger.category.cache;
+
+import com.apkharsh.paymentLogger.category.entity.CategoryRule;
+import com.apkharsh.paymentLogger.category.repository.CategoryRuleRepository;
+import com.apkharsh.paymentLogger.category.util.KeywordMatcher;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Compiled KeywordMatcher per user (global rules overlaid with the user's own), so categorizing a new ledger
+ * is a single pass over its description with no Mongo round trip.
+ * <p>
+ * A user's entry is evicted when they change their rules; the TTL bounds how long global rule changes
+ * and changes made on another instance take to apply.
+ * <p>
+ * Entries are futures: the rules are loaded on the caller's thread after the future is installed, not inside the
+ * cache's map compute, which holds a monitor and would pin a virtual thread's carrier for the Mongo round trip.
+ * Concurrent callers for the same user wait on the same future.
+ */
+@Component
+@Slf4j
+public class CategoryMatcherCache {
+
+    private final CategoryRuleRepository ruleRepository;
+    private final AsyncCache<String, KeywordMatcher> cache;
+
+    public CategoryMatcherCache(CategoryRuleRepository ruleRepository,
+                                @Value("${app.cache.category-matcher.max-size:10000}") long maxSize,
+                                @Value("${app.cache.category-matcher.ttl:10m}") Duration ttl) {
+        this.ruleRepository = ruleRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+        log.info("Category matcher cache initialized [maxSize={}, ttl={}]", maxSize, ttl);
+    }
+
+    public KeywordMatcher get(String userId) {
+        CompletableFuture<KeywordMatcher> loading = new CompletableFuture<>();
+        CompletableFuture<KeywordMatcher> matcher = cache.get(userId, (key, executor) -> loading);
+        if (matcher == loading) {
+            try {
+                loading.complete(load(userId));
+            } catch (RuntimeException e) {
+                // Failed futures are dropped by the cache, so the next call retries
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return matcher.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public void invalidate(String userId) {
+        cache.synchronous().invalidate(userId);
+    }
+
+    private KeywordMatcher load(String userId) {
+        Map<String, String> categoriesByKeyword = new LinkedHashMap<>();
+        for (CategoryRule rule : ruleRepository.findByUserId(null)) {
+            categoriesByKeyword.put(rule.getKeyword(), rule.getCategory());
+        }
+        for (CategoryRule rule : ruleRepository.findByUserId(userId)) {
+            categoriesByKeyword.put(rule.getKeyword(), rule.getCategory());
+        }
+        return categoriesByKeyword.isEmpty() ? KeywordMatcher.EMPTY : KeywordMatcher.compile(categoriesByKeyword);
+    }
+}
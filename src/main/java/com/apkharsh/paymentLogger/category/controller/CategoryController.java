@@ -0,0 +1,53 @@
+package com.apkharsh.paymentLogger.category.controller;
+
+import com.apkharsh.paymentLogger.category.dto.CategoryRuleRequest;
+import com.apkharsh.paymentLogger.category.dto.CategoryRuleResponse;
+import com.apkharsh.paymentLogger.category.dto.CategoryTotalResponse;
+import com.apkharsh.paymentLogger.category.service.CategoryService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "/categories")
+@RequiredArgsConstructor
+public class CategoryController {
+
+    private final CategoryService categoryService;
+
+    @GetMapping("/rules")
+    public ResponseEntity<List<CategoryRuleResponse>> getRules() {
+        return new ResponseEntity<>(categoryService.getRules(), HttpStatus.OK);
+    }
+
+    /**
+     * Applies to ledgers written from now on where the current user is the payer
+     */
+    @PostMapping("/rules")
+    public ResponseEntity<CategoryRuleResponse> addRule(@Valid @RequestBody CategoryRuleRequest request) {
+        return new ResponseEntity<>(categoryService.addRule(request), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/rules/{ruleId}")
+    public ResponseEntity<Void> deleteRule(@PathVariable String ruleId) {
+        categoryService.deleteRule(ruleId);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Spending of the current user per category between startDate and endDate (inclusive, UTC)
+     */
+    @GetMapping("/totals")
+    public ResponseEntity<List<CategoryTotalResponse>> getCategoryTotals(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+    ) {
+        return new ResponseEntity<>(categoryService.getCategoryTotals(startDate, endDate), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,23 @@
+package com.apkharsh.paymentLogger.category.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryRuleRequest {
+
+    @NotBlank(message = "Keyword is required")
+    @Size(max = 100, message = "Keyword can have at most 100 characters")
+    private String keyword;
+
+    @NotBlank(message = "Category is required")
+    @Size(max = 50, message = "Category can have at most 50 characters")
+    private String category;
+}
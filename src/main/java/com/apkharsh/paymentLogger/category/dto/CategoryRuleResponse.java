@@ -0,0 +1,22 @@
+package com.apkharsh.paymentLogger.category.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryRuleResponse {
+
+    private String id;
+    private String keyword;
+    private String category;
+
+    /**
+     * True for rules that apply to every user
+     */
+    private boolean global;
+}
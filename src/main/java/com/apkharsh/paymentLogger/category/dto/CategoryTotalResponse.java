@@ -0,0 +1,23 @@
+package com.apkharsh.paymentLogger.category.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryTotalResponse {
+
+    /**
+     * Null for payments no rule matched
+     */
+    private String category;
+
+    private BigDecimal total;
+    private long count;
+}
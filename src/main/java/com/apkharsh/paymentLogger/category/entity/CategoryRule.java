@@ -0,0 +1,37 @@
+package com.apkharsh.paymentLogger.category.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * "Descriptions containing keyword are category". Rules without a userId apply to everyone;
+ * a user's own rule for the same keyword takes precedence.
+ */
+@Document(collection = "category_rules")
+@CompoundIndex(name = "user_keyword_idx", def = "{'userId': 1, 'keyword': 1}", unique = true)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryRule {
+
+    @Id
+    private String id;
+
+    /**
+     * Owner, or null for a global rule
+     */
+    private String userId;
+
+    /**
+     * Stored normalized (see KeywordMatcher.normalize)
+     */
+    private String keyword;
+
+    private String category;
+}
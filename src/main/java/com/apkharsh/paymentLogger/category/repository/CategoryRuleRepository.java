@@ -0,0 +1,19 @@
+package com.apkharsh.paymentLogger.category.repository;
+
+import com.apkharsh.paymentLogger.category.entity.CategoryRule;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CategoryRuleRepository extends MongoRepository<CategoryRule, String> {
+
+    /**
+     * With a null userId, the global rules
+     */
+    List<CategoryRule> findByUserId(String userId);
+
+    Optional<CategoryRule> findByUserIdAndKeyword(String userId, String keyword);
+
+    Optional<CategoryRule> findByIdAndUserId(String id, String userId);
+}
@@ -0,0 +1,33 @@
+package com.apkharsh.paymentLogger.category.service;
+
+import com.apkharsh.paymentLogger.category.dto.CategoryRuleRequest;
+import com.apkharsh.paymentLogger.category.dto.CategoryRuleResponse;
+import com.apkharsh.paymentLogger.category.dto.CategoryTotalResponse;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface CategoryService {
+
+    /**
+     * Category of a new ledger by the payer's rules, or null if none matches; runs on the write path
+     */
+    String categorize(String payerId, String description);
+
+    /**
+     * The current user's rules followed by the global ones
+     */
+    List<CategoryRuleResponse> getRules();
+
+    /**
+     * Adds a rule for the current user, or changes the category of their existing rule for the same keyword
+     */
+    CategoryRuleResponse addRule(CategoryRuleRequest request);
+
+    void deleteRule(String ruleId);
+
+    /**
+     * What the current user paid per category between startDate and endDate (inclusive, UTC), largest first
+     */
+    List<CategoryTotalResponse> getCategoryTotals(LocalDate startDate, LocalDate endDate);
+}
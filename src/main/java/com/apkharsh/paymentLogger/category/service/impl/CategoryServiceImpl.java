@@ -0,0 +1,172 @@
+package com.apkharsh.paymentLogger.category.service.impl;
+
+import com.apkharsh.paymentLogger.category.cache.CategoryMatcherCache;
+import com.apkharsh.paymentLogger.category.dto.CategoryRuleRequest;
+import com.apkharsh.paymentLogger.category.dto.CategoryRuleResponse;
+import com.apkharsh.paymentLogger.category.dto.CategoryTotalResponse;
+import com.apkharsh.paymentLogger.category.entity.CategoryRule;
+import com.apkharsh.paymentLogger.category.repository.CategoryRuleRepository;
+import com.apkharsh.paymentLogger.category.service.CategoryService;
+import com.apkharsh.paymentLogger.category.util.KeywordMatcher;
+import com.apkharsh.paymentLogger.exceptions.NotFoundException;
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.apkharsh.paymentLogger.id.IdGenerator;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.entity.LedgerFields;
+import com.apkharsh.paymentLogger.ledger.migration.LegacyLedgerFormat;
+import com.apkharsh.paymentLogger.ledger.repository.LedgerRepository;
+import com.apkharsh.paymentLogger.ledger.tiering.LedgerSegmentStore;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static com.apkharsh.paymentLogger.security.util.SecurityUtils.getCurrentUserId;
+
+@Service
+@RequiredArgsConstructor
+public class CategoryServiceImpl implements CategoryService {
+
+    private final CategoryRuleRepository ruleRepository;
+    private final CategoryMatcherCache matcherCache;
+    private final MongoTemplate mongoTemplate;
+    private final IdGenerator idGenerator;
+    private final LedgerRepository ledgerRepository;
+    private final LedgerSegmentStore segmentStore;
+    private final LegacyLedgerFormat legacyFormat;
+
+    @Override
+    public String categorize(String payerId, String description) {
+        if (payerId == null || description == null) {
+            return null;
+        }
+        return matcherCache.get(payerId).match(description);
+    }
+
+    @Override
+    public List<CategoryRuleResponse> getRules() {
+        List<CategoryRuleResponse> rules = new ArrayList<>();
+        for (CategoryRule rule : ruleRepository.findByUserId(getCurrentUserId())) {
+            rules.add(toResponse(rule));
+        }
+        for (CategoryRule rule : ruleRepository.findByUserId(null)) {
+            rules.add(toResponse(rule));
+        }
+        return rules;
+    }
+
+    @Override
+    public CategoryRuleResponse addRule(CategoryRuleRequest request) {
+        String userId = getCurrentUserId();
+        String keyword = KeywordMatcher.normalize(request.getKeyword());
+        if (keyword.isEmpty()) {
+            throw new ValidationException("Keyword is required");
+        }
+        CategoryRule rule = ruleRepository.findByUserIdAndKeyword(userId, keyword)
+                .orElseGet(() -> CategoryRule.builder().id(idGenerator.newId()).userId(userId).keyword(keyword).build());
+        rule.setCategory(request.getCategory().strip());
+        ruleRepository.save(rule);
+        matcherCache.invalidate(userId);
+        return toResponse(rule);
+    }
+
+    @Override
+    public void deleteRule(String ruleId) {
+        String userId = getCurrentUserId();
+        CategoryRule rule = ruleRepository.findByIdAndUserId(ruleId, userId)
+                .orElseThrow(() -> new NotFoundException("Category rule not found"));
+        ruleRepository.delete(rule);
+        matcherCache.invalidate(userId);
+    }
+
+    /**
+     * One $group over the user's payments in range, read from the {payer, category, timestamp} index.
+     * The stages are raw so payments still in the long-key format are summed too (see LegacyLedgerFormat).
+     * Ranges reaching into the cold tier (see LedgerTieringJob) are summed from the merged hot and cold rows instead.
+     */
+    @Override
+    public List<CategoryTotalResponse> getCategoryTotals(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new ValidationException("A valid startDate and endDate are required");
+        }
+        Instant from = startDate.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = endDate.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        if (segmentStore.reaches(from)) {
+            return totalsMerged(getCurrentUserId(), from, to);
+        }
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> new Document("$match", new Document("$and", List.of(
+                legacyFormat.filter(LedgerFields.PAYER, getCurrentUserId()),
+                legacyFormat.filter(LedgerFields.TIMESTAMP, new Document("$gte", Date.from(from)).append("$lt", Date.from(to)))))));
+        stages.addAll(legacyFormat.normalizeStages());
+        stages.add(context -> new Document("$group", new Document("_id", "$" + LedgerFields.CATEGORY)
+                .append("total", new Document("$sum", new Document("$toDecimal", "$" + LedgerFields.AMOUNT)))
+                .append("count", new Document("$sum", 1))));
+        stages.add(Aggregation.sort(Sort.Direction.DESC, "total"));
+
+        List<CategoryTotalResponse> totals = new ArrayList<>();
+        for (Document row : mongoTemplate.aggregate(Aggregation.newAggregation(stages), mongoTemplate.getCollectionName(Ledger.class), Document.class)
+                .getMappedResults()) {
+            totals.add(CategoryTotalResponse.builder()
+                    .category(row.getString("_id"))
+                    .total(toBigDecimal(row.get("total")))
+                    .count(row.get("count", Number.class).longValue())
+                    .build());
+        }
+        return totals;
+    }
+
+    /**
+     * {@code to} is exclusive; streamLedgers takes an inclusive bound, and stored timestamps have millisecond precision
+     */
+    private List<CategoryTotalResponse> totalsMerged(String userId, Instant from, Instant to) {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        Map<String, Long> counts = new HashMap<>();
+        try (Stream<Ledger> ledgers = ledgerRepository.streamLedgers(userId, from, to.minusMillis(1))) {
+            ledgers.filter(ledger -> userId.equals(ledger.getPayerId())).forEach(ledger -> {
+                totals.merge(ledger.getCategory(), ledger.getAmount() != null ? ledger.getAmount() : BigDecimal.ZERO, BigDecimal::add);
+                counts.merge(ledger.getCategory(), 1L, Long::sum);
+            });
+        }
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
+                .map(entry -> CategoryTotalResponse.builder()
+                        .category(entry.getKey())
+                        .total(entry.getValue())
+                        .count(counts.get(entry.getKey()))
+                        .build())
+                .toList();
+    }
+
+    /**
+     * $sum yields Decimal128 for stored amounts, or the int 0 when nothing in the group was numeric
+     */
+    private BigDecimal toBigDecimal(Object sum) {
+        return sum instanceof Decimal128 decimal ? decimal.bigDecimalValue() : new BigDecimal(sum.toString());
+    }
+
+    private CategoryRuleResponse toResponse(CategoryRule rule) {
+        return CategoryRuleResponse.builder()
+                .id(rule.getId())
+                .keyword(rule.getKeyword())
+                .category(rule.getCategory())
+                .global(rule.getUserId() == null)
+                .build();
+    }
+}
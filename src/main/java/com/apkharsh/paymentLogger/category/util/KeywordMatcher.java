@@ -0,0 +1,134 @@
+package com.apkharsh.paymentLogger.category.util;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton over a set of keywords, each mapped to a category. Built once per rule set; a match is a
+ * single pass over the text regardless of how many keywords there are.
+ * <p>
+ * Matching is case-insensitive and only counts whole words ("rent" matches "Rent - May" but not "parent").
+ * When several keywords match, the longest wins ("coffee beans" over "coffee"), then the one that ends first.
+ * Immutable once built, so one instance can be shared across threads.
+ */
+public final class KeywordMatcher {
+
+    public static final KeywordMatcher EMPTY = compile(Map.of());
+
+    private final Node root;
+
+    private KeywordMatcher(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param categoriesByKeyword keywords (any case, surrounding whitespace ignored) to the category they imply
+     */
+    public static KeywordMatcher compile(Map<String, String> categoriesByKeyword) {
+        Node root = new Node(0);
+        for (Map.Entry<String, String> entry : categoriesByKeyword.entrySet()) {
+            String keyword = normalize(entry.getKey());
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            Node node = root;
+            for (int i = 0; i < keyword.length(); i++) {
+                int depth = i + 1;
+                node = node.next.computeIfAbsent(keyword.charAt(i), c -> new Node(depth));
+            }
+            node.category = entry.getValue();
+        }
+
+        // Breadth-first, so every node's failure target (a shorter suffix) is finished before the node itself
+        root.fail = root;
+        Queue<Node> queue = new ArrayDeque<>();
+        for (Node child : root.next.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Map.Entry<Character, Node> edge : node.next.entrySet()) {
+                Node child = edge.getValue();
+                Node fail = node.fail;
+                while (fail != root && !fail.next.containsKey(edge.getKey())) {
+                    fail = fail.fail;
+                }
+                Node target = fail.next.get(edge.getKey());
+                child.fail = target != null ? target : root;
+                child.output = child.fail.category != null ? child.fail : child.fail.output;
+                queue.add(child);
+            }
+        }
+        return new KeywordMatcher(root);
+    }
+
+    /**
+     * @return category of the best whole-word keyword in {@code text}, or null if none matches
+     */
+    public String match(String text) {
+        if (text == null || root.next.isEmpty()) {
+            return null;
+        }
+        String best = null;
+        int bestLength = 0;
+        Node state = root;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            while (state != root && !state.next.containsKey(c)) {
+                state = state.fail;
+            }
+            state = state.next.getOrDefault(c, root);
+
+            for (Node hit = state.category != null ? state : state.output; hit != null; hit = hit.output) {
+                if (hit.depth > bestLength && isWholeWord(text, i - hit.depth + 1, i)) {
+                    best = hit.category;
+                    bestLength = hit.depth;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Lower-cases char by char, exactly as match() does, so keyword and text lengths always line up
+     */
+    public static String normalize(String keyword) {
+        if (keyword == null) {
+            return "";
+        }
+        String stripped = keyword.strip();
+        StringBuilder normalized = new StringBuilder(stripped.length());
+        for (int i = 0; i < stripped.length(); i++) {
+            normalized.append(Character.toLowerCase(stripped.charAt(i)));
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isWholeWord(String text, int start, int end) {
+        return (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1)))
+                && (end == text.length() - 1 || !Character.isLetterOrDigit(text.charAt(end + 1)));
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> next = new HashMap<>();
+        private final int depth;
+        private Node fail;
+
+        /**
+         * Nearest node on the failure chain that ends a keyword
+         */
+        private Node output;
+
+        /**
+         * Set when a keyword ends here
+         */
+        private String category;
+
+        private Node(int depth) {
+            this.depth = depth;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.apkharsh.paymentLogger.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -17,10 +21,17 @@ import java.util.concurrent.ThreadPoolExecutor;
 public class AsyncEmailConfig implements AsyncConfigurer {
 
     /**
-     * Email Task Executor - Thread pool for sending emails asynchronously
+     * Email Task Executor - Thread pool for sending emails asynchronously,
+     * or one virtual thread per email when spring.threads.virtual.enabled=true
      */
     @Bean(name = "emailTaskExecutor")
-    public Executor emailTaskExecutor() {
+    public Executor emailTaskExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${app.email.virtual-threads.concurrency-limit:2}") int virtualConcurrencyLimit,
+            MeterRegistry meterRegistry) {
+        if (virtualThreads) {
+            return virtualEmailTaskExecutor(virtualConcurrencyLimit);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         executor.setCorePoolSize(5);
@@ -38,8 +49,16 @@ public class AsyncEmailConfig implements AsyncConfigurer {
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60);
         
-        // Rejection policy when queue is full
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // Rejection policy when queue is full; each rejection is counted (queue depth and active threads are
+        // published by Boot as executor.queued / executor.active with name=emailTaskExecutor)
+        Counter rejected = Counter.builder("email.executor.rejected")
+                .description("Emails sent on the caller's thread because the email queue was full")
+                .register(meterRegistry);
+        ThreadPoolExecutor.CallerRunsPolicy callerRuns = new ThreadPoolExecutor.CallerRunsPolicy();
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            callerRuns.rejectedExecution(task, pool);
+        });
 
         // Initialize the executor
         executor.initialize();
@@ -52,6 +71,19 @@ public class AsyncEmailConfig implements AsyncConfigurer {
         return executor;
     }
 
+    /**
+     * Sends beyond the limit wait for a free slot on the caller's (virtual) thread, like CallerRunsPolicy's backpressure
+     */
+    private Executor virtualEmailTaskExecutor(int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("email-virtual-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskTerminationTimeout(60_000);
+
+        log.info("Email async executor initialized [virtualThreads=true, concurrencyLimit={}]", concurrencyLimit);
+        return executor;
+    }
+
     /**
      * Global exception handler for async methods
      */
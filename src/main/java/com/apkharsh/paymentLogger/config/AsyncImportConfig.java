@@ -0,0 +1,54 @@
+package com.apkharsh.paymentLogger.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * CSV imports use two pools: job threads parse files, write threads run the bulk inserts they hand off.
+ * Write tasks never wait on job tasks, so the pools can't deadlock each other.
+ */
+@Configuration
+@Slf4j
+public class AsyncImportConfig {
+
+    /**
+     * Import Job Executor - one thread per running import (parsing); extra uploads wait in the queue
+     */
+    @Bean(name = "importJobExecutor")
+    public ThreadPoolTaskExecutor importJobExecutor(
+            @Value("${app.import.concurrent-jobs:2}") int concurrentJobs,
+            @Value("${app.import.max-queued-jobs:10}") int maxQueuedJobs) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrentJobs);
+        executor.setMaxPoolSize(concurrentJobs);
+        executor.setQueueCapacity(maxQueuedJobs);
+        executor.setThreadNamePrefix("import-job-");
+
+        // Uploads beyond the queue are refused rather than parsed on the request thread
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        log.info("Import job executor initialized [poolSize={}, queueCapacity={}]", concurrentJobs, maxQueuedJobs);
+        return executor;
+    }
+
+    /**
+     * Import Write Executor - bulk inserts; each job keeps at most app.import.max-in-flight-batches queued here
+     */
+    @Bean(name = "importWriteExecutor")
+    public ThreadPoolTaskExecutor importWriteExecutor(@Value("${app.import.write-threads:4}") int writeThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(writeThreads);
+        executor.setMaxPoolSize(writeThreads);
+        executor.setThreadNamePrefix("import-write-");
+        executor.initialize();
+
+        log.info("Import write executor initialized [poolSize={}]", writeThreads);
+        return executor;
+    }
+}
@@ -1,5 +1,6 @@
 package com.apkharsh.paymentLogger.config;
 
+import com.apkharsh.paymentLogger.consistency.ReplicaReads;
 import lombok.RequiredArgsConstructor;
 import org.bson.Document;
 import org.springframework.boot.health.contributor.Health;
@@ -12,12 +13,13 @@ import org.springframework.stereotype.Component;
 public class CustomMongoHealthIndicator implements HealthIndicator {
 
     private final MongoTemplate mongoTemplate;
+    private final ReplicaReads replicaReads;
 
     @Override
     public Health health() {
         try {
-            // Use 'ping' command on YOUR database, not 'local'
-            mongoTemplate.getDb().runCommand(new Document("ping", 1));
+            // Use 'ping' command on YOUR database, not 'local'; with read replicas, on the member reads are routed to
+            mongoTemplate.getDb().runCommand(new Document("ping", 1), replicaReads.readPreference());
 
             return Health.up()
                     .withDetail("database", mongoTemplate.getDb().getName())
@@ -1,14 +1,28 @@
 package com.apkharsh.paymentLogger.config;
 
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.core.TypeInformation;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
 
 @Configuration
 public class MongoConfig {
@@ -16,18 +30,52 @@ public class MongoConfig {
     @Value("${spring.data.mongodb.uri}")
     private String mongoUri;
 
+    /**
+     * Boot doesn't build this client, so its metric listeners (mongodb.driver.commands, mongodb.driver.pool.*)
+     * are added here
+     */
     @Bean
-    public MongoClient mongoClient() {
+    public MongoClient mongoClient(ObjectProvider<MongoMetricsCommandListener> commandListener,
+                                   ObjectProvider<MongoMetricsConnectionPoolListener> poolListener) {
         ConnectionString conn = new ConnectionString(mongoUri);
-        MongoClientSettings settings = MongoClientSettings.builder()
-                .applyConnectionString(conn)
-                .build();
-        return MongoClients.create(settings);
+        MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                .applyConnectionString(conn);
+        commandListener.ifAvailable(settings::addCommandListener);
+        poolListener.ifAvailable(listener ->
+                settings.applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(listener)));
+        return MongoClients.create(settings.build());
     }
 
     @Bean
     public MongoTemplate mongoTemplate(MongoClient client) {
-        return new MongoTemplate(new SimpleMongoClientDatabaseFactory(client, "paymentLogger"));
+        MongoDatabaseFactory factory = new SimpleMongoClientDatabaseFactory(client, "paymentLogger");
+        return new MongoTemplate(factory, mappingConverter(factory));
+    }
+
+    /**
+     * Same setup MongoTemplate would create itself, minus the _class key on ledgers: Ledger isn't polymorphic and is
+     * by far the largest collection, so the hint is just bytes on every document there. Other collections keep it.
+     * Auto index creation stays off on this context; MongoIndexInitializer creates the declared indexes once at startup instead.
+     */
+    private MappingMongoConverter mappingConverter(MongoDatabaseFactory factory) {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        MappingMongoConverter converter = new MappingMongoConverter(new DefaultDbRefResolver(factory), mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.setCodecRegistryProvider(factory);
+        converter.setTypeMapper(new DefaultMongoTypeMapper(DefaultMongoTypeMapper.DEFAULT_TYPE_KEY, mappingContext) {
+            @Override
+            public void writeType(TypeInformation<?> info, Bson sink) {
+                if (info.getType() != Ledger.class) {
+                    super.writeType(info, sink);
+                }
+            }
+        });
+        converter.afterPropertiesSet();
+        return converter;
     }
 }
 
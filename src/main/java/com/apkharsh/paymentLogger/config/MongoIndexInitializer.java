@@ -0,0 +1,92 @@
+package com.apkharsh.paymentLogger.config;
+
+import com.apkharsh.paymentLogger.PaymentLoggingApplication;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.migration.LedgerCollectionLayout;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the indexes declared on every @Document entity at startup (spring.data.mongodb.auto-index-creation=true).
+ * MongoConfig builds its own mapping context, so Spring Data's built-in auto-creation is never wired in; this does
+ * the same work once, before the application serves requests. Existing indexes are left as they are.
+ * <p>
+ * Ledger indexes (the text index among them) can take a long time on a large collection, so they are built on a
+ * background thread instead; until they exist the affected reads are slower, and search answers 503.
+ * <p>
+ * When "ledgers" really is a time-series collection (see LedgerCollectionLayout) its indexes are owned by
+ * LedgerTimeSeriesCollection (a time-series collection can't hold the text index declared on Ledger), so ledgers
+ * are skipped here.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.data.mongodb.auto-index-creation", havingValue = "true")
+@Slf4j
+public class MongoIndexInitializer {
+
+    private final MongoTemplate mongoTemplate;
+    private final LedgerCollectionLayout collectionLayout;
+
+    private final ExecutorService ledgerIndexBuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ledger-index-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate,
+                                 LedgerCollectionLayout collectionLayout) {
+        this.mongoTemplate = mongoTemplate;
+        this.collectionLayout = collectionLayout;
+    }
+
+    @PostConstruct
+    public void createIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Document.class));
+        for (BeanDefinition candidate : scanner.findCandidateComponents(PaymentLoggingApplication.class.getPackageName())) {
+            Class<?> type = ClassUtils.resolveClassName(candidate.getBeanClassName(), getClass().getClassLoader());
+            if (type != Ledger.class) {
+                createIndexes(resolver, type);
+            } else if (!collectionLayout.isTimeSeries()) {
+                ledgerIndexBuilder.execute(() -> {
+                    try {
+                        createIndexes(resolver, type);
+                        log.info("Ledger indexes ready");
+                    } catch (Exception e) {
+                        // Retried on the next start, or by LedgerStorageMigrator
+                        log.error("Ledger index build failed", e);
+                    }
+                });
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        ledgerIndexBuilder.shutdownNow();
+    }
+
+    private void createIndexes(MongoPersistentEntityIndexResolver resolver, Class<?> type) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(type);
+        IndexOperations indexOps = mongoTemplate.indexOps(entity.getCollection());
+        resolver.resolveIndexFor(type).forEach(indexOps::createIndex);
+        log.debug("Ensured indexes for {} on '{}'", type.getSimpleName(), entity.getCollection());
+    }
+}
@@ -0,0 +1,45 @@
+package com.apkharsh.paymentLogger.config;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+
+/**
+ * Non-blocking client for the reactive ledger endpoints (profile "reactive").
+ * Shares the mapping converter with MongoTemplate, so both write and read the same document format.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveMongoConfig {
+
+    @Value("${spring.data.mongodb.uri}")
+    private String mongoUri;
+
+    @Bean
+    public MongoClient reactiveMongoClient(ObjectProvider<MongoMetricsCommandListener> commandListener,
+                                           ObjectProvider<MongoMetricsConnectionPoolListener> poolListener) {
+        MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(mongoUri));
+        commandListener.ifAvailable(settings::addCommandListener);
+        poolListener.ifAvailable(listener ->
+                settings.applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(listener)));
+        return MongoClients.create(settings.build());
+    }
+
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(MongoClient reactiveMongoClient, MongoTemplate mongoTemplate) {
+        return new ReactiveMongoTemplate(new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, "paymentLogger"),
+                mongoTemplate.getConverter());
+    }
+}
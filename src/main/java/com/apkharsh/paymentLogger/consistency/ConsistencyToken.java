@@ -0,0 +1,74 @@
+package com.apkharsh.paymentLogger.consistency;
+
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.mongodb.session.ClientSession;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque read-your-writes token: the operation time of a write. A read in a session advanced to it waits on the
+ * secondary until that write is applied there.
+ * <p>
+ * The cluster time is deliberately left out: it is client input once it has been round-tripped, and a session
+ * gossiping a forged or expired one fails the read on signature verification. The driver gossips the cluster time
+ * it got from the servers itself. Tokens issued with a cluster time ("c") still decode; it is ignored.
+ */
+public record ConsistencyToken(BsonTimestamp operationTime) {
+
+    private static final String OPERATION_TIME = "o";
+
+    /**
+     * Token for the last operation of the session, or null when the deployment doesn't report operation times
+     * (standalone servers)
+     */
+    public static ConsistencyToken of(ClientSession session) {
+        if (session.getOperationTime() == null) {
+            return null;
+        }
+        return new ConsistencyToken(session.getOperationTime());
+    }
+
+    /**
+     * The later of two tokens; either may be null
+     */
+    public static ConsistencyToken latest(ConsistencyToken a, ConsistencyToken b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.operationTime().compareTo(b.operationTime()) >= 0 ? a : b;
+    }
+
+    public String encode() {
+        BsonDocument document = new BsonDocument(OPERATION_TIME, operationTime);
+        ByteBuffer bytes = new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().asNIO();
+        byte[] raw = new byte[bytes.remaining()];
+        bytes.get(raw);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * The whole document is parsed and must fill the token exactly; a lazy read would accept a wrong length prefix
+     * or trailing bytes
+     */
+    public static ConsistencyToken decode(String token) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(Base64.getUrlDecoder().decode(token)))) {
+            BsonDocument document = new BsonDocumentCodec().decode(reader, DecoderContext.builder().build());
+            if (reader.getBsonInput().hasRemaining()) {
+                throw new IllegalArgumentException("Trailing bytes after the token document");
+            }
+            return new ConsistencyToken(document.getTimestamp(OPERATION_TIME));
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid consistency token");
+        }
+    }
+}
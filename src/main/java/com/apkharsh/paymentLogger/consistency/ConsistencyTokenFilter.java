@@ -0,0 +1,34 @@
+package com.apkharsh.paymentLogger.consistency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds the Consistency-Token request header to the request thread for ReplicaReads.
+ * The token is only decoded when a read uses it; one that can't be used sends that read to the primary (see ReplicaReads).
+ */
+@Component
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Consistency-Token";
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        ReadConsistency.begin(request.getHeader(HEADER));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadConsistency.end();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.apkharsh.paymentLogger.consistency;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-request read-your-writes state, bound to the request thread like the security context:
+ * the token the client sent (see ConsistencyTokenFilter) and the token of the writes this request made.
+ */
+public final class ReadConsistency {
+
+    private static final ThreadLocal<String> REQUESTED = new ThreadLocal<>();
+    private static final ThreadLocal<ConsistencyToken> WRITTEN = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ReadConsistency() {
+    }
+
+    static void begin(String requestedToken) {
+        REQUESTED.set(requestedToken);
+    }
+
+    static void end() {
+        REQUESTED.remove();
+        WRITTEN.remove();
+        PRIMARY.remove();
+    }
+
+    /**
+     * Raw token from the Consistency-Token request header, or null
+     */
+    static String requestedToken() {
+        return REQUESTED.get();
+    }
+
+    public static void recordWrite(ConsistencyToken token) {
+        WRITTEN.set(ConsistencyToken.latest(WRITTEN.get(), token));
+    }
+
+    /**
+     * Token covering every write recorded by this request, or null
+     */
+    public static ConsistencyToken writeToken() {
+        return WRITTEN.get();
+    }
+
+    /**
+     * Runs reads that must see the latest data regardless of the client's token (e.g. results shared with other
+     * requests through a cache) on the primary
+     */
+    public static <T> T onPrimary(Supplier<T> reads) {
+        Boolean previous = PRIMARY.get();
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY.remove();
+            } else {
+                PRIMARY.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Runs work that isn't part of a request (import jobs, group-commit flushes) on a pooled thread with no
+     * request state, and clears whatever it records afterwards so nothing stays bound to the thread.
+     * State of an enclosing request, if any, is restored.
+     */
+    public static void detached(Runnable work) {
+        String requested = REQUESTED.get();
+        ConsistencyToken written = WRITTEN.get();
+        Boolean primary = PRIMARY.get();
+        end();
+        try {
+            work.run();
+        } finally {
+            end();
+            restore(REQUESTED, requested);
+            restore(WRITTEN, written);
+            restore(PRIMARY, primary);
+        }
+    }
+
+    private static <T> void restore(ThreadLocal<T> local, T value) {
+        if (value != null) {
+            local.set(value);
+        }
+    }
+
+    static boolean primaryRequired() {
+        return PRIMARY.get() != null;
+    }
+}
@@ -0,0 +1,146 @@
+package com.apkharsh.paymentLogger.consistency;
+
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.ClientSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes read paths to secondaries when app.mongo.read-replicas.enabled=true (secondaryPreferred, at most
+ * max-staleness behind the primary). A request carrying a Consistency-Token reads in a causally consistent session
+ * advanced to that token, so the secondary answers only once it has applied the client's own write. A token that
+ * can't be used (malformed, or from the future) sends the read to the primary instead of failing the request.
+ */
+@Component
+@Slf4j
+public class ReplicaReads {
+
+    /**
+     * MongoDB rejects a smaller maxStalenessSeconds
+     */
+    private static final Duration MIN_MAX_STALENESS = Duration.ofSeconds(90);
+
+    /**
+     * Tolerated difference between this host's clock and the cluster's when checking a token's operation time
+     */
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(1);
+
+    static final ClientSessionOptions CAUSAL = ClientSessionOptions.builder().causallyConsistent(true).build();
+
+    private final MongoTemplate primary;
+    private final MongoTemplate secondary;
+    private final ReadPreference readPreference;
+
+    @Autowired
+    public ReplicaReads(MongoTemplate mongoTemplate,
+                        ApplicationContext applicationContext,
+                        @Value("${app.mongo.read-replicas.enabled:false}") boolean enabled,
+                        @Value("${app.mongo.read-replicas.max-staleness:90s}") Duration maxStaleness) {
+        this.primary = mongoTemplate;
+        if (!enabled) {
+            this.secondary = null;
+            this.readPreference = ReadPreference.primary();
+            return;
+        }
+        if (maxStaleness.compareTo(MIN_MAX_STALENESS) < 0) {
+            throw new IllegalArgumentException("app.mongo.read-replicas.max-staleness must be at least " + MIN_MAX_STALENESS);
+        }
+        this.readPreference = ReadPreference.secondaryPreferred(maxStaleness.toMillis(), TimeUnit.MILLISECONDS);
+        this.secondary = new MongoTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter());
+        this.secondary.setReadPreference(readPreference);
+        this.secondary.setApplicationContext(applicationContext);
+        log.info("Read replica routing enabled [readPreference={}]", readPreference);
+    }
+
+    private ReplicaReads(MongoTemplate mongoTemplate) {
+        this.primary = mongoTemplate;
+        this.secondary = null;
+        this.readPreference = ReadPreference.primary();
+    }
+
+    /**
+     * Every read on the given template, e.g. for tools and benchmarks outside the application context
+     */
+    public static ReplicaReads primaryOnly(MongoTemplate mongoTemplate) {
+        return new ReplicaReads(mongoTemplate);
+    }
+
+    public ReadPreference readPreference() {
+        return readPreference;
+    }
+
+    /**
+     * Template for the reads of one operation; close the scope once they are done (for a stream, when it is closed)
+     */
+    public Scope open() {
+        if (secondary == null || ReadConsistency.primaryRequired()) {
+            return new Scope(primary, null);
+        }
+        String requested = ReadConsistency.requestedToken();
+        if (requested == null) {
+            return new Scope(secondary, null);
+        }
+        ConsistencyToken token = usableToken(requested);
+        if (token == null) {
+            // Can't tell what the client has written, so read it from the primary
+            return new Scope(primary, null);
+        }
+        // Only the operation time comes from the client; the cluster time gossiped with the read is the driver's own
+        ClientSession session = primary.getMongoDatabaseFactory().getSession(CAUSAL);
+        session.advanceOperationTime(token.operationTime());
+        MongoTemplate bound = secondary.withSession(session);
+        bound.setReadPreference(readPreference);
+        return new Scope(bound, session);
+    }
+
+    /**
+     * Causally consistent session for a write whose ConsistencyToken is handed back to the client, or null when
+     * reads never leave the primary (no token is needed then)
+     */
+    public ClientSession startWriteSession() {
+        if (secondary == null) {
+            return null;
+        }
+        return primary.getMongoDatabaseFactory().getSession(CAUSAL);
+    }
+
+    /**
+     * The client's token, or null if it is malformed or claims an operation time the cluster can't have reached yet
+     * (a forged or foreign token would otherwise fail the read with a server error)
+     */
+    static ConsistencyToken usableToken(String requested) {
+        ConsistencyToken token;
+        try {
+            token = ConsistencyToken.decode(requested);
+        } catch (ValidationException e) {
+            log.debug("Ignoring malformed consistency token");
+            return null;
+        }
+        long latest = Instant.now().plus(MAX_CLOCK_SKEW).getEpochSecond();
+        if (Integer.toUnsignedLong(token.operationTime().getTime()) > latest) {
+            log.debug("Ignoring consistency token from the future [operationTime={}]", token.operationTime());
+            return null;
+        }
+        return token;
+    }
+
+    public record Scope(MongoTemplate template, ClientSession session) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            if (session != null) {
+                session.close();
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.apkharsh.paymentLogger.email.impl;
 
 import com.apkharsh.paymentLogger.email.EmailService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +19,7 @@ import org.springframework.stereotype.Service;
 public class EmailServiceImpl implements EmailService {
 
     private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
 
     @Value("${app.from-email}")
     private String fromEmail;
@@ -88,11 +91,14 @@ public class EmailServiceImpl implements EmailService {
      */
     private void sendEmailSync(String emailType, String toEmail, String subject,
                                String htmlContent, boolean throwOnError) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
         try {
             log.info("Sending {} to: {}", emailType, toEmail);
 
             MimeMessage message = createMimeMessage(toEmail, subject, htmlContent);
             mailSender.send(message);
+            outcome = "success";
 
             log.info("{} sent successfully to: {}", emailType, toEmail);
 
@@ -101,6 +107,8 @@ public class EmailServiceImpl implements EmailService {
             if (throwOnError) {
                 throw new RuntimeException("Failed to send email. Please try again later.", e);
             }
+        } finally {
+            sample.stop(sendTimer(emailType, "sync", outcome));
         }
     }
 
@@ -113,11 +121,14 @@ public class EmailServiceImpl implements EmailService {
      * @param htmlContent HTML body
      */
     private void sendEmailAsync(String emailType, String toEmail, String subject, String htmlContent) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
         try {
             log.info("Sending {} (async) to: {}", emailType, toEmail);
 
             MimeMessage message = createMimeMessage(toEmail, subject, htmlContent);
             mailSender.send(message);
+            outcome = "success";
 
             log.info("{} sent successfully (async) to: {}", emailType, toEmail);
 
@@ -125,9 +136,24 @@ public class EmailServiceImpl implements EmailService {
             log.error("Failed to send {} (async) to: {}", emailType, toEmail, e);
         } catch (Exception e) {
             log.error("Unexpected error sending {} to: {}", emailType, toEmail, e);
+        } finally {
+            sample.stop(sendTimer(emailType, "async", outcome));
         }
     }
 
+    /**
+     * SMTP round trip per email; async sends exclude the time spent waiting in emailTaskExecutor's queue
+     */
+    private Timer sendTimer(String emailType, String mode, String outcome) {
+        return Timer.builder("email.send")
+                .description("Time to build and send one email")
+                .tag("type", emailType)
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     /**
      * Create and configure MimeMessage
      *
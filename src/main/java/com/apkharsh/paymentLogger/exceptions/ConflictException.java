@@ -0,0 +1,7 @@
+package com.apkharsh.paymentLogger.exceptions;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
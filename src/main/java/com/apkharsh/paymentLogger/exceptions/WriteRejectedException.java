@@ -0,0 +1,11 @@
+package com.apkharsh.paymentLogger.exceptions;
+
+/**
+ * A write refused before anything was handed to Mongo (e.g. a full or stopping writer queue), so retrying it
+ * can't store a duplicate. Answered like any ServiceUnavailableException.
+ */
+public class WriteRejectedException extends ServiceUnavailableException {
+    public WriteRejectedException(String message) {
+        super(message);
+    }
+}
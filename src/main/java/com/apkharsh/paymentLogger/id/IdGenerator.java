@@ -0,0 +1,12 @@
+package com.apkharsh.paymentLogger.id;
+
+/**
+ * Source of new document ids (app.ids.strategy).
+ * <p>
+ * Ids stay Strings in the entities. A 24-hex-digit id is written by Spring Data as a 12-byte ObjectId and read back
+ * as hex, while anything else (the UUIDs written before) stays a string, so old and new ids resolve side by side
+ * through the same repositories. See StoredIdOrder for how the two sort.
+ */
+public interface IdGenerator {
+    String newId();
+}
@@ -0,0 +1,37 @@
+package com.apkharsh.paymentLogger.id;
+
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ObjectIds (seconds | per-process random | 24-bit sequence) that never go backwards within this node:
+ * the sequence restarts each second, and if it overflows or the clock steps back the ids keep counting
+ * from the last second used. New ids land at the right edge of the _id index instead of random positions.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ids.strategy", havingValue = "objectid", matchIfMissing = true)
+public class MonotonicObjectIdGenerator implements IdGenerator {
+
+    private static final int SEQUENCE_BITS = 24;
+
+    /**
+     * (epochSeconds << 24) | sequence of the last id handed out
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    @Override
+    public String newId() {
+        long now = System.currentTimeMillis() / 1000;
+        long next = last.updateAndGet(previous -> {
+            if (now > previous >>> SEQUENCE_BITS) {
+                return now << SEQUENCE_BITS;
+            }
+            // Same second (or clock went back): bump the sequence; an overflow carries into the seconds
+            return previous + 1;
+        });
+        return new ObjectId((int) (next >>> SEQUENCE_BITS), (int) (next & ((1 << SEQUENCE_BITS) - 1))).toHexString();
+    }
+}
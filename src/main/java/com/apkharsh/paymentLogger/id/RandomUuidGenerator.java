@@ -0,0 +1,19 @@
+package com.apkharsh.paymentLogger.id;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * The original scheme: random 36-character string ids (app.ids.strategy=uuid)
+ */
+@Component
+@ConditionalOnProperty(name = "app.ids.strategy", havingValue = "uuid")
+public class RandomUuidGenerator implements IdGenerator {
+
+    @Override
+    public String newId() {
+        return UUID.randomUUID().toString();
+    }
+}
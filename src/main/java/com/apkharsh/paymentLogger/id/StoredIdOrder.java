@@ -0,0 +1,25 @@
+package com.apkharsh.paymentLogger.id;
+
+import org.bson.types.ObjectId;
+
+import java.util.Comparator;
+
+/**
+ * The order Mongo sorts a mixed _id column in: strings before ObjectIds (BSON type order), then by value.
+ * Lowercase hex of equal length compares like the underlying bytes, so ObjectIds can be compared as Strings.
+ */
+public final class StoredIdOrder {
+
+    public static final Comparator<String> ASCENDING =
+            Comparator.comparing(StoredIdOrder::isObjectId).thenComparing(Comparator.naturalOrder());
+
+    private StoredIdOrder() {
+    }
+
+    /**
+     * Whether Spring Data stores this String id as an ObjectId
+     */
+    public static boolean isObjectId(String id) {
+        return ObjectId.isValid(id);
+    }
+}
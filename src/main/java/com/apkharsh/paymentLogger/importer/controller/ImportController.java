@@ -0,0 +1,40 @@
+package com.apkharsh.paymentLogger.importer.controller;
+
+import com.apkharsh.paymentLogger.importer.dto.CsvColumnMapping;
+import com.apkharsh.paymentLogger.importer.dto.ImportJobResponse;
+import com.apkharsh.paymentLogger.importer.service.ImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@RequestMapping(value = "/imports")
+@RequiredArgsConstructor
+public class ImportController {
+
+    private final ImportService importService;
+
+    /**
+     * Upload a CSV statement (multipart "file"); column names can be overridden with the CsvColumnMapping params.
+     * Poll GET /imports/{jobId} for progress.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJobResponse> startImport(@RequestParam("file") MultipartFile file,
+                                                         @ModelAttribute CsvColumnMapping mapping) {
+        return new ResponseEntity<>(importService.startImport(file, mapping), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ImportJobResponse> getJob(@PathVariable String jobId) {
+        return new ResponseEntity<>(importService.getJob(jobId), HttpStatus.OK);
+    }
+}
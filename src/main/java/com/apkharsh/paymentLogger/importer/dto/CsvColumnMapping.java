@@ -0,0 +1,25 @@
+package com.apkharsh.paymentLogger.importer.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Header names of the CSV columns that feed each ledger field; defaults match the LedgerRequest field names
+ */
+@Data
+@NoArgsConstructor
+public class CsvColumnMapping {
+
+    private String payerColumn = "payerId";
+    private String payeeColumn = "payeeId";
+    private String amountColumn = "amount";
+
+    /**
+     * ISO-8601 instant, local date-time (taken as UTC) or date; an empty cell means "now"
+     */
+    private String timestampColumn = "timestamp";
+
+    private String descriptionColumn = "description";
+
+    private char delimiter = ',';
+}
@@ -0,0 +1,37 @@
+package com.apkharsh.paymentLogger.importer.dto;
+
+import com.apkharsh.paymentLogger.importer.enums.ImportJobStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportJobResponse {
+
+    private String jobId;
+    private String fileName;
+    private ImportJobStatus status;
+
+    private long rowsRead;
+    private long rowsCreated;
+    private long rowsRejected;
+
+    private List<String> errors;
+    private String failureReason;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX", timezone = "UTC")
+    private Instant createdAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX", timezone = "UTC")
+    private Instant finishedAt;
+}
@@ -0,0 +1,51 @@
+package com.apkharsh.paymentLogger.importer.entity;
+
+import com.apkharsh.paymentLogger.importer.enums.ImportJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of one CSV import; counters are $inc'ed by each written batch, so any instance can report it
+ */
+@Document(collection = "import_jobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJob {
+
+    @Id
+    private String id;
+
+    private String userId;
+
+    private String fileName;
+
+    private ImportJobStatus status;
+
+    private long rowsRead;
+    private long rowsCreated;
+    private long rowsRejected;
+
+    /**
+     * First few rejected rows ("line N: reason"); capped so a bad file can't grow the document unbounded
+     */
+    private List<String> errors;
+
+    private String failureReason;
+
+    private Instant createdAt;
+    private Instant finishedAt;
+
+    /**
+     * Refreshed by the instance running the job; a QUEUED or RUNNING job whose heartbeat stops is failed as stale
+     */
+    private Instant heartbeatAt;
+}
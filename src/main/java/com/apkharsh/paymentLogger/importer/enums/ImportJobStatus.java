@@ -0,0 +1,8 @@
+package com.apkharsh.paymentLogger.importer.enums;
+
+public enum ImportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
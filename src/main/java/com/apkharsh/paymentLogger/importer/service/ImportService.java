@@ -0,0 +1,15 @@
+package com.apkharsh.paymentLogger.importer.service;
+
+import com.apkharsh.paymentLogger.importer.dto.CsvColumnMapping;
+import com.apkharsh.paymentLogger.importer.dto.ImportJobResponse;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface ImportService {
+
+    /**
+     * Check the header against the mapping and queue the file for import; returns immediately with the job id
+     */
+    ImportJobResponse startImport(MultipartFile file, CsvColumnMapping mapping);
+
+    ImportJobResponse getJob(String jobId);
+}
@@ -0,0 +1,367 @@
+package com.apkharsh.paymentLogger.importer.service.impl;
+
+import com.apkharsh.paymentLogger.consistency.ReadConsistency;
+import com.apkharsh.paymentLogger.exceptions.NotFoundException;
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.apkharsh.paymentLogger.id.IdGenerator;
+import com.apkharsh.paymentLogger.importer.dto.CsvColumnMapping;
+import com.apkharsh.paymentLogger.importer.dto.ImportJobResponse;
+import com.apkharsh.paymentLogger.importer.entity.ImportJob;
+import com.apkharsh.paymentLogger.importer.enums.ImportJobStatus;
+import com.apkharsh.paymentLogger.importer.repository.ImportJobRepository;
+import com.apkharsh.paymentLogger.importer.service.ImportService;
+import com.apkharsh.paymentLogger.importer.util.CsvReader;
+import com.apkharsh.paymentLogger.importer.util.LedgerRowParser;
+import com.apkharsh.paymentLogger.importer.util.LedgerRowParser.ParsedRow;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerBatchItemResult;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerBatchResponse;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
+import com.apkharsh.paymentLogger.ledger.enums.BatchItemStatus;
+import com.apkharsh.paymentLogger.ledger.service.LedgerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.apkharsh.paymentLogger.security.util.SecurityUtils.getCurrentUserId;
+
+/**
+ * Imports run as a two-stage pipeline: the job thread parses the file into fixed-size batches and hands each
+ * to the write pool, waiting only when max-in-flight batches are already pending. Parsing the next batch
+ * therefore overlaps the bulk insert of the previous one, and memory stays at
+ * (max-in-flight + 1) x batch-size rows regardless of file size.
+ * <p>
+ * The spooled file only lives on the instance that accepted the upload, so a job can't be resumed elsewhere.
+ * Each instance heartbeats the jobs it holds; QUEUED or RUNNING jobs whose heartbeat is older than stale-after
+ * (their instance stopped or crashed) are marked FAILED at startup and on every heartbeat after that.
+ */
+@Service
+@Slf4j
+public class ImportServiceImpl implements ImportService {
+
+    /**
+     * Rejected rows kept on the job document
+     */
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final List<ImportJobStatus> ACTIVE_STATUSES = List.of(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING);
+
+    private final LedgerService ledgerService;
+    private final ImportJobRepository importJobRepository;
+    private final MongoTemplate mongoTemplate;
+    private final IdGenerator idGenerator;
+    private final ThreadPoolTaskExecutor jobExecutor;
+    private final ThreadPoolTaskExecutor writeExecutor;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.import.max-in-flight-batches:2}")
+    private int maxInFlightBatches;
+
+    @Value("${app.import.heartbeat-interval:1m}")
+    private Duration heartbeatInterval;
+
+    @Value("${app.import.stale-after:5m}")
+    private Duration staleAfter;
+
+    /**
+     * Jobs accepted by this instance that haven't finished yet
+     */
+    private final Set<String> activeJobs = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "import-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ImportServiceImpl(LedgerService ledgerService,
+                             ImportJobRepository importJobRepository,
+                             MongoTemplate mongoTemplate,
+                             IdGenerator idGenerator,
+                             @Qualifier("importJobExecutor") ThreadPoolTaskExecutor jobExecutor,
+                             @Qualifier("importWriteExecutor") ThreadPoolTaskExecutor writeExecutor) {
+        this.ledgerService = ledgerService;
+        this.importJobRepository = importJobRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.idGenerator = idGenerator;
+        this.jobExecutor = jobExecutor;
+        this.writeExecutor = writeExecutor;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!staleAfter.minus(heartbeatInterval).isPositive()) {
+            throw new IllegalArgumentException("app.import.stale-after must be longer than app.import.heartbeat-interval");
+        }
+        heartbeat.scheduleWithFixedDelay(this::heartbeatSafely, 0, heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeat.shutdownNow();
+    }
+
+    @Override
+    public ImportJobResponse startImport(MultipartFile file, CsvColumnMapping mapping) {
+        if (file == null || file.isEmpty()) {
+            throw new ValidationException("A non-empty CSV file is required");
+        }
+
+        // The multipart temp file is deleted when the request ends, so the job reads its own copy
+        Path copy;
+        try {
+            copy = Files.createTempFile("ledger-import-", ".csv");
+            file.transferTo(copy);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store uploaded file", e);
+        }
+
+        try {
+            LedgerRowParser parser = readColumns(copy, mapping);
+            ImportJob job = importJobRepository.save(ImportJob.builder()
+                    .id(idGenerator.newId())
+                    .userId(getCurrentUserId())
+                    .fileName(file.getOriginalFilename())
+                    .status(ImportJobStatus.QUEUED)
+                    .errors(List.of())
+                    .createdAt(Instant.now())
+                    .heartbeatAt(Instant.now())
+                    .build());
+            activeJobs.add(job.getId());
+            try {
+                jobExecutor.execute(() -> runImport(job.getId(), copy, mapping.getDelimiter(), parser));
+            } catch (TaskRejectedException e) {
+                activeJobs.remove(job.getId());
+                importJobRepository.delete(job);
+                throw new ValidationException("Too many imports in progress, try again later");
+            }
+            return toResponse(job);
+        } catch (RuntimeException e) {
+            deleteQuietly(copy);
+            throw e;
+        }
+    }
+
+    @Override
+    public ImportJobResponse getJob(String jobId) {
+        return importJobRepository.findByIdAndUserId(jobId, getCurrentUserId())
+                .map(this::toResponse)
+                .orElseThrow(() -> new NotFoundException("Import job not found"));
+    }
+
+    private void runImport(String jobId, Path file, char delimiter, LedgerRowParser parser) {
+        updateJob(jobId, new Update().set("status", ImportJobStatus.RUNNING));
+        Deque<Future<?>> inFlight = new ArrayDeque<>();
+        try (CsvReader csv = open(file, delimiter)) {
+            csv.readRecord(); // header, already checked in startImport
+
+            List<ParsedRow> batch = new ArrayList<>(batchSize);
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                batch.add(parser.parse(csv.getRecordLine(), record));
+                if (batch.size() == batchSize) {
+                    submitBatch(jobId, batch, inFlight);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submitBatch(jobId, batch, inFlight);
+            }
+            while (!inFlight.isEmpty()) {
+                inFlight.removeFirst().get();
+            }
+            updateJob(jobId, new Update().set("status", ImportJobStatus.COMPLETED).set("finishedAt", Instant.now()));
+            log.info("Import {} completed", jobId);
+        } catch (Exception e) {
+            inFlight.forEach(pending -> pending.cancel(true));
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.error("Import {} failed", jobId, cause);
+            updateJob(jobId, new Update()
+                    .set("status", ImportJobStatus.FAILED)
+                    .set("failureReason", String.valueOf(cause.getMessage()))
+                    .set("finishedAt", Instant.now()));
+        } finally {
+            activeJobs.remove(jobId);
+            deleteQuietly(file);
+        }
+    }
+
+    private void heartbeatSafely() {
+        try {
+            Instant now = Instant.now();
+            if (!activeJobs.isEmpty()) {
+                mongoTemplate.updateMulti(
+                        Query.query(Criteria.where("_id").in(activeJobs).and("status").in(ACTIVE_STATUSES)),
+                        new Update().set("heartbeatAt", now), ImportJob.class);
+            }
+            failStaleJobs(now.minus(staleAfter));
+        } catch (RuntimeException e) {
+            // Next tick retries; a missed beat only matters after stale-after
+            log.warn("Import job heartbeat failed", e);
+        }
+    }
+
+    /**
+     * Jobs from before heartbeats existed are judged by createdAt
+     */
+    private void failStaleJobs(Instant cutoff) {
+        Query stale = Query.query(new Criteria().andOperator(
+                Criteria.where("status").in(ACTIVE_STATUSES),
+                new Criteria().orOperator(
+                        Criteria.where("heartbeatAt").lt(cutoff),
+                        Criteria.where("heartbeatAt").exists(false).and("createdAt").lt(cutoff))));
+        long failed = mongoTemplate.updateMulti(stale, new Update()
+                .set("status", ImportJobStatus.FAILED)
+                .set("failureReason", "Import was interrupted by a server restart; upload the file again")
+                .set("finishedAt", Instant.now()), ImportJob.class).getModifiedCount();
+        if (failed > 0) {
+            log.warn("Marked {} stale import jobs as failed", failed);
+        }
+    }
+
+    /**
+     * Blocks while max-in-flight batches are pending, which is what keeps the parser from running ahead
+     */
+    private void submitBatch(String jobId, List<ParsedRow> batch, Deque<Future<?>> inFlight)
+            throws InterruptedException, ExecutionException {
+        while (inFlight.size() >= maxInFlightBatches) {
+            inFlight.removeFirst().get();
+        }
+        // addLedgers records its write token on the pool thread; keep it from outliving the batch
+        inFlight.addLast(writeExecutor.submit(() -> ReadConsistency.detached(() -> writeBatch(jobId, batch))));
+    }
+
+    private void writeBatch(String jobId, List<ParsedRow> batch) {
+        List<LedgerRequest> requests = new ArrayList<>(batch.size());
+        List<Long> requestLines = new ArrayList<>(batch.size());
+        List<String> errors = new ArrayList<>();
+        for (ParsedRow row : batch) {
+            if (row.error() != null) {
+                errors.add("line " + row.line() + ": " + row.error());
+            } else {
+                requests.add(row.request());
+                requestLines.add(row.line());
+            }
+        }
+
+        long created = 0;
+        if (!requests.isEmpty()) {
+            LedgerBatchResponse response = ledgerService.addLedgers(requests);
+            created = response.getCreated();
+            for (LedgerBatchItemResult result : response.getResults()) {
+                if (result.getStatus() != BatchItemStatus.CREATED) {
+                    errors.add("line " + requestLines.get(result.getIndex()) + ": " + String.join("; ", result.getErrors()));
+                }
+            }
+        }
+
+        Update progress = new Update()
+                .inc("rowsRead", batch.size())
+                .inc("rowsCreated", created)
+                .inc("rowsRejected", batch.size() - created);
+        if (!errors.isEmpty()) {
+            progress.push("errors").slice(MAX_REPORTED_ERRORS).each(errors.toArray());
+        }
+        updateJob(jobId, progress);
+    }
+
+    private LedgerRowParser readColumns(Path file, CsvColumnMapping mapping) {
+        List<String> header;
+        try (CsvReader csv = open(file, mapping.getDelimiter())) {
+            header = csv.readRecord();
+        } catch (IOException e) {
+            throw new ValidationException("Could not read CSV header: " + e.getMessage());
+        }
+        if (header == null) {
+            throw new ValidationException("CSV file has no header row");
+        }
+
+        List<String> names = new ArrayList<>(header.size());
+        for (String name : header) {
+            // Excel likes to prefix UTF-8 files with a byte order mark
+            names.add(name.replace("\uFEFF", "").trim());
+        }
+        return new LedgerRowParser(
+                columnIndex(names, mapping.getPayerColumn()),
+                columnIndex(names, mapping.getPayeeColumn()),
+                columnIndex(names, mapping.getAmountColumn()),
+                columnIndex(names, mapping.getTimestampColumn()),
+                columnIndex(names, mapping.getDescriptionColumn()));
+    }
+
+    private static int columnIndex(List<String> header, String column) {
+        int index = header.indexOf(column);
+        if (index < 0) {
+            throw new ValidationException("CSV header has no column '" + column + "'");
+        }
+        return index;
+    }
+
+    private static CsvReader open(Path file, char delimiter) throws IOException {
+        return new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8), delimiter);
+    }
+
+    private void updateJob(String jobId, Update update) {
+        update.set("heartbeatAt", Instant.now());
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(jobId)), update, ImportJob.class);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}", file, e);
+        }
+    }
+
+    private ImportJobResponse toResponse(ImportJob job) {
+        return ImportJobResponse.builder()
+                .jobId(job.getId())
+                .fileName(job.getFileName())
+                .status(job.getStatus())
+                .rowsRead(job.getRowsRead())
+                .rowsCreated(job.getRowsCreated())
+                .rowsRejected(job.getRowsRejected())
+                .errors(job.getErrors())
+                .failureReason(job.getFailureReason())
+                .createdAt(job.getCreatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.apkharsh.paymentLogger.importer.util;
+
+import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Turns one CSV record into a LedgerRequest, given the column positions found in the header.
+ * A bad row comes back rejected with a message instead of throwing, so one row never stops an import.
+ * Fields are only checked for their format here; the ledger validation runs when the batch is written.
+ */
+public final class LedgerRowParser {
+
+    private final int payer;
+    private final int payee;
+    private final int amount;
+    private final int timestamp;
+    private final int description;
+    private final int maxIndex;
+
+    public LedgerRowParser(int payer, int payee, int amount, int timestamp, int description) {
+        this.payer = payer;
+        this.payee = payee;
+        this.amount = amount;
+        this.timestamp = timestamp;
+        this.description = description;
+        this.maxIndex = Math.max(Math.max(payer, payee), Math.max(amount, Math.max(timestamp, description)));
+    }
+
+    /**
+     * @param line line the record starts on, for error messages
+     */
+    public ParsedRow parse(long line, List<String> record) {
+        if (record.size() <= maxIndex) {
+            return ParsedRow.rejected(line, "expected at least " + (maxIndex + 1) + " columns, found " + record.size());
+        }
+
+        BigDecimal parsedAmount;
+        try {
+            parsedAmount = new BigDecimal(record.get(amount).trim());
+        } catch (NumberFormatException e) {
+            return ParsedRow.rejected(line, "invalid amount '" + record.get(amount) + "'");
+        }
+
+        Instant parsedTimestamp = null;
+        String rawTimestamp = record.get(timestamp).trim();
+        if (!rawTimestamp.isEmpty()) {
+            try {
+                parsedTimestamp = parseTimestamp(rawTimestamp);
+            } catch (DateTimeParseException e) {
+                return ParsedRow.rejected(line, "invalid timestamp '" + rawTimestamp + "'");
+            }
+        }
+
+        return new ParsedRow(line, LedgerRequest.builder()
+                .payerId(record.get(payer).trim())
+                .payeeId(record.get(payee).trim())
+                .amount(parsedAmount)
+                .timestamp(parsedTimestamp)
+                .description(record.get(description).trim())
+                .build(), null);
+    }
+
+    /**
+     * ISO-8601 instant, or a zone-less date-time or date read as UTC
+     */
+    static Instant parseTimestamp(String value) {
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException ignored) {
+            // fall through to the zone-less formats, read as UTC
+        }
+        try {
+            return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException ignored) {
+            return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+    }
+
+    /**
+     * @param request null when the row was rejected
+     * @param error   why the row was rejected, or null
+     */
+    public record ParsedRow(long line, LedgerRequest request, String error) {
+        static ParsedRow rejected(long line, String error) {
+            return new ParsedRow(line, null, error);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.apkharsh.paymentLogger.ledger.cache;
+
+import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full ledger listings (GET /ledgers) cached in Redis per user and date range.
+ * <p>
+ * Keys embed the user's ledger version (see LedgerVersionStore), read once per request by the caller, so a write involving the user moves both payer
+ * and payee to new keys and the old entries simply expire; nothing has to be found and deleted. Values are the
+ * JSON of the listing, gzip + Base64 once it is large enough for that to pay off. Redis errors fall back to Mongo.
+ */
+@Component
+@Slf4j
+public class LedgerListCache {
+
+    private static final String KEY_PREFIX = "ledger_list:";
+    private static final char JSON = 'j';
+    private static final char GZIP = 'z';
+    private static final int COMPRESS_THRESHOLD_BYTES = 1024;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final int maxRows;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public LedgerListCache(StringRedisTemplate redisTemplate,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.cache.ledger-list.ttl:10m}") Duration ttl,
+                           @Value("${app.cache.ledger-list.max-rows:5000}") int maxRows) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.maxRows = maxRows;
+        this.hits = Counter.builder("cache.gets").tag("cache", "ledgerList").tag("result", "hit")
+                .description("Ledger listings served from Redis")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "ledgerList").tag("result", "miss")
+                .description("Ledger listings loaded from Mongo")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param version   the user's ledger version, read before loading so a concurrent write can only leave the entry
+     *                  under an outdated key; null (version unavailable or untrusted) bypasses the cache
+     * @param startDate null together with endDate for the full history
+     */
+    public List<LedgerResponse> get(String userId, String version, LocalDate startDate, LocalDate endDate,
+                                    Supplier<List<LedgerResponse>> loader) {
+        if (version == null) {
+            misses.increment();
+            return loader.get();
+        }
+        String key;
+        try {
+            key = KEY_PREFIX + userId + ":" + version + ":" + startDate + ":" + endDate;
+            String cached = redisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                List<LedgerResponse> rows = decode(cached);
+                if (rows != null) {
+                    hits.increment();
+                    return rows;
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Ledger list cache unavailable, reading from Mongo: {}", e.getMessage());
+            misses.increment();
+            return loader.get();
+        }
+
+        misses.increment();
+        List<LedgerResponse> rows = loader.get();
+        if (rows.size() <= maxRows) {
+            try {
+                redisTemplate.opsForValue().set(key, encode(rows), ttl);
+            } catch (DataAccessException e) {
+                log.warn("Could not cache ledger list: {}", e.getMessage());
+            }
+        }
+        return rows;
+    }
+
+    private String encode(List<LedgerResponse> rows) {
+        byte[] json = objectMapper.writeValueAsBytes(rows);
+        if (json.length < COMPRESS_THRESHOLD_BYTES) {
+            return JSON + new String(json, StandardCharsets.UTF_8);
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return GZIP + Base64.getEncoder().encodeToString(buffer.toByteArray());
+    }
+
+    /**
+     * @return null if the value can't be read (e.g. written by a different version of LedgerResponse)
+     */
+    private List<LedgerResponse> decode(String value) {
+        try {
+            byte[] json = value.charAt(0) == GZIP
+                    ? new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(value.substring(1)))).readAllBytes()
+                    : value.substring(1).getBytes(StandardCharsets.UTF_8);
+            return List.of(objectMapper.readValue(json, LedgerResponse[].class));
+        } catch (IOException | JacksonException | IllegalArgumentException e) {
+            log.warn("Discarding unreadable ledger list cache entry: {}", e.getMessage());
+            return null;
+        }
+    }
+}
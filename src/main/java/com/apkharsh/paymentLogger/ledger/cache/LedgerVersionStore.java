@@ -0,0 +1,128 @@
+package com.apkharsh.paymentLogger.ledger.cache;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user version of the ledger history, kept in Redis and served as the ETag of GET /ledgers.
+ * Every write bumps the version of both payer and payee, so a poll whose If-None-Match still matches can be
+ * answered with 304 after a single Redis call and no Mongo query.
+ * <p>
+ * A missing key (new user, or evicted) starts from the current time in microseconds rather than 0, so a
+ * version handed out before the key was lost is never handed out again for different data.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerVersionStore {
+
+    private static final String KEY_PREFIX = "ledger_version:";
+
+    private static final RedisScript<String> CURRENT_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if current then
+                return current
+            end
+            redis.call('SET', KEYS[1], ARGV[1])
+            return ARGV[1]
+            """, String.class);
+
+    private static final RedisScript<Long> BUMP_SCRIPT = new DefaultRedisScript<>("""
+            for _, key in ipairs(KEYS) do
+                if redis.call('EXISTS', key) == 1 then
+                    redis.call('INCR', key)
+                else
+                    redis.call('SET', key, ARGV[1])
+                end
+            end
+            return #KEYS
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Users whose bump failed and whose key couldn't be removed either: their stored version may predate a write,
+     * so it isn't handed out until the key has been removed
+     */
+    private final Set<String> untrusted = ConcurrentHashMap.newKeySet();
+
+    public static String eTag(String version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * The user's ledger version, or null if it can't be trusted right now (Redis unreachable, or a failed bump
+     * not cleaned up yet). Callers then serve the listing without an ETag and without the list cache.
+     */
+    public String currentVersion(String userId) {
+        try {
+            if (untrusted.contains(userId)) {
+                redisTemplate.delete(KEY_PREFIX + userId);
+                untrusted.remove(userId);
+            }
+            return redisTemplate.execute(CURRENT_SCRIPT, List.of(KEY_PREFIX + userId), initialVersion());
+        } catch (DataAccessException e) {
+            log.warn("Ledger version unavailable, serving without ETag or cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Invalidate the listings of everyone who took part in the written ledgers; one Redis call per batch.
+     * Never throws: the ledgers are already stored, so a failure only has to keep old versions from being served.
+     */
+    public void bump(Collection<Ledger> ledgers) {
+        Set<String> userIds = new LinkedHashSet<>();
+        for (Ledger ledger : ledgers) {
+            if (ledger.getPayerId() != null) {
+                userIds.add(ledger.getPayerId());
+            }
+            if (ledger.getPayeeId() != null) {
+                userIds.add(ledger.getPayeeId());
+            }
+        }
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            keys.add(KEY_PREFIX + userId);
+        }
+        try {
+            redisTemplate.execute(BUMP_SCRIPT, keys, initialVersion());
+        } catch (RuntimeException e) {
+            log.error("Ledger version bump failed for {} users: {}", userIds.size(), e.getMessage());
+            forget(userIds, keys);
+        }
+    }
+
+    /**
+     * A removed key restarts from the current time, so the next read gets a version (and cache key) never used before
+     */
+    private void forget(Set<String> userIds, List<String> keys) {
+        try {
+            redisTemplate.delete(keys);
+        } catch (RuntimeException e) {
+            untrusted.addAll(userIds);
+            log.error("Could not remove ledger versions after a failed bump; bypassing ETag and cache for {} users: {}",
+                    userIds.size(), e.getMessage());
+        }
+    }
+
+    private static String initialVersion() {
+        return String.valueOf(System.currentTimeMillis() * 1000);
+    }
+}
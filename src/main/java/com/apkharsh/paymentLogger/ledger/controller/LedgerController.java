@@ -1,37 +1,244 @@
 package com.apkharsh.paymentLogger.ledger.controller;
 
 
+import com.apkharsh.paymentLogger.consistency.ConsistencyToken;
+import com.apkharsh.paymentLogger.consistency.ConsistencyTokenFilter;
+import com.apkharsh.paymentLogger.consistency.ReadConsistency;
+import com.apkharsh.paymentLogger.ledger.cache.LedgerVersionStore;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerBatchResponse;
+import com.apkharsh.paymentLogger.ledger.idempotency.LedgerIdempotencyStore;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerPageResponse;
 import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
 import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
 import com.apkharsh.paymentLogger.ledger.dto.LedgerSearchRequest;
 import com.apkharsh.paymentLogger.ledger.service.LedgerService;
+import com.apkharsh.paymentLogger.ledger.util.AcceptEncoding;
+import com.apkharsh.paymentLogger.ledger.util.LedgerCsvWriter;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.apkharsh.paymentLogger.security.util.SecurityUtils.getCurrentUserId;
 
 @RestController
 @RequestMapping(value = "/ledgers")
 @RequiredArgsConstructor
 public class LedgerController {
 
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final LedgerService ledgerService;
+    private final LedgerIdempotencyStore idempotencyStore;
+    private final LedgerVersionStore ledgerVersionStore;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * With an Idempotency-Key header, retries of the same request return the first response
+     * (marked Idempotent-Replayed: true) instead of writing another ledger.
+     * A write answers with a Consistency-Token header; reads sending it back see the new ledger on any replica.
+     */
     @PostMapping
-    public ResponseEntity<LedgerResponse> createLedger(@RequestBody LedgerRequest request) {
-        return new ResponseEntity<>(ledgerService.addLedger(request), HttpStatus.OK);
+    public ResponseEntity<LedgerResponse> createLedger(
+            @Valid @RequestBody LedgerRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) {
+        if (idempotencyKey == null) {
+            LedgerResponse response = ledgerService.addLedger(request);
+            return new ResponseEntity<>(response, consistencyHeaders(), HttpStatus.OK);
+        }
+        LedgerIdempotencyStore.Result result = idempotencyStore.execute(idempotencyKey, request, () -> ledgerService.addLedger(request));
+        return ResponseEntity.ok()
+                .headers(consistencyHeaders())
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.response());
+    }
+
+    /**
+     * Bulk ingestion for importers: one request, one authentication and one insertMany for many payments.
+     * Each item is reported separately, so a bad row doesn't fail the whole batch.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<LedgerBatchResponse> createLedgers(@RequestBody List<LedgerRequest> requests) {
+        LedgerBatchResponse response = ledgerService.addLedgers(requests);
+        return new ResponseEntity<>(response, consistencyHeaders(), HttpStatus.OK);
     }
 
+    /**
+     * Tagged with the user's ledger version (see LedgerVersionStore); a poll sending it back in If-None-Match
+     * gets 304 without a Mongo query until a ledger involving the user is written.
+     */
     @GetMapping
     public ResponseEntity<List<LedgerResponse>> getAllLedgers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            WebRequest webRequest
+    ) {
+        LedgerSearchRequest request = LedgerSearchRequest.builder().startDate(startDate).endDate(endDate).build();
+
+        // ⭐ Read the version once, before the ledgers: a write in between makes the tag older than the body, never newer.
+        // The same version keys the listing cache.
+        String version = ledgerVersionStore.currentVersion(getCurrentUserId());
+        if (version == null) {
+            return new ResponseEntity<>(ledgerService.getAllLedgers(request, null), HttpStatus.OK);
+        }
+        String etag = LedgerVersionStore.eTag(version);
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ledgerService.getAllLedgers(request, version));
+    }
+
+    /**
+     * Cursor-paginated variant, selected when the client passes "limit".
+     * Follow nextCursor until it is absent to walk the full history.
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<LedgerPageResponse> getLedgerPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+    ) {
+        LedgerSearchRequest request = LedgerSearchRequest.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .limit(limit)
+                .cursor(cursor)
+                .build();
+        return new ResponseEntity<>(ledgerService.getLedgerPage(request), HttpStatus.OK);
+    }
+
+    /**
+     * Ledgers of the current user whose description contains the given words, best match first.
+     * Paged like the cursor variant of GET /ledgers: follow nextCursor until it is absent.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<LedgerPageResponse> searchLedgers(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
     ) {
-        return new ResponseEntity<>(ledgerService.getAllLedgers(LedgerSearchRequest.builder().startDate(startDate).endDate(endDate).build()), HttpStatus.OK);
+        LedgerSearchRequest request = LedgerSearchRequest.builder()
+                .text(q)
+                .startDate(startDate)
+                .endDate(endDate)
+                .limit(limit)
+                .cursor(cursor)
+                .build();
+        return new ResponseEntity<>(ledgerService.searchLedgers(request), HttpStatus.OK);
     }
 
+    /**
+     * Newline-delimited JSON variant of GET /ledgers: one LedgerResponse per line,
+     * written as the Mongo cursor yields them instead of after the whole history is loaded.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamLedgers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+    ) {
+        // Opened on the request thread, where the security context (current user) is available
+        Stream<LedgerResponse> rows = ledgerService.streamAllLedgers(LedgerSearchRequest.builder().startDate(startDate).endDate(endDate).build());
+
+        StreamingResponseBody body = outputStream -> {
+            try (rows) {
+                Iterator<LedgerResponse> iterator = rows.iterator();
+                boolean first = true;
+                while (iterator.hasNext()) {
+                    outputStream.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    outputStream.write('\n');
+                    if (first) {
+                        // Push the first row out immediately rather than waiting for the buffer to fill
+                        outputStream.flush();
+                        first = false;
+                    }
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Full history (or a date range) as a CSV download, rows written as the cursor yields them.
+     * Gzip-encoded whenever the client accepts it; nothing larger than one buffer is held in memory.
+     */
+    @GetMapping(value = "/export", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportLedgers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        Stream<LedgerResponse> rows = ledgerService.streamAllLedgers(LedgerSearchRequest.builder().startDate(startDate).endDate(endDate).build());
+        boolean gzip = AcceptEncoding.acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = outputStream -> {
+            try (rows) {
+                GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(outputStream, CSV_BUFFER_SIZE) : null;
+                OutputStream target = gzipStream != null ? gzipStream : outputStream;
+                Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+
+                LedgerCsvWriter csv = new LedgerCsvWriter(writer);
+                csv.writeHeader();
+                Iterator<LedgerResponse> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    csv.write(iterator.next());
+                }
+                writer.flush();
+                if (gzipStream != null) {
+                    gzipStream.finish();
+                }
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("ledgers.csv").build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Consistency-Token of the writes made by this request, if any
+     */
+    private HttpHeaders consistencyHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        ConsistencyToken token = ReadConsistency.writeToken();
+        if (token != null) {
+            headers.set(ConsistencyTokenFilter.HEADER, token.encode());
+        }
+        return headers;
+    }
 }
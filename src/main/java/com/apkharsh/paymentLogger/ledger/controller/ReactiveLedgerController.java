@@ -0,0 +1,122 @@
+package com.apkharsh.paymentLogger.ledger.controller;
+
+import com.apkharsh.paymentLogger.consistency.ConsistencyTokenFilter;
+import com.apkharsh.paymentLogger.exceptions.ServiceUnavailableException;
+import com.apkharsh.paymentLogger.ledger.cache.LedgerVersionStore;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerPageResponse;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerSearchRequest;
+import com.apkharsh.paymentLogger.ledger.service.ReactiveLedgerService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.apkharsh.paymentLogger.security.util.SecurityUtils.getCurrentUserId;
+
+/**
+ * Reactive variant of the core LedgerController endpoints, enabled with the "reactive" profile and served next to
+ * them under /reactive/ledgers. Handlers return a Mono, so the servlet thread is released while Mongo is working
+ * and the response is written on an async dispatch when the Mono completes.
+ * <p>
+ * Each handler gives up after app.ledger.reactive.request-timeout with 503; the servlet-wide async timeout stays
+ * long enough for the streaming endpoints of LedgerController.
+ */
+@RestController
+@RequestMapping(value = "/reactive/ledgers")
+@Profile("reactive")
+public class ReactiveLedgerController {
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final ReactiveLedgerService ledgerService;
+    private final LedgerVersionStore ledgerVersionStore;
+    private final Duration requestTimeout;
+
+    public ReactiveLedgerController(ReactiveLedgerService ledgerService,
+                                    LedgerVersionStore ledgerVersionStore,
+                                    @Value("${app.ledger.reactive.request-timeout:30s}") Duration requestTimeout) {
+        this.ledgerService = ledgerService;
+        this.ledgerVersionStore = ledgerVersionStore;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Same write path and headers as POST /ledgers (Idempotency-Key, Consistency-Token)
+     */
+    @PostMapping
+    public Mono<ResponseEntity<LedgerResponse>> createLedger(
+            @Valid @RequestBody LedgerRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) {
+        return ledgerService.addLedger(getCurrentUserId(), idempotencyKey, request)
+                .map(created -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (created.token() != null) {
+                        response.header(ConsistencyTokenFilter.HEADER, created.token().encode());
+                    }
+                    if (idempotencyKey != null) {
+                        response.header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(created.replayed()));
+                    }
+                    return response.body(created.response());
+                })
+                .timeout(requestTimeout, Mono.error(() ->
+                        new ServiceUnavailableException("Ledger write is taking too long, it may still be stored")));
+    }
+
+    /**
+     * Tagged with the user's ledger version like GET /ledgers, so an unchanged poll gets 304 without a Mongo query
+     */
+    @GetMapping
+    public Mono<ResponseEntity<List<LedgerResponse>>> getAllLedgers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            WebRequest webRequest
+    ) {
+        LedgerSearchRequest request = LedgerSearchRequest.builder().startDate(startDate).endDate(endDate).build();
+        // ⭐ Resolve the user here, on the request thread that holds the security context
+        String userId = getCurrentUserId();
+        // One Redis call, as on GET /ledgers; read before the ledgers so the tag is never newer than the body
+        String version = ledgerVersionStore.currentVersion(userId);
+        String etag = version != null ? LedgerVersionStore.eTag(version) : null;
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+        }
+        return ledgerService.getAllLedgers(userId, request)
+                .collectList()
+                .map(rows -> etag == null
+                        ? new ResponseEntity<>(rows, HttpStatus.OK)
+                        : ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).body(rows))
+                .timeout(requestTimeout, Mono.error(() -> new ServiceUnavailableException("Ledger listing timed out")));
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<LedgerPageResponse>> getLedgerPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+    ) {
+        LedgerSearchRequest request = LedgerSearchRequest.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .limit(limit)
+                .cursor(cursor)
+                .build();
+        return ledgerService.getLedgerPage(getCurrentUserId(), request)
+                .map(page -> new ResponseEntity<>(page, HttpStatus.OK))
+                .timeout(requestTimeout, Mono.error(() -> new ServiceUnavailableException("Ledger page timed out")));
+    }
+}
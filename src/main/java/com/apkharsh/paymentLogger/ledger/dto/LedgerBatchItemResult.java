@@ -0,0 +1,32 @@
+package com.apkharsh.paymentLogger.ledger.dto;
+
+import com.apkharsh.paymentLogger.ledger.enums.BatchItemStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LedgerBatchItemResult {
+
+    /**
+     * Position of the item in the request array
+     */
+    private int index;
+
+    private BatchItemStatus status;
+
+    /**
+     * Id of the created ledger (CREATED only)
+     */
+    private String id;
+
+    private List<String> errors;
+}
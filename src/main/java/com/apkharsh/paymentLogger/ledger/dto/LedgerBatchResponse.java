@@ -0,0 +1,23 @@
+package com.apkharsh.paymentLogger.ledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerBatchResponse {
+
+    private int created;
+    private int rejected;
+
+    /**
+     * One entry per request item, in request order
+     */
+    private List<LedgerBatchItemResult> results;
+}
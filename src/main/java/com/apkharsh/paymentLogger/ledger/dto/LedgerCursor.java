@@ -0,0 +1,40 @@
+package com.apkharsh.paymentLogger.ledger.dto;
+
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination.
+ * Points at the last row of a page as (timestamp, id); the next page seeks strictly after it
+ * in (timestamp desc, id desc) order.
+ */
+public record LedgerCursor(Instant timestamp, String id) {
+
+    private static final char SEPARATOR = ':';
+
+    public static LedgerCursor of(LedgerResponse row) {
+        return new LedgerCursor(row.getTimestamp(), row.getId());
+    }
+
+    public String encode() {
+        String raw = timestamp.toEpochMilli() + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static LedgerCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new ValidationException("Invalid cursor");
+            }
+            Instant timestamp = Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator)));
+            return new LedgerCursor(timestamp, raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.apkharsh.paymentLogger.ledger.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LedgerPageResponse {
+
+    private List<LedgerResponse> items;
+
+    /**
+     * Pass back as "cursor" to fetch the next page; absent on the last page
+     */
+    private String nextCursor;
+}
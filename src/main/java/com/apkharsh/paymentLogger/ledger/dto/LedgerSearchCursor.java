@@ -0,0 +1,100 @@
+package com.apkharsh.paymentLogger.ledger.dto;
+
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for text search. Points at the last row of a page as (score, timestamp, id); the next
+ * page seeks strictly after it in (score desc, timestamp desc, id desc) order, so rows written between pages don't
+ * shift or repeat results. {@code returned} counts the matches already served, to enforce the result cap.
+ * <p>
+ * Both the position and the count are client-visible, so the token carries an HMAC over them and the search it
+ * belongs to ({@code scope}: user, text, range). An edited count, or a cursor replayed against another search to
+ * seek past the cap, fails verification.
+ */
+public record LedgerSearchCursor(double score, Instant timestamp, String id, int returned) {
+
+    private static final String PREFIX = "s:";
+    private static final char SEPARATOR = ':';
+    private static final char SIGNATURE_SEPARATOR = '.';
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * Keys the cursor MAC off the configured secret, so a MAC made here is never valid for another use of that secret
+     */
+    private static final byte[] KEY_LABEL = "ledger-search-cursor".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Bytes of the HMAC kept in the token
+     */
+    private static final int SIGNATURE_LENGTH = 16;
+
+    public String encode(byte[] secret, String... scope) {
+        // Double.toString round-trips exactly, so the next page compares against the very same score
+        String raw = PREFIX + returned + SEPARATOR + score + SEPARATOR + timestamp.toEpochMilli() + SEPARATOR + id;
+        byte[] payload = raw.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        return base64.encodeToString(payload) + SIGNATURE_SEPARATOR + base64.encodeToString(sign(secret, payload, scope));
+    }
+
+    public static LedgerSearchCursor decode(String token, byte[] secret, String... scope) {
+        try {
+            int separator = token.lastIndexOf(SIGNATURE_SEPARATOR);
+            if (separator < 0) {
+                throw new ValidationException("Invalid cursor");
+            }
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, separator));
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, sign(secret, payload, scope))) {
+                throw new ValidationException("Invalid cursor");
+            }
+
+            String raw = new String(payload, StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new ValidationException("Invalid cursor");
+            }
+            String[] parts = raw.substring(PREFIX.length()).split(String.valueOf(SEPARATOR), 4);
+            if (parts.length != 4 || parts[3].isEmpty()) {
+                throw new ValidationException("Invalid cursor");
+            }
+            int returned = Integer.parseInt(parts[0]);
+            double score = Double.parseDouble(parts[1]);
+            if (returned < 0 || !Double.isFinite(score)) {
+                throw new ValidationException("Invalid cursor");
+            }
+            return new LedgerSearchCursor(score, Instant.ofEpochMilli(Long.parseLong(parts[2])), parts[3], returned);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Scope values are length-prefixed (null as -1), so no two different scopes feed the MAC the same bytes
+     */
+    static byte[] sign(byte[] secret, byte[] payload, String... scope) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret, ALGORITHM));
+            mac.init(new SecretKeySpec(mac.doFinal(KEY_LABEL), ALGORITHM));
+            for (String value : scope) {
+                byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+                mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes != null ? bytes.length : -1).array());
+                if (bytes != null) {
+                    mac.update(bytes);
+                }
+            }
+            return Arrays.copyOf(mac.doFinal(payload), SIGNATURE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign search cursors", e);
+        }
+    }
+}
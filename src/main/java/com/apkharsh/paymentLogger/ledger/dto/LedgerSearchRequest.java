@@ -19,4 +19,19 @@ public class LedgerSearchRequest {
 
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     private LocalDate endDate;
+
+    /**
+     * Page size for cursor pagination; null means "return everything"
+     */
+    private Integer limit;
+
+    /**
+     * Continuation token returned as nextCursor by the previous page
+     */
+    private String cursor;
+
+    /**
+     * Words to look for in descriptions (GET /ledgers/search)
+     */
+    private String text;
 }
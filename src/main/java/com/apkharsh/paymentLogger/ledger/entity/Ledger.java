@@ -5,18 +5,27 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 
+/**
+ * Stored with short keys (see LedgerFields); documents still in the original long-key format are
+ * upgraded on read and converted in place by LedgerStorageMigrator.
+ */
 @Document(collection = "ledgers")
 @CompoundIndexes({
-        @CompoundIndex(name = "payer_timestamp_idx", def = "{'payerId': 1, 'timestamp': -1}"),
-        @CompoundIndex(name = "payee_timestamp_idx", def = "{'payeeId': 1, 'timestamp': -1}"),
-        @CompoundIndex(name = "timestamp_idx", def = "{'timestamp': -1}")
+        // _id suffix gives a total order for keyset pagination when timestamps collide
+        @CompoundIndex(name = "pr_t_id_idx", def = "{'pr': 1, 't': -1, '_id': -1}"),
+        @CompoundIndex(name = "pe_t_id_idx", def = "{'pe': 1, 't': -1, '_id': -1}"),
+        // Per-category spending of a payer over a time range
+        @CompoundIndex(name = "pr_c_t_idx", def = "{'pr': 1, 'c': 1, 't': -1}"),
+        @CompoundIndex(name = "t_idx", def = "{'t': -1}")
 })
 @Data
 @Builder
@@ -27,34 +36,48 @@ public class Ledger {
     @Id
     private String id;
 
-    @Indexed
+    @Field(LedgerFields.PAYER)
     private String payerId;
 
-    @Indexed
+    @Field(LedgerFields.PAYEE)
     private String payeeId;
 
     @NonNull
+    @Field(name = LedgerFields.AMOUNT, targetType = FieldType.DECIMAL128)
     private BigDecimal amount;
 
     /**
      * Payment timestamp in UTC
      * Stored as Instant for timezone-independent storage
      */
-    @Indexed
     @NonNull
+    @Field(LedgerFields.TIMESTAMP)
     private Instant timestamp;
 
+    /**
+     * Text-indexed for GET /ledgers/search; the index covers all users (see LedgerRepositoryCustomImpl.searchLedgers)
+     */
+    @TextIndexed
+    @Field(LedgerFields.DESCRIPTION)
     private String description;
 
+    /**
+     * Assigned on write from the payer's category rules (see CategoryService); null if none matched
+     */
+    @Field(LedgerFields.CATEGORY)
+    private String category;
+
     /**
      * Record creation timestamp (audit field)
      */
     @CreatedDate
+    @Field(LedgerFields.CREATED_AT)
     private Instant createdAt;
 
     /**
      * Record last modification timestamp (audit field)
      */
     @LastModifiedDate
+    @Field(LedgerFields.UPDATED_AT)
     private Instant updatedAt;
 }
@@ -0,0 +1,31 @@
+package com.apkharsh.paymentLogger.ledger.entity;
+
+/**
+ * Stored key names of the ledgers collection, for code that works on raw documents (aggregation stages,
+ * the storage migrator). Typed queries keep using the Ledger property names and are mapped automatically.
+ */
+public final class LedgerFields {
+
+    public static final String PAYER = "pr";
+    public static final String PAYEE = "pe";
+    public static final String AMOUNT = "a";
+    public static final String TIMESTAMP = "t";
+    public static final String DESCRIPTION = "d";
+    public static final String CATEGORY = "c";
+    public static final String CREATED_AT = "ca";
+    public static final String UPDATED_AT = "ua";
+
+    /**
+     * Keys of the original (pre-compaction) format, equal to the property names
+     */
+    public static final String LEGACY_PAYER = "payerId";
+    public static final String LEGACY_PAYEE = "payeeId";
+    public static final String LEGACY_AMOUNT = "amount";
+    public static final String LEGACY_TIMESTAMP = "timestamp";
+    public static final String LEGACY_DESCRIPTION = "description";
+    public static final String LEGACY_CREATED_AT = "createdAt";
+    public static final String LEGACY_UPDATED_AT = "updatedAt";
+
+    private LedgerFields() {
+    }
+}
@@ -0,0 +1,13 @@
+package com.apkharsh.paymentLogger.ledger.enums;
+
+public enum BatchItemStatus {
+    CREATED,
+    /**
+     * Rejected by validation; nothing was written
+     */
+    INVALID,
+    /**
+     * Passed validation but the database rejected the insert
+     */
+    FAILED
+}
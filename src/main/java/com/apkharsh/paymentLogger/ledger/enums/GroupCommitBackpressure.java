@@ -0,0 +1,15 @@
+package com.apkharsh.paymentLogger.ledger.enums;
+
+/**
+ * What a write does when the group-commit queue is full
+ */
+public enum GroupCommitBackpressure {
+    /**
+     * Wait up to app.ledger.group-commit.enqueue-timeout for space, then reject
+     */
+    BLOCK,
+    /**
+     * Reject immediately (503)
+     */
+    REJECT
+}
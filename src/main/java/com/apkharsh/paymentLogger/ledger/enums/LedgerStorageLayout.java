@@ -0,0 +1,16 @@
+package com.apkharsh.paymentLogger.ledger.enums;
+
+/**
+ * How the ledgers collection is laid out in MongoDB (app.ledger.storage.layout)
+ */
+public enum LedgerStorageLayout {
+    /**
+     * Regular collection with the indexes declared on Ledger
+     */
+    STANDARD,
+    /**
+     * Time-series collection: timestamp is the time field, payer the meta field (see LedgerTimeSeriesCollection).
+     * Only takes effect when the collection is created; text search is not available in this layout.
+     */
+    TIME_SERIES
+}
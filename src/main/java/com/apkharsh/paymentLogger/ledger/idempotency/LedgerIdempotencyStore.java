@@ -0,0 +1,155 @@
+package com.apkharsh.paymentLogger.ledger.idempotency;
+
+import com.apkharsh.paymentLogger.consistency.ConsistencyToken;
+import com.apkharsh.paymentLogger.consistency.ReadConsistency;
+import com.apkharsh.paymentLogger.exceptions.ConflictException;
+import com.apkharsh.paymentLogger.exceptions.NotFoundException;
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.apkharsh.paymentLogger.exceptions.WriteRejectedException;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.apkharsh.paymentLogger.security.util.SecurityUtils.getCurrentUserId;
+
+/**
+ * Idempotency-Key support for POST /ledgers (and POST /reactive/ledgers).
+ * <p>
+ * The first request with a key reserves it with a "pending" marker; when the write succeeds the marker is
+ * replaced by the response and its Consistency-Token, kept for app.ledger.idempotency.ttl. Reserve-or-read is one
+ * Lua call, so a retry of a finished request costs exactly one Redis round trip and no Mongo work.
+ * <p>
+ * The key is only released when the write was rejected before anything was stored (validation, unknown user,
+ * conflict, a full or stopping group-commit queue). Any other failure (a commit timeout, a Mongo error) may have stored the ledger, so the key is kept as "outcome unknown" for the full
+ * ttl and retries with it are refused rather than risking a second ledger. The pending marker expires after
+ * app.ledger.idempotency.pending-ttl, which must exceed the longest write, only to free keys of crashed requests.
+ */
+@Component
+public class LedgerIdempotencyStore {
+
+    private static final String KEY_PREFIX = "ledger_create:idem:";
+    private static final String PENDING = "P|";
+    private static final String DONE = "D|";
+    private static final String UNKNOWN = "U|";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Returns the current value, or sets the pending marker and returns nil if the key was free
+     */
+    private static final RedisScript<String> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if current then
+                return current
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return nil
+            """, String.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration pendingTtl;
+
+    public LedgerIdempotencyStore(StringRedisTemplate redisTemplate,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.ledger.idempotency.ttl:24h}") Duration ttl,
+                                  @Value("${app.ledger.idempotency.pending-ttl:5m}") Duration pendingTtl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.pendingTtl = pendingTtl;
+    }
+
+    /**
+     * Run the write once per (current user, key); repeats with the same request body get the stored response back.
+     *
+     * @throws ConflictException   if the first request with this key is still running
+     * @throws ValidationException if the key was used for a different request body
+     */
+    public Result execute(String idempotencyKey, LedgerRequest request, Supplier<LedgerResponse> write) {
+        return execute(getCurrentUserId(), idempotencyKey, request, write);
+    }
+
+    /**
+     * Same, for callers off the request thread (where the security context isn't bound)
+     */
+    public Result execute(String userId, String idempotencyKey, LedgerRequest request, Supplier<LedgerResponse> write) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String key = KEY_PREFIX + userId + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        String existing = redisTemplate.execute(RESERVE_SCRIPT, List.of(key),
+                PENDING + fingerprint, String.valueOf(pendingTtl.toMillis()));
+        if (existing != null) {
+            return replay(existing, fingerprint);
+        }
+
+        LedgerResponse response;
+        try {
+            response = write.get();
+        } catch (ValidationException | NotFoundException | ConflictException | WriteRejectedException e) {
+            // Rejected before the insert: let the client retry with the same key
+            redisTemplate.delete(key);
+            throw e;
+        } catch (RuntimeException e) {
+            redisTemplate.opsForValue().set(key, UNKNOWN + fingerprint, ttl);
+            throw e;
+        }
+        ConsistencyToken token = ReadConsistency.writeToken();
+        redisTemplate.opsForValue().set(key, DONE + fingerprint + "|" + (token != null ? token.encode() : "") + "|"
+                + objectMapper.writeValueAsString(response), ttl);
+        return new Result(response, false);
+    }
+
+    private Result replay(String existing, String fingerprint) {
+        // Values are "<state>|<fingerprint>" or "D|<fingerprint>|<consistency token or empty>|<response json>"
+        int fingerprintEnd = existing.indexOf('|', 2);
+        String storedFingerprint = fingerprintEnd < 0 ? existing.substring(2) : existing.substring(2, fingerprintEnd);
+        if (!storedFingerprint.equals(fingerprint)) {
+            throw new ValidationException("Idempotency-Key was already used for a different request");
+        }
+        if (existing.startsWith(PENDING)) {
+            throw new ConflictException("A request with this Idempotency-Key is still being processed");
+        }
+        if (existing.startsWith(UNKNOWN)) {
+            throw new ConflictException("The request with this Idempotency-Key failed and may have been stored; "
+                    + "check the ledgers before retrying with a new key");
+        }
+        int tokenEnd = existing.indexOf('|', fingerprintEnd + 1);
+        String token = existing.substring(fingerprintEnd + 1, tokenEnd);
+        if (!token.isEmpty()) {
+            // Reads sending the replayed token back must see the original write, as after the first response
+            ReadConsistency.recordWrite(ConsistencyToken.decode(token));
+        }
+        return new Result(objectMapper.readValue(existing.substring(tokenEnd + 1), LedgerResponse.class), true);
+    }
+
+    private String fingerprint(LedgerRequest request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * @param replayed true when the response was stored by an earlier request with the same key
+     */
+    public record Result(LedgerResponse response, boolean replayed) {
+    }
+}
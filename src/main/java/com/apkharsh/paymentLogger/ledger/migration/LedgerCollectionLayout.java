@@ -0,0 +1,60 @@
+package com.apkharsh.paymentLogger.ledger.migration;
+
+import com.apkharsh.paymentLogger.ledger.enums.LedgerStorageLayout;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * The layout the "ledgers" collection actually has, read from MongoDB on first use and then kept.
+ * <p>
+ * app.ledger.storage.layout only decides how a missing collection is created; an existing regular collection stays
+ * regular under TIME_SERIES (see LedgerTimeSeriesCollection). Legacy reads, the storage migration, the ledger
+ * indexes and search all follow this instead of the property.
+ */
+@Component
+@Slf4j
+public class LedgerCollectionLayout {
+
+    static final String COLLECTION = "ledgers";
+
+    private final MongoTemplate mongoTemplate;
+    private final LedgerStorageLayout configured;
+    private volatile LedgerStorageLayout layout;
+
+    /**
+     * @param timeSeriesCollection only taken so the collection is created before it is inspected
+     */
+    public LedgerCollectionLayout(MongoTemplate mongoTemplate,
+                                  Optional<LedgerTimeSeriesCollection> timeSeriesCollection,
+                                  @Value("${app.ledger.storage.layout:STANDARD}") LedgerStorageLayout configured) {
+        this.mongoTemplate = mongoTemplate;
+        this.configured = configured;
+    }
+
+    static boolean isTimeSeries(MongoTemplate mongoTemplate) {
+        Document info = mongoTemplate.getDb().listCollections().filter(new Document("name", COLLECTION)).first();
+        return info != null && "timeseries".equals(info.getString("type"));
+    }
+
+    public LedgerStorageLayout layout() {
+        LedgerStorageLayout resolved = layout;
+        if (resolved == null) {
+            // A collection that doesn't exist yet is created regular by the first insert
+            resolved = isTimeSeries(mongoTemplate) ? LedgerStorageLayout.TIME_SERIES : LedgerStorageLayout.STANDARD;
+            if (resolved != configured) {
+                log.warn("app.ledger.storage.layout is {} but 'ledgers' is {}; using {}", configured, resolved, resolved);
+            }
+            layout = resolved;
+        }
+        return resolved;
+    }
+
+    public boolean isTimeSeries() {
+        return layout() == LedgerStorageLayout.TIME_SERIES;
+    }
+}
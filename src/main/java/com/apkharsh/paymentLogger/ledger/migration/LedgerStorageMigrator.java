@@ -0,0 +1,100 @@
+package com.apkharsh.paymentLogger.ledger.migration;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.entity.LedgerFields;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts ledgers from the original long-key format to the compact one, a batch at a time.
+ * <p>
+ * Each batch selects documents that still have a string "payerId" (a range on the old payer index, so already
+ * converted documents are never rescanned), rewrites them and replaces them only if they are still in the old
+ * format. No checkpoint is needed: after a crash or restart the next run simply picks up the remaining ones.
+ * Once none are left, indexes on the old keys (including the redundant single-field ones) are dropped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerStorageMigrator {
+
+    private static final String COLLECTION = "ledgers";
+
+    private static final Set<String> LEGACY_KEYS = Set.of(
+            LedgerFields.LEGACY_PAYER, LedgerFields.LEGACY_PAYEE, LedgerFields.LEGACY_TIMESTAMP);
+
+    private final MongoTemplate mongoTemplate;
+    private final LedgerCollectionLayout collectionLayout;
+
+    @Value("${app.ledger.storage.migrate.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Pause between batches, to leave headroom for live traffic
+     */
+    @Value("${app.ledger.storage.migrate.pause:50ms}")
+    private Duration pause;
+
+    public void migrate() throws InterruptedException {
+        if (collectionLayout.isTimeSeries()) {
+            // Created in the compact format, with its own indexes (see LedgerTimeSeriesCollection)
+            log.info("Ledger storage migration: nothing to do for the time-series layout");
+            return;
+        }
+        // New-format indexes first, so converted documents are immediately reachable by the read paths
+        IndexOperations indexOps = mongoTemplate.indexOps(COLLECTION);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Ledger.class)
+                .forEach(indexOps::createIndex);
+
+        Query remaining = new Query(Criteria.where(LedgerFields.LEGACY_PAYER).type(JsonSchemaObject.Type.STRING)).limit(batchSize);
+        long converted = 0;
+        while (true) {
+            List<Document> batch = mongoTemplate.find(remaining, Document.class, COLLECTION);
+            if (batch.isEmpty()) {
+                break;
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+            for (Document document : batch) {
+                Object id = document.get("_id");
+                LegacyLedgerFormat.upgrade(document);
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(id).and(LedgerFields.LEGACY_PAYER).exists(true)), document);
+            }
+            converted += bulk.execute().getModifiedCount();
+            log.info("Ledger storage migration: {} documents converted", converted);
+
+            if (!pause.isZero()) {
+                Thread.sleep(pause.toMillis());
+            }
+        }
+
+        if (mongoTemplate.exists(Query.query(Criteria.where(LedgerFields.LEGACY_PAYER).exists(true)), COLLECTION)) {
+            log.warn("Ledger storage migration: documents with a non-string payerId remain; legacy indexes kept");
+            return;
+        }
+        for (IndexInfo index : indexOps.getIndexInfo()) {
+            boolean legacy = index.getIndexFields().stream().map(IndexField::getKey).anyMatch(LEGACY_KEYS::contains);
+            if (legacy) {
+                indexOps.dropIndex(index.getName());
+                log.info("Ledger storage migration: dropped legacy index {}", index.getName());
+            }
+        }
+        log.info("Ledger storage migration finished ({} documents converted); app.ledger.storage.legacy-reads can be turned off", converted);
+    }
+}
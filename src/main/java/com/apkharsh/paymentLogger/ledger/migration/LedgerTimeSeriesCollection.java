@@ -0,0 +1,62 @@
+package com.apkharsh.paymentLogger.ledger.migration;
+
+import com.apkharsh.paymentLogger.ledger.entity.LedgerFields;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sets up "ledgers" as a time-series collection (app.ledger.storage.layout=TIME_SERIES).
+ * <p>
+ * A time-series collection has a single meta field, so the payer is the meta field (ledgers are bucketed per payer
+ * and time) and the payee stays a regular, indexed measurement field. Document keys don't change, so every query
+ * and aggregation works unchanged in both layouts.
+ * <p>
+ * MongoDB can't turn an existing collection into a time-series one. The collection is created here, before the
+ * application serves requests, only if it doesn't exist yet; an existing regular collection is left as it is, and
+ * LedgerCollectionLayout reports it as STANDARD.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ledger.storage.layout", havingValue = "TIME_SERIES")
+@Slf4j
+public class LedgerTimeSeriesCollection {
+
+    private static final String COLLECTION = "ledgers";
+
+    private final MongoTemplate mongoTemplate;
+    private final Granularity granularity;
+
+    public LedgerTimeSeriesCollection(MongoTemplate mongoTemplate,
+                                      @Value("${app.ledger.storage.time-series.granularity:HOURS}") Granularity granularity) {
+        this.mongoTemplate = mongoTemplate;
+        this.granularity = granularity;
+    }
+
+    @PostConstruct
+    public void ensureCollection() {
+        if (!mongoTemplate.collectionExists(COLLECTION)) {
+            mongoTemplate.createCollection(COLLECTION, CollectionOptions.timeSeries(LedgerFields.TIMESTAMP,
+                    options -> options.metaField(LedgerFields.PAYER).granularity(granularity)));
+            log.info("Created time-series ledgers collection [granularity={}]", granularity);
+        } else if (!LedgerCollectionLayout.isTimeSeries(mongoTemplate)) {
+            log.warn("Ledger storage layout is TIME_SERIES but 'ledgers' is a regular collection; it stays regular. "
+                    + "Export the ledgers, drop the collection, restart and re-import them to switch.");
+            return;
+        }
+
+        // Indexes on a time-series collection apply to its buckets; keyset order on _id is resolved within buckets
+        IndexOperations indexOps = mongoTemplate.indexOps(COLLECTION);
+        indexOps.createIndex(new Index().on(LedgerFields.PAYER, Sort.Direction.ASC).on(LedgerFields.TIMESTAMP, Sort.Direction.DESC).named("pr_t_idx"));
+        indexOps.createIndex(new Index().on(LedgerFields.PAYEE, Sort.Direction.ASC).on(LedgerFields.TIMESTAMP, Sort.Direction.DESC).named("pe_t_idx"));
+        indexOps.createIndex(new Index().on(LedgerFields.PAYER, Sort.Direction.ASC).on(LedgerFields.CATEGORY, Sort.Direction.ASC)
+                .on(LedgerFields.TIMESTAMP, Sort.Direction.DESC).named("pr_c_t_idx"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.apkharsh.paymentLogger.ledger.migration;
+
+import com.apkharsh.paymentLogger.ledger.entity.LedgerFields;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Knowledge of the original ledger document format (long keys, amount possibly stored as a string, _class).
+ * Reads upgrade such documents in memory; LedgerStorageMigrator rewrites them for good. Raw aggregations build
+ * their $match with filter() and put normalizeStages() right after it, so they count both formats.
+ */
+@Component
+@RequiredArgsConstructor
+public class LegacyLedgerFormat {
+
+    private static final Map<String, String> RENAMES = new LinkedHashMap<>();
+
+    /**
+     * Compact keys that aggregations group or sum on, mapped to their long-key originals
+     */
+    private static final Map<String, String> AGGREGATED = new LinkedHashMap<>();
+
+    static {
+        RENAMES.put(LedgerFields.LEGACY_PAYER, LedgerFields.PAYER);
+        RENAMES.put(LedgerFields.LEGACY_PAYEE, LedgerFields.PAYEE);
+        RENAMES.put(LedgerFields.LEGACY_AMOUNT, LedgerFields.AMOUNT);
+        RENAMES.put(LedgerFields.LEGACY_TIMESTAMP, LedgerFields.TIMESTAMP);
+        RENAMES.put(LedgerFields.LEGACY_DESCRIPTION, LedgerFields.DESCRIPTION);
+        RENAMES.put(LedgerFields.LEGACY_CREATED_AT, LedgerFields.CREATED_AT);
+        RENAMES.put(LedgerFields.LEGACY_UPDATED_AT, LedgerFields.UPDATED_AT);
+
+        AGGREGATED.put(LedgerFields.PAYER, LedgerFields.LEGACY_PAYER);
+        AGGREGATED.put(LedgerFields.PAYEE, LedgerFields.LEGACY_PAYEE);
+        AGGREGATED.put(LedgerFields.AMOUNT, LedgerFields.LEGACY_AMOUNT);
+        AGGREGATED.put(LedgerFields.TIMESTAMP, LedgerFields.LEGACY_TIMESTAMP);
+    }
+
+    /**
+     * While true, user ledger reads also query the long-key indexes; turn off once the migration has finished
+     */
+    @Value("${app.ledger.storage.legacy-reads:true}")
+    private boolean legacyReads;
+
+    private final LedgerCollectionLayout collectionLayout;
+
+    /**
+     * A time-series collection is always created empty, so it never holds old-format documents
+     */
+    public boolean isLegacyReadsEnabled() {
+        return legacyReads && !collectionLayout.isTimeSeries();
+    }
+
+    /**
+     * Raw filter on a compact key (payer, payee, amount or timestamp); while legacy reads are on, documents still
+     * holding the value under the long key match too
+     */
+    public Document filter(String key, Object condition) {
+        Document compact = new Document(key, condition);
+        if (!isLegacyReadsEnabled()) {
+            return compact;
+        }
+        String legacyKey = AGGREGATED.get(key);
+        if (legacyKey == null) {
+            throw new IllegalArgumentException("No legacy key for '" + key + "'");
+        }
+        return new Document("$or", List.of(compact, new Document(legacyKey, condition)));
+    }
+
+    /**
+     * While legacy reads are on, one $addFields copying long-key values into the compact keys, so the stages after
+     * it can name the compact keys only; nothing otherwise
+     */
+    public List<AggregationOperation> normalizeStages() {
+        if (!isLegacyReadsEnabled()) {
+            return List.of();
+        }
+        Document fields = new Document();
+        AGGREGATED.forEach((key, legacyKey) -> fields.append(key, new Document("$ifNull", List.of("$" + key, "$" + legacyKey))));
+        return List.of(context -> new Document("$addFields", fields));
+    }
+
+    /**
+     * Rewrite a raw ledger document into the compact format, in place
+     *
+     * @return whether anything had to change
+     */
+    public static boolean upgrade(Document document) {
+        boolean changed = document.remove("_class") != null;
+        for (Map.Entry<String, String> rename : RENAMES.entrySet()) {
+            if (document.containsKey(rename.getKey())) {
+                document.put(rename.getValue(), document.remove(rename.getKey()));
+                changed = true;
+            }
+        }
+        Object amount = document.get(LedgerFields.AMOUNT);
+        if (amount != null && !(amount instanceof Decimal128)) {
+            document.put(LedgerFields.AMOUNT, new Decimal128(new BigDecimal(amount.toString())));
+            changed = true;
+        }
+        return changed;
+    }
+}
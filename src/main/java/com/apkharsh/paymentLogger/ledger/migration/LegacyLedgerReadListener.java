@@ -0,0 +1,18 @@
+package com.apkharsh.paymentLogger.ledger.migration;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lets every typed Ledger read (findById, findAll, ...) map documents the migrator hasn't converted yet
+ */
+@Component
+public class LegacyLedgerReadListener extends AbstractMongoEventListener<Ledger> {
+
+    @Override
+    public void onAfterLoad(AfterLoadEvent<Ledger> event) {
+        LegacyLedgerFormat.upgrade(event.getDocument());
+    }
+}
@@ -0,0 +1,66 @@
+package com.apkharsh.paymentLogger.ledger.repository;
+
+import com.apkharsh.paymentLogger.consistency.ConsistencyToken;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerCursor;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerSearchCursor;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Read paths over a user's ledgers (as payer or payee), assembled at runtime from the two participant indexes,
+ * plus the bulk write path used by batch ingestion
+ */
+public interface LedgerRepositoryCustom {
+
+    /**
+     * One keyset page of a user's ledgers, newest first.
+     *
+     * @param from  inclusive lower bound on timestamp, or null
+     * @param to    inclusive upper bound on timestamp, or null
+     * @param after cursor of the last row already seen, or null for the first page
+     * @param limit maximum number of rows to return
+     */
+    List<Ledger> findLedgerPage(String userId, Instant from, Instant to, LedgerCursor after, int limit);
+
+    /**
+     * A user's ledgers, newest first, read lazily from the index cursors.
+     * The caller must close the stream to release the cursor.
+     */
+    Stream<Ledger> streamLedgers(String userId, Instant from, Instant to);
+
+    /**
+     * A user's ledgers whose description matches {@code text} (text index), best match first, newest first among equals.
+     * Covers the hot tier only; ledgers moved to segment files are not searched.
+     *
+     * @param from  inclusive lower bound on timestamp, or null
+     * @param to    inclusive upper bound on timestamp, or null
+     * @param after last match of the previous page, or null for the first page
+     * @param limit maximum number of rows to return
+     */
+    List<SearchMatch> searchLedgers(String userId, String text, Instant from, Instant to, LedgerSearchCursor after, int limit);
+
+    /**
+     * Insert all ledgers in one unordered insertMany; a rejected document does not stop the others.
+     *
+     * @return positions (in {@code ledgers}) of the documents that were not written, and the token a client
+     * can send back to read them from a secondary
+     */
+    InsertResult insertUnordered(List<Ledger> ledgers);
+
+    /**
+     * @param failed positions (in the inserted list) of the documents that were not written
+     * @param token  consistency token of the insert, or null (e.g. standalone server, nothing written)
+     */
+    record InsertResult(Set<Integer> failed, ConsistencyToken token) {
+    }
+
+    /**
+     * @param score text score of the match, needed to seek past it on the next page
+     */
+    record SearchMatch(Ledger ledger, double score) {
+    }
+}
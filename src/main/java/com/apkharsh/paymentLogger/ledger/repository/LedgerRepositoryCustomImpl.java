@@ -0,0 +1,289 @@
+package com.apkharsh.paymentLogger.ledger.repository;
+
+import com.apkharsh.paymentLogger.consistency.ConsistencyToken;
+import com.apkharsh.paymentLogger.consistency.ReplicaReads;
+import com.apkharsh.paymentLogger.id.StoredIdOrder;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerCursor;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerSearchCursor;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.entity.LedgerFields;
+import com.apkharsh.paymentLogger.ledger.migration.LegacyLedgerFormat;
+import com.apkharsh.paymentLogger.ledger.tiering.LedgerSegmentStore;
+import com.apkharsh.paymentLogger.ledger.util.LedgerOrdering;
+import com.apkharsh.paymentLogger.ledger.util.SortedMergeIterator;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.ClientSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A user's ledgers are the union of two index ranges: {payerId, timestamp, _id} and {payeeId, timestamp, _id}.
+ * Instead of one $or + $sort (which the planner often answers with a blocking sort over the whole history),
+ * each range is read on its own, already in (timestamp desc, _id desc) order, and the two are merged here.
+ * Payer/payee details are resolved by the caller (see UserInfoCache), only for the rows that survive the merge.
+ * <p>
+ * While ledgers are being migrated to the compact format, documents still in the old format are found through the
+ * old {payerId, ...} indexes as two more branches of the same merge (app.ledger.storage.legacy-reads).
+ * Ledgers moved to the cold tier (see LedgerTieringJob) are one more branch, read from the segment files.
+ * <p>
+ * Listing reads go through ReplicaReads (secondaries when app.mongo.read-replicas.enabled=true); inserts run in a
+ * causally consistent session so their operation time can be handed back as a ConsistencyToken.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerRepositoryCustomImpl implements LedgerRepositoryCustom {
+
+    static final String COLLECTION = "ledgers";
+
+    private final MongoTemplate mongoTemplate;
+    private final LegacyLedgerFormat legacyFormat;
+    private final LedgerSegmentStore segmentStore;
+    private final ReplicaReads replicaReads;
+
+    /**
+     * Rows per getMore while streaming; bounds how much of a history is in memory at once
+     */
+    static final int STREAM_BATCH_SIZE = 500;
+
+    static final List<String> PARTICIPANT_FIELDS = List.of("payerId", "payeeId");
+
+    static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "timestamp", "id");
+
+    private static final String SEARCH_SCORE = "_score";
+
+    /**
+     * Legacy documents are queried raw, so keys are used as stored
+     */
+    static final Sort LEGACY_NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "timestamp", "_id");
+
+    @Override
+    public List<Ledger> findLedgerPage(String userId, Instant from, Instant to, LedgerCursor after, int limit) {
+        // ⭐ Each branch reads at most `limit` keys from its index; the merged page can't need more than that from either
+        List<Iterator<Ledger>> branches = new ArrayList<>();
+        try (ReplicaReads.Scope reads = replicaReads.open()) {
+            for (String field : PARTICIPANT_FIELDS) {
+                Query query = new Query(participantBranch(field, userId, from, to, after))
+                        .with(NEWEST_FIRST)
+                        .limit(limit);
+                branches.add(reads.template().find(query, Ledger.class).iterator());
+
+                if (legacyFormat.isLegacyReadsEnabled()) {
+                    Query legacy = new Query(participantBranch(field, userId, from, to, after))
+                            .with(LEGACY_NEWEST_FIRST)
+                            .limit(limit);
+                    branches.add(reads.template().find(legacy, Document.class, COLLECTION).stream().map(this::readLegacy).iterator());
+                }
+            }
+        }
+
+        if (segmentStore.reaches(from)) {
+            branches.add(coldBranch(segmentStore, userId, from, to, after));
+        }
+
+        Iterator<Ledger> merged = new SortedMergeIterator<>(branches, LedgerOrdering.NEWEST_FIRST);
+        List<Ledger> page = new ArrayList<>(limit);
+        while (merged.hasNext() && page.size() < limit) {
+            page.add(merged.next());
+        }
+        return page;
+    }
+
+    @Override
+    public Stream<Ledger> streamLedgers(String userId, Instant from, Instant to) {
+        // The scope's session (if any) must outlive the cursors, so it is closed with the stream
+        ReplicaReads.Scope reads = replicaReads.open();
+        List<Stream<Ledger>> branches = new ArrayList<>();
+        try {
+            for (String field : PARTICIPANT_FIELDS) {
+                Query query = new Query(participantBranch(field, userId, from, to, null))
+                        .with(NEWEST_FIRST)
+                        .cursorBatchSize(STREAM_BATCH_SIZE);
+                branches.add(reads.template().stream(query, Ledger.class));
+
+                if (legacyFormat.isLegacyReadsEnabled()) {
+                    Query legacy = new Query(participantBranch(field, userId, from, to, null))
+                            .with(LEGACY_NEWEST_FIRST)
+                            .cursorBatchSize(STREAM_BATCH_SIZE);
+                    branches.add(reads.template().stream(legacy, Document.class, COLLECTION).map(this::readLegacy));
+                }
+            }
+        } catch (RuntimeException e) {
+            branches.forEach(Stream::close);
+            reads.close();
+            throw e;
+        }
+
+        List<Iterator<Ledger>> sources = new ArrayList<>(branches.stream().map(Stream::iterator).toList());
+        if (segmentStore.reaches(from)) {
+            sources.add(segmentStore.read(userId, from, to));
+        }
+
+        Iterator<Ledger> merged = new SortedMergeIterator<>(sources, LedgerOrdering.NEWEST_FIRST);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    branches.forEach(Stream::close);
+                    reads.close();
+                });
+    }
+
+    /**
+     * $text can't be split into participant branches like the other reads (a query holds one $text), and the text
+     * index can't be prefixed by the user: a collection has one text index, a user may be payer or payee, and a
+     * compound text index can't have an array prefix. So this is one query: the text index yields every matching
+     * description across all users, then the participant and date filters are applied to those. Its cost grows with
+     * how common the searched words are in the whole collection, not with the user's own history.
+     * <p>
+     * Pages are keyset-paged on (score, timestamp, _id), so matches can be sorted and cut without skipping rows.
+     * Raw stages name the stored keys.
+     */
+    @Override
+    public List<SearchMatch> searchLedgers(String userId, String text, Instant from, Instant to, LedgerSearchCursor after, int limit) {
+        Document match = new Document("$text", new Document("$search", text))
+                .append("$or", List.of(new Document(LedgerFields.PAYER, userId), new Document(LedgerFields.PAYEE, userId)));
+        Document range = new Document();
+        if (from != null) {
+            range.append("$gte", Date.from(from));
+        }
+        if (to != null) {
+            range.append("$lte", Date.from(to));
+        }
+        if (!range.isEmpty()) {
+            match.append(LedgerFields.TIMESTAMP, range);
+        }
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> new Document("$match", match));
+        stages.add(context -> new Document("$addFields", new Document(SEARCH_SCORE, new Document("$meta", "textScore"))));
+        if (after != null) {
+            stages.add(context -> new Document("$match", new Document("$nor", seenMatches(after))));
+        }
+        stages.add(context -> new Document("$sort", new Document(SEARCH_SCORE, -1).append(LedgerFields.TIMESTAMP, -1).append("_id", -1)));
+        stages.add(context -> new Document("$limit", limit));
+
+        List<SearchMatch> matches = new ArrayList<>(limit);
+        for (Document row : mongoTemplate.aggregate(Aggregation.newAggregation(stages), COLLECTION, Document.class)) {
+            double score = row.get(SEARCH_SCORE, Number.class).doubleValue();
+            row.remove(SEARCH_SCORE);
+            matches.add(new SearchMatch(mongoTemplate.getConverter().read(Ledger.class, row), score));
+        }
+        return matches;
+    }
+
+    /**
+     * Matches sorting at or before the cursor. As in participantBranch, a legacy string id only compares against
+     * strings, so ObjectIds sharing the cursor's score and timestamp are excluded explicitly.
+     */
+    private static List<Document> seenMatches(LedgerSearchCursor after) {
+        Date timestamp = Date.from(after.timestamp());
+        boolean objectId = StoredIdOrder.isObjectId(after.id());
+        List<Document> seen = new ArrayList<>();
+        seen.add(new Document(SEARCH_SCORE, new Document("$gt", after.score())));
+        seen.add(new Document(SEARCH_SCORE, after.score()).append(LedgerFields.TIMESTAMP, new Document("$gt", timestamp)));
+        seen.add(new Document(SEARCH_SCORE, after.score()).append(LedgerFields.TIMESTAMP, timestamp)
+                .append("_id", new Document("$gte", objectId ? new ObjectId(after.id()) : after.id())));
+        if (!objectId) {
+            seen.add(new Document(SEARCH_SCORE, after.score()).append(LedgerFields.TIMESTAMP, timestamp)
+                    .append("_id", new Document("$type", "objectId")));
+        }
+        return seen;
+    }
+
+    @Override
+    public InsertResult insertUnordered(List<Ledger> ledgers) {
+        if (ledgers.isEmpty()) {
+            return new InsertResult(Set.of(), null);
+        }
+        // Null when reads stay on the primary; try-with-resources skips a null resource
+        try (ClientSession session = replicaReads.startWriteSession()) {
+            MongoTemplate template = session != null ? mongoTemplate.withSession(session) : mongoTemplate;
+            Set<Integer> failed;
+            try {
+                template.bulkOps(BulkOperations.BulkMode.UNORDERED, Ledger.class)
+                        .insert(ledgers)
+                        .execute();
+                failed = Set.of();
+            } catch (BulkOperationException e) {
+                log.warn("Bulk ledger insert partially failed [attempted={}, failed={}]", ledgers.size(), e.getErrors().size());
+                failed = e.getErrors().stream()
+                        .map(BulkWriteError::getIndex)
+                        .collect(Collectors.toSet());
+            }
+            return new InsertResult(failed, session != null ? ConsistencyToken.of(session) : null);
+        }
+    }
+
+    /**
+     * Cold rows strictly after the cursor; the segment read is bounded by timestamp only, so rows sharing the
+     * cursor's timestamp are filtered here with the same ordering the merge uses
+     */
+    static Iterator<Ledger> coldBranch(LedgerSegmentStore segmentStore, String userId, Instant from, Instant to, LedgerCursor after) {
+        if (after == null) {
+            return segmentStore.read(userId, from, to);
+        }
+        Instant upper = to == null || after.timestamp().isBefore(to) ? after.timestamp() : to;
+        Ledger cursorRow = Ledger.builder().timestamp(after.timestamp()).id(after.id()).build();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(segmentStore.read(userId, from, upper), Spliterator.ORDERED), false)
+                .filter(ledger -> LedgerOrdering.NEWEST_FIRST.compare(ledger, cursorRow) > 0)
+                .iterator();
+    }
+
+    private Ledger readLegacy(Document document) {
+        LegacyLedgerFormat.upgrade(document);
+        return mongoTemplate.getConverter().read(Ledger.class, document);
+    }
+
+    /**
+     * Property names equal the legacy keys, so the same criteria serve typed (mapped) and raw legacy queries
+     */
+    static Criteria participantBranch(String field, String userId, Instant from, Instant to, LedgerCursor after) {
+        List<Criteria> conditions = new ArrayList<>();
+        conditions.add(Criteria.where(field).is(userId));
+
+        Instant upper = to;
+        if (after != null && (upper == null || after.timestamp().isBefore(upper))) {
+            upper = after.timestamp();
+        }
+        if (from != null) {
+            conditions.add(Criteria.where("timestamp").gte(from));
+        }
+        if (upper != null) {
+            conditions.add(Criteria.where("timestamp").lte(upper));
+        }
+
+        // Rows sharing the cursor's timestamp are only taken when their id sorts below the cursor's.
+        // $gte only matches ids of the cursor's own BSON type; when the cursor is a legacy string id,
+        // every ObjectId at that timestamp sorts above it and must be excluded explicitly.
+        if (after != null) {
+            List<Criteria> seen = new ArrayList<>();
+            seen.add(Criteria.where("timestamp").is(after.timestamp()).and("_id").gte(after.id()));
+            if (!StoredIdOrder.isObjectId(after.id())) {
+                seen.add(Criteria.where("timestamp").is(after.timestamp()).and("_id").type(JsonSchemaObject.Type.OBJECT_ID));
+            }
+            conditions.add(new Criteria().norOperator(seen));
+        }
+        return new Criteria().andOperator(conditions);
+    }
+}
@@ -0,0 +1,100 @@
+package com.apkharsh.paymentLogger.ledger.repository;
+
+import com.apkharsh.paymentLogger.ledger.dto.LedgerCursor;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.migration.LegacyLedgerFormat;
+import com.apkharsh.paymentLogger.ledger.tiering.LedgerSegmentStore;
+import com.apkharsh.paymentLogger.ledger.util.LedgerOrdering;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of LedgerRepositoryCustomImpl for the reactive endpoints (profile "reactive").
+ * Same branches and criteria; the branches are merged with Flux.mergeComparing, so no thread waits on a cursor.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveLedgerRepository {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final LegacyLedgerFormat legacyFormat;
+    private final LedgerSegmentStore segmentStore;
+
+    /**
+     * See LedgerRepositoryCustom.findLedgerPage
+     */
+    public Flux<Ledger> findLedgerPage(String userId, Instant from, Instant to, LedgerCursor after, int limit) {
+        List<Flux<Ledger>> branches = new ArrayList<>();
+        for (String field : LedgerRepositoryCustomImpl.PARTICIPANT_FIELDS) {
+            Query query = new Query(LedgerRepositoryCustomImpl.participantBranch(field, userId, from, to, after))
+                    .with(LedgerRepositoryCustomImpl.NEWEST_FIRST)
+                    .limit(limit);
+            branches.add(reactiveMongoTemplate.find(query, Ledger.class));
+
+            if (legacyFormat.isLegacyReadsEnabled()) {
+                Query legacy = new Query(LedgerRepositoryCustomImpl.participantBranch(field, userId, from, to, after))
+                        .with(LedgerRepositoryCustomImpl.LEGACY_NEWEST_FIRST)
+                        .limit(limit);
+                branches.add(findLegacy(legacy));
+            }
+        }
+        if (segmentStore.reaches(from)) {
+            branches.add(Flux.fromIterable(() -> LedgerRepositoryCustomImpl.coldBranch(segmentStore, userId, from, to, after))
+                    .subscribeOn(Schedulers.boundedElastic()));
+        }
+        return merge(branches).take(limit);
+    }
+
+    /**
+     * See LedgerRepositoryCustom.streamLedgers; cancelling the Flux closes the cursors
+     */
+    public Flux<Ledger> streamLedgers(String userId, Instant from, Instant to) {
+        List<Flux<Ledger>> branches = new ArrayList<>();
+        for (String field : LedgerRepositoryCustomImpl.PARTICIPANT_FIELDS) {
+            Query query = new Query(LedgerRepositoryCustomImpl.participantBranch(field, userId, from, to, null))
+                    .with(LedgerRepositoryCustomImpl.NEWEST_FIRST)
+                    .cursorBatchSize(LedgerRepositoryCustomImpl.STREAM_BATCH_SIZE);
+            branches.add(reactiveMongoTemplate.find(query, Ledger.class));
+
+            if (legacyFormat.isLegacyReadsEnabled()) {
+                Query legacy = new Query(LedgerRepositoryCustomImpl.participantBranch(field, userId, from, to, null))
+                        .with(LedgerRepositoryCustomImpl.LEGACY_NEWEST_FIRST)
+                        .cursorBatchSize(LedgerRepositoryCustomImpl.STREAM_BATCH_SIZE);
+                branches.add(findLegacy(legacy));
+            }
+        }
+        if (segmentStore.reaches(from)) {
+            branches.add(Flux.fromIterable(() -> segmentStore.read(userId, from, to))
+                    .subscribeOn(Schedulers.boundedElastic()));
+        }
+        return merge(branches);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Flux<Ledger> merge(List<Flux<Ledger>> branches) {
+        // A row reachable through two branches (payer == payee, or present in both tiers) arrives back to back
+        Publisher<Ledger>[] sources = branches.toArray(Publisher[]::new);
+        return Flux.mergeComparing(LedgerOrdering.NEWEST_FIRST, sources)
+                .distinctUntilChanged(Ledger::getId);
+    }
+
+    private Flux<Ledger> findLegacy(Query query) {
+        return reactiveMongoTemplate.find(query, Document.class, LedgerRepositoryCustomImpl.COLLECTION)
+                .map(document -> {
+                    LegacyLedgerFormat.upgrade(document);
+                    return reactiveMongoTemplate.getConverter().read(Ledger.class, document);
+                });
+    }
+}
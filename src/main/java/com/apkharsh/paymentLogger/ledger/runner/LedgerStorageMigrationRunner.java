@@ -0,0 +1,41 @@
+package com.apkharsh.paymentLogger.ledger.runner;
+
+import com.apkharsh.paymentLogger.ledger.migration.LedgerStorageMigrator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts ledgers to the compact storage format in the background while the application serves traffic, e.g.
+ * java -jar app.jar --app.ledger.storage.migrate=true
+ */
+@Component
+@ConditionalOnProperty(name = "app.ledger.storage.migrate", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerStorageMigrationRunner implements ApplicationRunner {
+
+    private final LedgerStorageMigrator migrator;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread migration = new Thread(() -> {
+            log.info("Migrating ledgers to the compact storage format");
+            long started = System.currentTimeMillis();
+            try {
+                migrator.migrate();
+                log.info("Ledger storage migration took {} ms", System.currentTimeMillis() - started);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Ledger storage migration interrupted; rerun to continue");
+            } catch (RuntimeException e) {
+                log.error("Ledger storage migration failed; rerun to continue", e);
+            }
+        }, "ledger-storage-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+}
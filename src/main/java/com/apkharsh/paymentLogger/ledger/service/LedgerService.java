@@ -1,12 +1,22 @@
 package com.apkharsh.paymentLogger.ledger.service;
 
+import com.apkharsh.paymentLogger.ledger.dto.LedgerBatchResponse;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerPageResponse;
 import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
 import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
 import com.apkharsh.paymentLogger.ledger.dto.LedgerSearchRequest;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface LedgerService {
     LedgerResponse addLedger(LedgerRequest ledgerRecord);
-    List<LedgerResponse> getAllLedgers(LedgerSearchRequest request);
+    LedgerBatchResponse addLedgers(List<LedgerRequest> requests);
+    /**
+     * @param version the user's ledger version (see LedgerVersionStore), or null to bypass the listing cache
+     */
+    List<LedgerResponse> getAllLedgers(LedgerSearchRequest request, String version);
+    LedgerPageResponse getLedgerPage(LedgerSearchRequest request);
+    LedgerPageResponse searchLedgers(LedgerSearchRequest request);
+    Stream<LedgerResponse> streamAllLedgers(LedgerSearchRequest request);
 }
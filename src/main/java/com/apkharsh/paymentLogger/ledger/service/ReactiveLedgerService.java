@@ -0,0 +1,29 @@
+package com.apkharsh.paymentLogger.ledger.service;
+
+import com.apkharsh.paymentLogger.consistency.ConsistencyToken;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerPageResponse;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerSearchRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of LedgerService (profile "reactive"). The current user is passed in, since the
+ * security context is bound to the request thread and the pipelines continue on driver threads.
+ */
+public interface ReactiveLedgerService {
+    /**
+     * @param idempotencyKey optional, as on POST /ledgers
+     */
+    Mono<CreatedLedger> addLedger(String userId, String idempotencyKey, LedgerRequest request);
+    Flux<LedgerResponse> getAllLedgers(String userId, LedgerSearchRequest request);
+    Mono<LedgerPageResponse> getLedgerPage(String userId, LedgerSearchRequest request);
+
+    /**
+     * @param replayed true when an earlier request with the same Idempotency-Key stored the response
+     * @param token    consistency token of the write, or null
+     */
+    record CreatedLedger(LedgerResponse response, boolean replayed, ConsistencyToken token) {
+    }
+}
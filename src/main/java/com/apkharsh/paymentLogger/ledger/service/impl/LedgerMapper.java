@@ -0,0 +1,90 @@
+package com.apkharsh.paymentLogger.ledger.service.impl;
+
+import com.apkharsh.paymentLogger.category.service.CategoryService;
+import com.apkharsh.paymentLogger.id.IdGenerator;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.user.cache.UserInfoCache;
+import com.apkharsh.paymentLogger.user.dto.UserInfo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conversions between requests, stored ledgers and responses, shared by the servlet and reactive ledger services
+ */
+@Component
+@RequiredArgsConstructor
+class LedgerMapper {
+
+    private final UserInfoCache userInfoCache;
+    private final CategoryService categoryService;
+    private final IdGenerator idGenerator;
+
+    Ledger toLedger(LedgerRequest request) {
+        // ⭐ Simple: Use provided timestamp or default to now
+        Instant timestamp = request.getTimestamp() != null
+                ? request.getTimestamp()
+                : Instant.now();
+
+        return Ledger.builder()
+                .id(idGenerator.newId())
+                .payerId(request.getPayerId())
+                .payeeId(request.getPayeeId())
+                .amount(request.getAmount())
+                .timestamp(timestamp)
+                .description(request.getDescription())
+                .category(categoryService.categorize(request.getPayerId(), request.getDescription()))
+                .build();
+    }
+
+    /**
+     * Attach payer/payee details from the UserInfo cache; one lookup per batch, misses loaded together
+     */
+    List<LedgerResponse> toResponses(List<Ledger> ledgers) {
+        Set<String> userIds = new HashSet<>();
+        for (Ledger ledger : ledgers) {
+            userIds.add(ledger.getPayerId());
+            userIds.add(ledger.getPayeeId());
+        }
+        Map<String, UserInfo> users = userIds.isEmpty() ? Map.of() : userInfoCache.getAll(userIds);
+
+        List<LedgerResponse> responses = new ArrayList<>(ledgers.size());
+        for (Ledger ledger : ledgers) {
+            responses.add(LedgerResponse.builder()
+                    .id(ledger.getId())
+                    .payerId(ledger.getPayerId())
+                    .payeeId(ledger.getPayeeId())
+                    .amount(ledger.getAmount())
+                    .timestamp(ledger.getTimestamp())
+                    .description(ledger.getDescription())
+                    .category(ledger.getCategory())
+                    .payer(users.get(ledger.getPayerId()))
+                    .payee(users.get(ledger.getPayeeId()))
+                    .build());
+        }
+        return responses;
+    }
+
+    /**
+     * Response for a ledger just written; participants aren't resolved
+     */
+    LedgerResponse toCreatedResponse(Ledger ledger) {
+        return LedgerResponse.builder()
+                .id(ledger.getId())
+                .payerId(ledger.getPayerId())
+                .payeeId(ledger.getPayeeId())
+                .amount(ledger.getAmount())
+                .timestamp(ledger.getTimestamp())
+                .description(ledger.getDescription())
+                .category(ledger.getCategory())
+                .build();
+    }
+}
@@ -1,60 +1,312 @@
 package com.apkharsh.paymentLogger.ledger.service.impl;
 
+import com.apkharsh.paymentLogger.consistency.ConsistencyToken;
+import com.apkharsh.paymentLogger.consistency.ReadConsistency;
+import com.apkharsh.paymentLogger.exceptions.ServiceUnavailableException;
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.apkharsh.paymentLogger.ledger.cache.LedgerListCache;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerBatchItemResult;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerBatchResponse;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerCursor;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerPageResponse;
 import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
 import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerSearchCursor;
 import com.apkharsh.paymentLogger.ledger.dto.LedgerSearchRequest;
 import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.enums.BatchItemStatus;
+import com.apkharsh.paymentLogger.ledger.migration.LedgerCollectionLayout;
 import com.apkharsh.paymentLogger.ledger.repository.LedgerRepository;
+import com.apkharsh.paymentLogger.ledger.repository.LedgerRepositoryCustom.InsertResult;
+import com.apkharsh.paymentLogger.ledger.repository.LedgerRepositoryCustom.SearchMatch;
 import com.apkharsh.paymentLogger.ledger.service.LedgerService;
+import com.apkharsh.paymentLogger.ledger.util.BatchingIterator;
+import com.apkharsh.paymentLogger.ledger.writer.LedgerDerivedState;
+import com.apkharsh.paymentLogger.ledger.writer.LedgerGroupCommitter;
+import com.mongodb.MongoException;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.apkharsh.paymentLogger.security.util.SecurityUtils.getCurrentUserId;
 
 @Service
+@Timed(value = "ledger.service", histogram = true)
 @RequiredArgsConstructor
 public class LedgerServiceImpl implements LedgerService {
 
+    /**
+     * Rows whose payer/payee are resolved together while streaming
+     */
+    private static final int USER_RESOLVE_BATCH_SIZE = 500;
+
+    private static final int MAX_SEARCH_TEXT_LENGTH = 200;
+
+    /**
+     * MongoDB error code when a $text query finds no text index
+     */
+    private static final int INDEX_NOT_FOUND = 27;
+
     private final LedgerRepository ledgerRepository;
+    private final LedgerMapper ledgerMapper;
+    private final Validator validator;
+    private final LedgerDerivedState derivedState;
+    private final LedgerCollectionLayout collectionLayout;
+    private final LedgerListCache ledgerListCache;
+
+    /**
+     * Present only when app.ledger.group-commit.enabled=true
+     */
+    private final Optional<LedgerGroupCommitter> groupCommitter;
+
+    @Value("${app.ledger.page.max-limit:200}")
+    private int maxPageLimit;
+
+    @Value("${app.ledger.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    /**
+     * Most matches one search can page through; every page scores and sorts all of the user's matches again
+     */
+    @Value("${app.ledger.search.max-results:1000}")
+    private int maxSearchResults;
+
+    /**
+     * Signs search cursors, so the count of matches already served can't be reset or carried to another search
+     */
+    @Value("${app.ledger.search.cursor-secret:${jwt.secret}}")
+    private String searchCursorSecret;
+
 
     @Override
     public LedgerResponse addLedger(LedgerRequest request) {
-        // ⭐ Simple: Use provided timestamp or default to now
-        Instant timestamp = request.getTimestamp() != null
-                ? request.getTimestamp()
-                : Instant.now();
-
-        Ledger ledger = Ledger.builder()
-                .id(UUID.randomUUID().toString())
-                .payerId(request.getPayerId())
-                .payeeId(request.getPayeeId())
-                .amount(request.getAmount())
-                .timestamp(timestamp)
-                .description(request.getDescription())
+        Ledger ledger = ledgerMapper.toLedger(request);
+        if (groupCommitter.isPresent()) {
+            ReadConsistency.recordWrite(awaitGroupCommit(groupCommitter.get(), ledger));
+        } else {
+            // Same insert path as batches, so the write comes back with its consistency token
+            InsertResult result = ledgerRepository.insertUnordered(List.of(ledger));
+            if (!result.failed().isEmpty()) {
+                throw new IllegalStateException("Ledger could not be stored");
+            }
+            ReadConsistency.recordWrite(result.token());
+            derivedState.apply(List.of(ledger));
+        }
+
+        return ledgerMapper.toCreatedResponse(ledger);
+    }
+
+    /**
+     * Validates every item first, then writes the valid ones with a single unordered insertMany and folds
+     * them into balances and rollups with one bulk write each (see LedgerDerivedState). Invalid or rejected
+     * items don't block the rest.
+     */
+    @Override
+    public LedgerBatchResponse addLedgers(List<LedgerRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ValidationException("At least one ledger is required");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new ValidationException("A batch can contain at most " + maxBatchSize + " ledgers");
+        }
+
+        LedgerBatchItemResult[] results = new LedgerBatchItemResult[requests.size()];
+        List<Ledger> ledgers = new ArrayList<>(requests.size());
+        List<Integer> positions = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            List<String> errors = validate(requests.get(i));
+            if (!errors.isEmpty()) {
+                results[i] = LedgerBatchItemResult.builder().index(i).status(BatchItemStatus.INVALID).errors(errors).build();
+                continue;
+            }
+            ledgers.add(ledgerMapper.toLedger(requests.get(i)));
+            positions.add(i);
+        }
+
+        InsertResult result = ledgerRepository.insertUnordered(ledgers);
+        ReadConsistency.recordWrite(result.token());
+        List<Ledger> written = new ArrayList<>(ledgers.size() - result.failed().size());
+        for (int j = 0; j < ledgers.size(); j++) {
+            int index = positions.get(j);
+            if (result.failed().contains(j)) {
+                results[index] = LedgerBatchItemResult.builder().index(index).status(BatchItemStatus.FAILED)
+                        .errors(List.of("Ledger could not be stored")).build();
+                continue;
+            }
+            Ledger ledger = ledgers.get(j);
+            written.add(ledger);
+            results[index] = LedgerBatchItemResult.builder().index(index).status(BatchItemStatus.CREATED).id(ledger.getId()).build();
+        }
+        derivedState.apply(written);
+
+        return LedgerBatchResponse.builder()
+                .created(written.size())
+                .rejected(requests.size() - written.size())
+                .results(List.of(results))
                 .build();
-        ledgerRepository.save(ledger);
-
-        return LedgerResponse.builder()
-                .id(ledger.getId())
-                .payerId(ledger.getPayerId())
-                .payeeId(ledger.getPayeeId())
-                .amount(ledger.getAmount())
-                .timestamp(ledger.getTimestamp())
-                .description(ledger.getDescription())
+    }
+
+    /**
+     * Served from LedgerListCache; a write involving the user (as payer or payee) makes the next call reload.
+     * A cached listing is shared by every request of the user, so it is always loaded from the primary.
+     */
+    @Override
+    public List<LedgerResponse> getAllLedgers(LedgerSearchRequest request, String version) {
+        boolean ranged = hasDateRange(request);
+        return ledgerListCache.get(getCurrentUserId(), version,
+                ranged ? request.getStartDate() : null,
+                ranged ? request.getEndDate() : null,
+                () -> ReadConsistency.onPrimary(() -> {
+                    try (Stream<LedgerResponse> rows = streamAllLedgers(request)) {
+                        return rows.toList();
+                    }
+                }));
+    }
+
+    @Override
+    public LedgerPageResponse getLedgerPage(LedgerSearchRequest request) {
+        int limit = request.getLimit();
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new ValidationException("Limit must be between 1 and " + maxPageLimit);
+        }
+        LedgerCursor after = request.getCursor() != null ? LedgerCursor.decode(request.getCursor()) : null;
+        Instant start = hasDateRange(request) ? startInstant(request) : null;
+        Instant end = hasDateRange(request) ? endInstant(request) : null;
+
+        // Fetch one extra row to learn whether another page exists
+        List<LedgerResponse> rows = ledgerMapper.toResponses(ledgerRepository.findLedgerPage(getCurrentUserId(), start, end, after, limit + 1));
+        if (rows.size() <= limit) {
+            return LedgerPageResponse.builder().items(rows).build();
+        }
+
+        List<LedgerResponse> items = rows.subList(0, limit);
+        return LedgerPageResponse.builder()
+                .items(items)
+                .nextCursor(LedgerCursor.of(items.get(limit - 1)).encode())
+                .build();
+    }
+
+    /**
+     * Ranked text search over the current user's ledger descriptions, keyset-paged on (score, timestamp, id).
+     * Only ledgers still in Mongo are searched: the cold tier (see LedgerTieringJob) has no text index.
+     */
+    @Override
+    public LedgerPageResponse searchLedgers(LedgerSearchRequest request) {
+        if (collectionLayout.isTimeSeries()) {
+            // Time-series collections don't support text indexes
+            throw new ServiceUnavailableException("Ledger search is not available with the time-series storage layout");
+        }
+        String text = request.getText() != null ? request.getText().strip() : "";
+        if (text.isEmpty() || text.length() > MAX_SEARCH_TEXT_LENGTH) {
+            throw new ValidationException("Search text must be 1 to " + MAX_SEARCH_TEXT_LENGTH + " characters");
+        }
+        int limit = request.getLimit();
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new ValidationException("Limit must be between 1 and " + maxPageLimit);
+        }
+        String userId = getCurrentUserId();
+        Instant start = hasDateRange(request) ? startInstant(request) : null;
+        Instant end = hasDateRange(request) ? endInstant(request) : null;
+        byte[] cursorSecret = searchCursorSecret.getBytes(StandardCharsets.UTF_8);
+        String[] cursorScope = {userId, text, String.valueOf(start), String.valueOf(end)};
+
+        LedgerSearchCursor after = request.getCursor() != null
+                ? LedgerSearchCursor.decode(request.getCursor(), cursorSecret, cursorScope)
+                : null;
+        int returned = after != null ? after.returned() : 0;
+        if (returned >= maxSearchResults) {
+            return LedgerPageResponse.builder().items(List.of()).build();
+        }
+        limit = Math.min(limit, maxSearchResults - returned);
+
+        List<SearchMatch> matches;
+        try {
+            // Fetch one extra row to learn whether another page exists
+            matches = ledgerRepository.searchLedgers(userId, text, start, end, after, limit + 1);
+        } catch (DataAccessException e) {
+            if (e.getMostSpecificCause() instanceof MongoException mongo && mongo.getCode() == INDEX_NOT_FOUND) {
+                throw new ServiceUnavailableException("Ledger search is not available yet");
+            }
+            throw e;
+        }
+
+        List<LedgerResponse> rows = ledgerMapper.toResponses(matches.stream().map(SearchMatch::ledger).toList());
+        if (rows.size() <= limit || returned + limit >= maxSearchResults) {
+            return LedgerPageResponse.builder().items(rows.subList(0, Math.min(rows.size(), limit))).build();
+        }
+        SearchMatch last = matches.get(limit - 1);
+        return LedgerPageResponse.builder()
+                .items(rows.subList(0, limit))
+                .nextCursor(new LedgerSearchCursor(last.score(), last.ledger().getTimestamp(), last.ledger().getId(),
+                        returned + limit).encode(cursorSecret, cursorScope))
                 .build();
     }
 
     @Override
-    public List<LedgerResponse> getAllLedgers(LedgerSearchRequest request) {
-        if(request.getStartDate() != null && request.getEndDate() != null) {
-            Instant startInstant = request.getStartDate().atStartOfDay().toInstant(java.time.ZoneOffset.UTC);
-            Instant endInstant = request.getEndDate().atTime(23, 59, 59).toInstant(java.time.ZoneOffset.UTC);
-            return ledgerRepository.findAllLedgersWithUsersByUserIdAndDateRange(getCurrentUserId(), startInstant, endInstant);
+    public Stream<LedgerResponse> streamAllLedgers(LedgerSearchRequest request) {
+        Instant start = hasDateRange(request) ? startInstant(request) : null;
+        Instant end = hasDateRange(request) ? endInstant(request) : null;
+        Stream<Ledger> ledgers = ledgerRepository.streamLedgers(getCurrentUserId(), start, end);
+
+        Iterator<List<Ledger>> batches = new BatchingIterator<>(ledgers.iterator(), USER_RESOLVE_BATCH_SIZE);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+                .flatMap(batch -> ledgerMapper.toResponses(batch).stream())
+                .onClose(ledgers::close);
+    }
+
+    private ConsistencyToken awaitGroupCommit(LedgerGroupCommitter committer, Ledger ledger) {
+        try {
+            return committer.submit(ledger).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                // Not a failure we can report as such: the batch may still be stored after we answer
+                throw new ServiceUnavailableException("Ledger write is taking too long, it may still be stored");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private List<String> validate(LedgerRequest request) {
+        if (request == null) {
+            return List.of("Ledger is required");
         }
-        return ledgerRepository.findAllLedgersWithUsersByUserId(getCurrentUserId());
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<LedgerRequest> violation : validator.validate(request)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        return errors;
+    }
+
+    private boolean hasDateRange(LedgerSearchRequest request) {
+        return request.getStartDate() != null && request.getEndDate() != null;
+    }
+
+    private Instant startInstant(LedgerSearchRequest request) {
+        return request.getStartDate().atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    private Instant endInstant(LedgerSearchRequest request) {
+        return request.getEndDate().atTime(23, 59, 59).toInstant(ZoneOffset.UTC);
     }
 }
@@ -0,0 +1,114 @@
+package com.apkharsh.paymentLogger.ledger.service.impl;
+
+import com.apkharsh.paymentLogger.consistency.ReadConsistency;
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerCursor;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerPageResponse;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerSearchRequest;
+import com.apkharsh.paymentLogger.ledger.idempotency.LedgerIdempotencyStore;
+import com.apkharsh.paymentLogger.ledger.repository.ReactiveLedgerRepository;
+import com.apkharsh.paymentLogger.ledger.service.LedgerService;
+import com.apkharsh.paymentLogger.ledger.service.ReactiveLedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Reads go through the reactive driver. Writes take the same path as POST /ledgers (Idempotency-Key, group commit,
+ * balances, rollups and the listing version), which blocks, so they run on the bounded elastic scheduler like the
+ * other blocking work here (categorizing on a rule cache miss, resolving users); neither request threads nor driver
+ * threads wait on it.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveLedgerServiceImpl implements ReactiveLedgerService {
+
+    /**
+     * Rows whose payer/payee are resolved together
+     */
+    private static final int USER_RESOLVE_BATCH_SIZE = 500;
+
+    private final ReactiveLedgerRepository ledgerRepository;
+    private final LedgerMapper ledgerMapper;
+    private final LedgerService ledgerService;
+    private final LedgerIdempotencyStore idempotencyStore;
+
+    @Value("${app.ledger.page.max-limit:200}")
+    private int maxPageLimit;
+
+    @Override
+    public Mono<CreatedLedger> addLedger(String userId, String idempotencyKey, LedgerRequest request) {
+        return Mono.fromCallable(() -> {
+            // The write records its token on this pooled thread; detached() clears it again afterwards
+            CreatedLedger[] created = new CreatedLedger[1];
+            ReadConsistency.detached(() -> {
+                LedgerIdempotencyStore.Result result = idempotencyKey == null
+                        ? new LedgerIdempotencyStore.Result(ledgerService.addLedger(request), false)
+                        : idempotencyStore.execute(userId, idempotencyKey, request, () -> ledgerService.addLedger(request));
+                created[0] = new CreatedLedger(result.response(), result.replayed(), ReadConsistency.writeToken());
+            });
+            return created[0];
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Flux<LedgerResponse> getAllLedgers(String userId, LedgerSearchRequest request) {
+        Instant start = hasDateRange(request) ? startInstant(request) : null;
+        Instant end = hasDateRange(request) ? endInstant(request) : null;
+        return ledgerRepository.streamLedgers(userId, start, end)
+                .buffer(USER_RESOLVE_BATCH_SIZE)
+                .concatMap(batch -> Mono.fromCallable(() -> ledgerMapper.toResponses(batch))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMapIterable(rows -> rows));
+    }
+
+    @Override
+    public Mono<LedgerPageResponse> getLedgerPage(String userId, LedgerSearchRequest request) {
+        int limit = request.getLimit();
+        if (limit < 1 || limit > maxPageLimit) {
+            return Mono.error(new ValidationException("Limit must be between 1 and " + maxPageLimit));
+        }
+        LedgerCursor after = request.getCursor() != null ? LedgerCursor.decode(request.getCursor()) : null;
+        Instant start = hasDateRange(request) ? startInstant(request) : null;
+        Instant end = hasDateRange(request) ? endInstant(request) : null;
+
+        // Fetch one extra row to learn whether another page exists
+        return ledgerRepository.findLedgerPage(userId, start, end, after, limit + 1)
+                .collectList()
+                .publishOn(Schedulers.boundedElastic())
+                .map(ledgers -> {
+                    List<LedgerResponse> rows = ledgerMapper.toResponses(ledgers);
+                    if (rows.size() <= limit) {
+                        return LedgerPageResponse.builder().items(rows).build();
+                    }
+                    List<LedgerResponse> items = rows.subList(0, limit);
+                    return LedgerPageResponse.builder()
+                            .items(items)
+                            .nextCursor(LedgerCursor.of(items.get(limit - 1)).encode())
+                            .build();
+                });
+    }
+
+    private boolean hasDateRange(LedgerSearchRequest request) {
+        return request.getStartDate() != null && request.getEndDate() != null;
+    }
+
+    private Instant startInstant(LedgerSearchRequest request) {
+        return request.getStartDate().atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    private Instant endInstant(LedgerSearchRequest request) {
+        return request.getEndDate().atTime(23, 59, 59).toInstant(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,119 @@
+package com.apkharsh.paymentLogger.ledger.tiering;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sums the cold tier for the balance and rollup rebuilds without holding all of it on the heap.
+ * <p>
+ * LedgerSegmentStore.ledgers() yields each ledger under its payer, grouped by payer, so once the payer changes every
+ * sum of the previous payer is final. Sums are handed out in chunks at those boundaries, which bounds the heap to
+ * one chunk plus one payer's keys. A tiering run interrupted before its delete leaves rows in both tiers; those are
+ * skipped here and counted from Mongo only.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerColdAggregator {
+
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Sums collected before a chunk is handed out at the next payer boundary
+     */
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final LedgerSegmentStore segmentStore;
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * @param key   groups ledgers; must include the payer, or a key could be handed out before all its ledgers are read
+     * @param flush receives each chunk of final sums
+     * @return number of sums handed out
+     */
+    public <K> long sum(Function<Ledger, K> key, Consumer<Map<K, Totals>> flush) {
+        Map<K, Totals> chunk = new HashMap<>();
+        long sums = 0;
+        String payerId = null;
+        List<Ledger> batch = new ArrayList<>(BATCH_SIZE);
+        Iterator<Ledger> cold = segmentStore.ledgers();
+        while (cold.hasNext()) {
+            batch.add(cold.next());
+            if (batch.size() < BATCH_SIZE && cold.hasNext()) {
+                continue;
+            }
+            Set<String> stillHot = existingIds(batch);
+            for (Ledger ledger : batch) {
+                if (stillHot.contains(ledger.getId()) || ledger.getPayerId() == null || ledger.getPayeeId() == null
+                        || ledger.getAmount() == null) {
+                    continue;
+                }
+                if (!ledger.getPayerId().equals(payerId)) {
+                    if (chunk.size() >= CHUNK_SIZE) {
+                        flush.accept(chunk);
+                        sums += chunk.size();
+                        chunk = new HashMap<>();
+                    }
+                    payerId = ledger.getPayerId();
+                }
+                chunk.computeIfAbsent(key.apply(ledger), ignored -> new Totals()).add(ledger);
+            }
+            batch.clear();
+        }
+        if (!chunk.isEmpty()) {
+            flush.accept(chunk);
+            sums += chunk.size();
+        }
+        return sums;
+    }
+
+    private Set<String> existingIds(List<Ledger> ledgers) {
+        Query query = new Query(Criteria.where("id").in(ledgers.stream().map(Ledger::getId).toList()));
+        query.fields().include("id");
+        return mongoTemplate.find(query, Ledger.class).stream().map(Ledger::getId).collect(Collectors.toSet());
+    }
+
+    /**
+     * Amount, count and newest timestamp of the ledgers under one key
+     */
+    public static final class Totals {
+        private BigDecimal amount = BigDecimal.ZERO;
+        private long count;
+        private Instant last;
+
+        void add(Ledger ledger) {
+            amount = amount.add(ledger.getAmount());
+            count++;
+            if (last == null || ledger.getTimestamp().isAfter(last)) {
+                last = ledger.getTimestamp();
+            }
+        }
+
+        public BigDecimal amount() {
+            return amount;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public Instant last() {
+            return last;
+        }
+    }
+}
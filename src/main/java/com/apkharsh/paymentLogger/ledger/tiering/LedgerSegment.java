@@ -0,0 +1,235 @@
+package com.apkharsh.paymentLogger.ledger.tiering;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read side of an immutable segment file. The file is memory-mapped and only the sparse block index
+ * (first key of every block) is kept on the heap; a user's rows are found by binary search over that index
+ * and read by inflating consecutive blocks straight out of the mapping. Safe for concurrent readers.
+ */
+public class LedgerSegment {
+
+    private final Path path;
+    private final MappedByteBuffer data;
+    private final String[] blockUserIds;
+    private final long[] blockTimestamps;
+    private final long[] blockOffsets;
+    private final long indexOffset;
+    private final Instant minTimestamp;
+    private final Instant maxTimestamp;
+
+    private LedgerSegment(Path path, MappedByteBuffer data) throws IOException {
+        this.path = path;
+        this.data = data;
+
+        int footer = data.capacity() - LedgerSegmentFormat.FOOTER_BYTES;
+        if (data.capacity() < LedgerSegmentFormat.HEADER_BYTES + LedgerSegmentFormat.FOOTER_BYTES
+                || data.getInt(0) != LedgerSegmentFormat.MAGIC
+                || data.getInt(footer + 28) != LedgerSegmentFormat.MAGIC) {
+            throw new IOException("Not a ledger segment: " + path);
+        }
+        int version = data.getInt(4);
+        if (version != LedgerSegmentFormat.VERSION) {
+            throw new IOException("Unsupported ledger segment version " + version + ": " + path);
+        }
+        this.indexOffset = data.getLong(footer);
+        int blocks = data.getInt(footer + 8);
+        this.minTimestamp = Instant.ofEpochMilli(data.getLong(footer + 12));
+        this.maxTimestamp = Instant.ofEpochMilli(data.getLong(footer + 20));
+
+        byte[] indexBytes = new byte[(int) (footer - indexOffset)];
+        data.get((int) indexOffset, indexBytes);
+        DataInputStream index = new DataInputStream(new ByteArrayInputStream(indexBytes));
+        this.blockUserIds = new String[blocks];
+        this.blockTimestamps = new long[blocks];
+        this.blockOffsets = new long[blocks];
+        for (int i = 0; i < blocks; i++) {
+            blockUserIds[i] = index.readUTF();
+            blockTimestamps[i] = index.readLong();
+            index.readUTF(); // first id, kept in the file for tools
+            blockOffsets[i] = index.readLong();
+        }
+    }
+
+    public static LedgerSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Segment too large to map: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            return new LedgerSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    int blockCount() {
+        return blockOffsets.length;
+    }
+
+    public Instant minTimestamp() {
+        return minTimestamp;
+    }
+
+    public Instant maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * A user's ledgers (as payer or payee) with from <= timestamp <= to, newest first; null bounds are open
+     */
+    public Iterator<Ledger> read(String userId, Instant from, Instant to) {
+        long upper = to != null ? to.toEpochMilli() : Long.MAX_VALUE;
+        long lower = from != null ? from.toEpochMilli() : Long.MIN_VALUE;
+        return new UserIterator(userId, lower, upper, seek(userId, upper));
+    }
+
+    /**
+     * Every entry in segment order
+     */
+    public Iterator<SegmentEntry> entries() {
+        return new Iterator<>() {
+            private int block = 0;
+            private Iterator<SegmentEntry> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && block < blockOffsets.length) {
+                    current = readBlock(block++).iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public SegmentEntry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Last block starting strictly before the user's rows at {@code upper}, i.e. the first block that can hold one
+     */
+    private int seek(String userId, long upper) {
+        int low = 0;
+        int high = blockOffsets.length - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int byUser = blockUserIds[mid].compareTo(userId);
+            if (byUser < 0 || (byUser == 0 && blockTimestamps[mid] > upper)) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private List<SegmentEntry> readBlock(int block) {
+        int offset = (int) blockOffsets[block];
+        int rawLength = data.getInt(offset);
+        int compressedLength = data.getInt(offset + 4);
+        ByteBuffer compressed = data.slice(offset + 8, compressedLength);
+
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                read += inflater.inflate(raw, read, rawLength - read);
+            }
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Corrupt block " + block + " in " + path, e));
+        } finally {
+            inflater.end();
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        List<SegmentEntry> entries = new ArrayList<>();
+        try {
+            while (in.available() > 0) {
+                entries.add(LedgerSegmentFormat.readEntry(in));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entries;
+    }
+
+    private class UserIterator implements Iterator<Ledger> {
+
+        private final String userId;
+        private final long lower;
+        private final long upper;
+        private int block;
+        private Iterator<SegmentEntry> current = Collections.emptyIterator();
+        private Ledger next;
+        private boolean done;
+
+        UserIterator(String userId, long lower, long upper, int block) {
+            this.userId = userId;
+            this.lower = lower;
+            this.upper = upper;
+            this.block = block;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !done) {
+                if (!current.hasNext()) {
+                    if (block >= blockOffsets.length || blockUserIds[block].compareTo(userId) > 0) {
+                        done = true;
+                        break;
+                    }
+                    current = readBlock(block++).iterator();
+                    continue;
+                }
+                SegmentEntry entry = current.next();
+                int byUser = entry.userId().compareTo(userId);
+                long timestamp = entry.ledger().getTimestamp().toEpochMilli();
+                if (byUser > 0 || (byUser == 0 && timestamp < lower)) {
+                    done = true;
+                } else if (byUser == 0 && timestamp <= upper) {
+                    next = entry.ledger();
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Ledger next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Ledger ledger = next;
+            next = null;
+            return ledger;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.apkharsh.paymentLogger.ledger.tiering;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * On-disk layout of a ledger segment file:
+ * <pre>
+ * header   int magic, int version
+ * blocks   int rawLength, int compressedLength, deflate(entries...)      -- entries in SegmentEntry.ORDER
+ * index    per block: UTF userId, long timestamp, UTF id, long offset    -- first entry of each block
+ * footer   long indexOffset, int blockCount, long minTimestamp, long maxTimestamp, int magic
+ * </pre>
+ * All numbers are big-endian; timestamps are epoch milliseconds.
+ * <p>
+ * An entry is UTF userId, long timestamp, UTF id, byte flags, then each optional field the flags mark as present.
+ */
+final class LedgerSegmentFormat {
+
+    static final int MAGIC = 0x504C5347; // "PLSG"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 8;
+    static final int FOOTER_BYTES = 32;
+
+    /**
+     * Uncompressed size after which a block is closed; also the read granularity of the sparse index
+     */
+    static final int BLOCK_TARGET_BYTES = 64 * 1024;
+
+    private static final int HAS_DESCRIPTION = 1;
+    private static final int HAS_CATEGORY = 1 << 1;
+    private static final int HAS_CREATED_AT = 1 << 2;
+    private static final int HAS_UPDATED_AT = 1 << 3;
+    private static final int HAS_PAYER = 1 << 4;
+    private static final int HAS_PAYEE = 1 << 5;
+    private static final int HAS_AMOUNT = 1 << 6;
+
+    private LedgerSegmentFormat() {
+    }
+
+    static void writeEntry(DataOutput out, SegmentEntry entry) throws IOException {
+        Ledger ledger = entry.ledger();
+        out.writeUTF(entry.userId());
+        out.writeLong(ledger.getTimestamp().toEpochMilli());
+        out.writeUTF(ledger.getId());
+
+        // Old or invalid rows may lack any of these; they are tiered as they are
+        int flags = (ledger.getDescription() != null ? HAS_DESCRIPTION : 0)
+                | (ledger.getCategory() != null ? HAS_CATEGORY : 0)
+                | (ledger.getCreatedAt() != null ? HAS_CREATED_AT : 0)
+                | (ledger.getUpdatedAt() != null ? HAS_UPDATED_AT : 0)
+                | (ledger.getPayerId() != null ? HAS_PAYER : 0)
+                | (ledger.getPayeeId() != null ? HAS_PAYEE : 0)
+                | (ledger.getAmount() != null ? HAS_AMOUNT : 0);
+        out.writeByte(flags);
+        if (ledger.getPayerId() != null) {
+            out.writeUTF(ledger.getPayerId());
+        }
+        if (ledger.getPayeeId() != null) {
+            out.writeUTF(ledger.getPayeeId());
+        }
+        if (ledger.getAmount() != null) {
+            out.writeUTF(ledger.getAmount().toPlainString());
+        }
+        writeOptionalFields(out, ledger);
+    }
+
+    static SegmentEntry readEntry(DataInput in) throws IOException {
+        String userId = in.readUTF();
+        Ledger ledger = new Ledger();
+        ledger.setTimestamp(Instant.ofEpochMilli(in.readLong()));
+        ledger.setId(in.readUTF());
+
+        int flags = in.readByte();
+        if ((flags & HAS_PAYER) != 0) {
+            ledger.setPayerId(in.readUTF());
+        }
+        if ((flags & HAS_PAYEE) != 0) {
+            ledger.setPayeeId(in.readUTF());
+        }
+        if ((flags & HAS_AMOUNT) != 0) {
+            ledger.setAmount(new BigDecimal(in.readUTF()));
+        }
+        if ((flags & HAS_DESCRIPTION) != 0) {
+            ledger.setDescription(in.readUTF());
+        }
+        if ((flags & HAS_CATEGORY) != 0) {
+            ledger.setCategory(in.readUTF());
+        }
+        if ((flags & HAS_CREATED_AT) != 0) {
+            ledger.setCreatedAt(Instant.ofEpochMilli(in.readLong()));
+        }
+        if ((flags & HAS_UPDATED_AT) != 0) {
+            ledger.setUpdatedAt(Instant.ofEpochMilli(in.readLong()));
+        }
+        return new SegmentEntry(userId, ledger);
+    }
+
+    private static void writeOptionalFields(DataOutput out, Ledger ledger) throws IOException {
+        if (ledger.getDescription() != null) {
+            out.writeUTF(ledger.getDescription());
+        }
+        if (ledger.getCategory() != null) {
+            out.writeUTF(ledger.getCategory());
+        }
+        if (ledger.getCreatedAt() != null) {
+            out.writeLong(ledger.getCreatedAt().toEpochMilli());
+        }
+        if (ledger.getUpdatedAt() != null) {
+            out.writeLong(ledger.getUpdatedAt().toEpochMilli());
+        }
+    }
+}
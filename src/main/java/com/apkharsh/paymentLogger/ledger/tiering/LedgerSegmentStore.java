@@ -0,0 +1,151 @@
+package com.apkharsh.paymentLogger.ledger.tiering;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.util.LedgerOrdering;
+import com.apkharsh.paymentLogger.ledger.util.SortedMergeIterator;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.StreamSupport;
+
+/**
+ * The cold tier: immutable segment files in app.ledger.tiering.directory, written by LedgerTieringJob.
+ * Loads whatever segments exist at startup (none unless tiering has run), so reads cost nothing when tiering is unused.
+ * Without a directory there is no cold tier at all.
+ */
+@Component
+@Slf4j
+public class LedgerSegmentStore {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final List<LedgerSegment> segments = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public LedgerSegmentStore(@Value("${app.ledger.tiering.directory:}") String directory) {
+        this(directory.isBlank() ? null : Path.of(directory));
+    }
+
+    /**
+     * @param directory segment directory, or null for no cold tier
+     */
+    public LedgerSegmentStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Configured segment directory, or null
+     */
+    public Path directory() {
+        return directory;
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        if (directory == null || !Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // Left behind by a tiering run that didn't finish; its rows are still in Mongo
+                    Files.delete(file);
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.add(LedgerSegment.open(file));
+                }
+            }
+        }
+        if (!segments.isEmpty()) {
+            log.info("Loaded {} ledger segments from {}", segments.size(), directory);
+        }
+    }
+
+    /**
+     * Whether the cold tier can hold rows at or after `from` (null: any time)
+     */
+    public boolean reaches(Instant from) {
+        for (LedgerSegment segment : segments) {
+            if (from == null || !from.isAfter(segment.maxTimestamp())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A user's cold ledgers with from <= timestamp <= to across all segments, newest first
+     */
+    public Iterator<Ledger> read(String userId, Instant from, Instant to) {
+        List<Iterator<Ledger>> sources = segments.stream()
+                .filter(segment -> from == null || !from.isAfter(segment.maxTimestamp()))
+                .filter(segment -> to == null || !to.isBefore(segment.minTimestamp()))
+                .map(segment -> segment.read(userId, from, to))
+                .toList();
+        if (sources.isEmpty()) {
+            return Collections.emptyIterator();
+        }
+        return sources.size() == 1 ? sources.get(0) : new SortedMergeIterator<>(sources, LedgerOrdering.NEWEST_FIRST);
+    }
+
+    /**
+     * Every cold ledger once, in no useful order (for rebuilds). A ledger tiered twice after an interrupted run sits in
+     * two segments; merging in segment order puts the copies next to each other, where the merge drops one.
+     */
+    public Iterator<Ledger> ledgers() {
+        if (segments.isEmpty()) {
+            return Collections.emptyIterator();
+        }
+        Iterator<SegmentEntry> entries = new SortedMergeIterator<>(segments.stream().map(LedgerSegment::entries).toList(), SegmentEntry.ORDER);
+        // Each ledger is filed under its payer and its payee; keep the payer's copy (the payee's when there is no payer)
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(entries, Spliterator.ORDERED), false)
+                .filter(entry -> entry.ledger().getPayerId() == null || entry.userId().equals(entry.ledger().getPayerId()))
+                .map(SegmentEntry::ledger)
+                .iterator();
+    }
+
+    /**
+     * Path for a new segment; it stays invisible to readers until commit()
+     */
+    Path newSegmentFile() {
+        if (directory == null) {
+            throw new IllegalStateException("app.ledger.tiering.directory is not set");
+        }
+        return directory.resolve(UUID.randomUUID() + TEMP_SUFFIX);
+    }
+
+    /**
+     * Publishes a finished segment to readers
+     */
+    LedgerSegment commit(Path tempFile) {
+        String name = tempFile.getFileName().toString();
+        Path target = directory.resolve(name.substring(0, name.length() - TEMP_SUFFIX.length()) + SEGMENT_SUFFIX);
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            LedgerSegment segment = LedgerSegment.open(target);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
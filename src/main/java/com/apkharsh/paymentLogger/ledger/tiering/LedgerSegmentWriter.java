@@ -0,0 +1,127 @@
+package com.apkharsh.paymentLogger.ledger.tiering;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Writes one segment file (see LedgerSegmentFormat) from entries appended in SegmentEntry.ORDER.
+ * Entries are buffered into blocks of about BLOCK_TARGET_BYTES, each deflated on its own so a read only
+ * inflates the blocks it needs. Nothing is readable until finish() has written the index and forced the file to disk.
+ */
+class LedgerSegmentWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+    private final ByteArrayOutputStream blockBuffer = new ByteArrayOutputStream(LedgerSegmentFormat.BLOCK_TARGET_BYTES + 1024);
+    private final DataOutputStream block = new DataOutputStream(blockBuffer);
+    private final byte[] compressed = new byte[LedgerSegmentFormat.BLOCK_TARGET_BYTES];
+    private final List<IndexEntry> index = new ArrayList<>();
+
+    private SegmentEntry blockFirst;
+    private SegmentEntry previous;
+    private long position;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long entries;
+
+    LedgerSegmentWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 256 * 1024));
+        out.writeInt(LedgerSegmentFormat.MAGIC);
+        out.writeInt(LedgerSegmentFormat.VERSION);
+        position = LedgerSegmentFormat.HEADER_BYTES;
+    }
+
+    void append(SegmentEntry entry) throws IOException {
+        if (previous != null && SegmentEntry.ORDER.compare(previous, entry) > 0) {
+            throw new IllegalStateException("Segment entries must be appended in order");
+        }
+        previous = entry;
+        if (blockFirst == null) {
+            blockFirst = entry;
+        }
+        LedgerSegmentFormat.writeEntry(block, entry);
+        long timestamp = entry.ledger().getTimestamp().toEpochMilli();
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        entries++;
+        if (blockBuffer.size() >= LedgerSegmentFormat.BLOCK_TARGET_BYTES) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Bytes written so far, including the block being filled (uncompressed)
+     */
+    long size() {
+        return position + blockBuffer.size();
+    }
+
+    long entries() {
+        return entries;
+    }
+
+    void finish() throws IOException {
+        flushBlock();
+        long indexOffset = position;
+        for (IndexEntry entry : index) {
+            out.writeUTF(entry.userId());
+            out.writeLong(entry.timestamp());
+            out.writeUTF(entry.id());
+            out.writeLong(entry.offset());
+        }
+        out.writeLong(indexOffset);
+        out.writeInt(index.size());
+        out.writeLong(minTimestamp);
+        out.writeLong(maxTimestamp);
+        out.writeInt(LedgerSegmentFormat.MAGIC);
+        out.flush();
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        out.close();
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockFirst == null) {
+            return;
+        }
+        byte[] raw = blockBuffer.toByteArray();
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(raw.length / 4);
+        while (!deflater.finished()) {
+            int length = deflater.deflate(compressed);
+            deflated.write(compressed, 0, length);
+        }
+
+        index.add(new IndexEntry(blockFirst.userId(), blockFirst.ledger().getTimestamp().toEpochMilli(),
+                blockFirst.ledger().getId(), position));
+        out.writeInt(raw.length);
+        out.writeInt(deflated.size());
+        deflated.writeTo(out);
+        position += 8 + deflated.size();
+
+        blockBuffer.reset();
+        blockFirst = null;
+    }
+
+    private record IndexEntry(String userId, long timestamp, String id, long offset) {
+    }
+}
@@ -0,0 +1,208 @@
+package com.apkharsh.paymentLogger.ledger.tiering;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.util.SortedMergeIterator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Opt-in hot/cold tiering (app.ledger.tiering.enabled=true).
+ * Every interval, ledgers older than min-age are copied into compressed segment files (see LedgerSegmentStore)
+ * and then removed from Mongo, which keeps the collection and its indexes sized to the recent, frequently read data.
+ * <p>
+ * The copy is read from the two participant indexes in (user, timestamp desc, _id desc) order, which is exactly
+ * segment order, so writing is a single streaming pass. Nothing is deleted from Mongo until every segment of the run
+ * is on disk; a crash in between only leaves rows in both tiers, which the read-side merge returns once.
+ * <p>
+ * Tiered rows exist only in the segment files, so the directory must be persistent storage that outlives the
+ * container (e.g. a mounted disk): startup fails unless it is an absolute path to an existing, writable directory.
+ * It is never created here, so a missing mount can't silently fall back to the container's ephemeral disk.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ledger.tiering.enabled", havingValue = "true")
+@Slf4j
+public class LedgerTieringJob {
+
+    private static final List<String> PARTICIPANT_FIELDS = List.of("payerId", "payeeId");
+    private static final int STREAM_BATCH_SIZE = 1000;
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final LedgerSegmentStore segmentStore;
+    private final Duration minAge;
+    private final Duration interval;
+    private final long maxSegmentBytes;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ledger-tiering");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LedgerTieringJob(MongoTemplate mongoTemplate,
+                            LedgerSegmentStore segmentStore,
+                            @Value("${app.ledger.tiering.min-age:365d}") Duration minAge,
+                            @Value("${app.ledger.tiering.interval:1d}") Duration interval,
+                            @Value("${app.ledger.tiering.max-segment-size:256MB}") DataSize maxSegmentSize) {
+        if (maxSegmentSize.toBytes() >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("app.ledger.tiering.max-segment-size must be below 2GB");
+        }
+        requirePersistentDirectory(segmentStore.directory());
+        this.mongoTemplate = mongoTemplate;
+        this.segmentStore = segmentStore;
+        this.minAge = minAge;
+        this.interval = interval;
+        this.maxSegmentBytes = maxSegmentSize.toBytes();
+    }
+
+    private static void requirePersistentDirectory(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("app.ledger.tiering.directory is required when tiering is enabled");
+        }
+        if (!directory.isAbsolute() || !Files.isDirectory(directory) || !Files.isWritable(directory)) {
+            throw new IllegalArgumentException("app.ledger.tiering.directory must be an absolute path to an existing, "
+                    + "writable directory on persistent storage (a mounted volume): " + directory);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::runSafely, Duration.ofMinutes(1).toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Ledger tiering enabled [minAge={}, interval={}]", minAge, interval);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void runSafely() {
+        try {
+            tier();
+        } catch (Exception e) {
+            // Rows stay in Mongo; the next run retries them
+            log.error("Ledger tiering run failed", e);
+        }
+    }
+
+    /**
+     * Moves every ledger older than min-age to the cold tier
+     */
+    public void tier() throws IOException {
+        Instant cutoff = Instant.now().minus(minAge);
+        long started = System.nanoTime();
+
+        List<LedgerSegment> written = writeSegments(cutoff);
+        if (written.isEmpty()) {
+            return;
+        }
+        long removed = deleteTiered(written, cutoff);
+        log.info("Ledger tiering moved {} ledgers older than {} into {} segments in {} ms",
+                removed, cutoff, written.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private List<LedgerSegment> writeSegments(Instant cutoff) throws IOException {
+        List<Stream<SegmentEntry>> branches = new ArrayList<>();
+        List<Path> pending = new ArrayList<>();
+        List<LedgerSegment> committed = new ArrayList<>();
+        LedgerSegmentWriter writer = null;
+        try {
+            for (String field : PARTICIPANT_FIELDS) {
+                // ne(null) also skips explicit nulls; a row with neither participant stays in Mongo
+                Query query = new Query(Criteria.where(field).ne(null).and("timestamp").lt(cutoff))
+                        .with(Sort.by(Sort.Direction.ASC, field).and(Sort.by(Sort.Direction.DESC, "timestamp", "id")))
+                        .cursorBatchSize(STREAM_BATCH_SIZE);
+                branches.add(mongoTemplate.stream(query, Ledger.class)
+                        .map(ledger -> new SegmentEntry(field.equals("payerId") ? ledger.getPayerId() : ledger.getPayeeId(), ledger)));
+            }
+            // A self-payment comes out of both branches as the same entry; the merge keeps one
+            Iterator<SegmentEntry> entries = new SortedMergeIterator<>(branches.stream().map(Stream::iterator).toList(), SegmentEntry.ORDER);
+
+            while (entries.hasNext()) {
+                if (writer == null) {
+                    pending.add(segmentStore.newSegmentFile());
+                    writer = new LedgerSegmentWriter(pending.get(pending.size() - 1));
+                }
+                writer.append(entries.next());
+                if (writer.size() >= maxSegmentBytes) {
+                    writer.finish();
+                    writer.close();
+                    writer = null;
+                }
+            }
+            if (writer != null) {
+                writer.finish();
+                writer.close();
+                writer = null;
+            }
+            for (Path file : pending) {
+                committed.add(segmentStore.commit(file));
+            }
+            return committed;
+        } catch (IOException | RuntimeException e) {
+            if (writer != null) {
+                writer.close();
+            }
+            for (Path file : pending) {
+                Files.deleteIfExists(file);
+            }
+            throw e;
+        } finally {
+            branches.forEach(Stream::close);
+        }
+    }
+
+    /**
+     * Deletes tiered rows by id, each ledger once (through its payer entry, or its payee entry when it has no payer)
+     */
+    private long deleteTiered(List<LedgerSegment> segments, Instant cutoff) {
+        long removed = 0;
+        List<String> ids = new ArrayList<>(DELETE_BATCH_SIZE);
+        for (LedgerSegment segment : segments) {
+            Iterator<SegmentEntry> entries = segment.entries();
+            while (entries.hasNext()) {
+                SegmentEntry entry = entries.next();
+                String payerId = entry.ledger().getPayerId();
+                if (payerId != null && !entry.userId().equals(payerId)) {
+                    continue;
+                }
+                ids.add(entry.ledger().getId());
+                if (ids.size() == DELETE_BATCH_SIZE) {
+                    removed += delete(ids, cutoff);
+                    ids.clear();
+                }
+            }
+        }
+        if (!ids.isEmpty()) {
+            removed += delete(ids, cutoff);
+        }
+        return removed;
+    }
+
+    private long delete(List<String> ids, Instant cutoff) {
+        Query query = new Query(Criteria.where("id").in(ids).and("timestamp").lt(cutoff));
+        return mongoTemplate.remove(query, Ledger.class).getDeletedCount();
+    }
+}
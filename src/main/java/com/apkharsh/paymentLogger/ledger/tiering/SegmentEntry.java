@@ -0,0 +1,18 @@
+package com.apkharsh.paymentLogger.ledger.tiering;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.util.LedgerOrdering;
+
+import java.util.Comparator;
+
+/**
+ * A ledger filed under one of its participants; a segment holds every ledger once per participant
+ */
+public record SegmentEntry(String userId, Ledger ledger) {
+
+    /**
+     * Segment order: by user, then newest first within a user
+     */
+    public static final Comparator<SegmentEntry> ORDER =
+            Comparator.comparing(SegmentEntry::userId).thenComparing(SegmentEntry::ledger, LedgerOrdering.NEWEST_FIRST);
+}
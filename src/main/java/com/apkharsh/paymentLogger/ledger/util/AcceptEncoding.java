@@ -0,0 +1,55 @@
+package com.apkharsh.paymentLogger.ledger.util;
+
+import java.util.Locale;
+
+/**
+ * Reads an Accept-Encoding header (RFC 9110 section 12.5.3): comma-separated codings, each with an optional
+ * ";q=" weight where 0 means "not acceptable". An explicit entry for a coding wins over "*".
+ */
+public final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    /**
+     * Whether a gzip-encoded response is acceptable; false for a missing header. A malformed weight counts as 0,
+     * since an unencoded response is always safe.
+     */
+    public static boolean acceptsGzip(String header) {
+        if (header == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String entry : header.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = Math.max(gzip != null ? gzip : 0, weight(parts));
+            } else if (coding.equals("*")) {
+                wildcard = weight(parts);
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return wildcard != null && wildcard > 0;
+    }
+
+    private static double weight(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            int equals = parameter.indexOf('=');
+            if (equals < 0 || !parameter.substring(0, equals).trim().equalsIgnoreCase("q")) {
+                continue;
+            }
+            String value = parameter.substring(equals + 1).trim();
+            // qvalue = ( "0" [ "." 0*3DIGIT ] ) / ( "1" [ "." 0*3("0") ] )
+            if (!value.matches("0(\\.\\d{0,3})?|1(\\.0{0,3})?")) {
+                return 0;
+            }
+            return Double.parseDouble(value);
+        }
+        return 1;
+    }
+}
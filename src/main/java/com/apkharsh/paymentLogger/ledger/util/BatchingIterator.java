@@ -0,0 +1,37 @@
+package com.apkharsh.paymentLogger.ledger.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Groups a (possibly unbounded) iterator into lists of at most {@code size} elements
+ */
+public class BatchingIterator<T> implements Iterator<List<T>> {
+
+    private final Iterator<? extends T> source;
+    private final int size;
+
+    public BatchingIterator(Iterator<? extends T> source, int size) {
+        this.source = source;
+        this.size = size;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return source.hasNext();
+    }
+
+    @Override
+    public List<T> next() {
+        if (!source.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<T> batch = new ArrayList<>(size);
+        while (source.hasNext() && batch.size() < size) {
+            batch.add(source.next());
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,87 @@
+package com.apkharsh.paymentLogger.ledger.util;
+
+import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
+import com.apkharsh.paymentLogger.user.dto.UserInfo;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes LedgerResponse rows as RFC 4180 CSV straight to a Writer, one row at a time
+ */
+public class LedgerCsvWriter {
+
+    private static final String HEADER =
+            "id,timestamp,payerId,payerName,payerEmail,payeeId,payeeName,payeeEmail,amount,description,category\r\n";
+
+    private final Writer writer;
+
+    public LedgerCsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void writeHeader() throws IOException {
+        writer.write(HEADER);
+    }
+
+    public void write(LedgerResponse ledger) throws IOException {
+        writeText(ledger.getId());
+        writer.write(',');
+        if (ledger.getTimestamp() != null) {
+            DateTimeFormatter.ISO_INSTANT.formatTo(ledger.getTimestamp(), writer);
+        }
+        writer.write(',');
+        writeText(ledger.getPayerId());
+        writer.write(',');
+        writeUser(ledger.getPayer());
+        writer.write(',');
+        writeText(ledger.getPayeeId());
+        writer.write(',');
+        writeUser(ledger.getPayee());
+        writer.write(',');
+        if (ledger.getAmount() != null) {
+            writer.write(ledger.getAmount().toPlainString());
+        }
+        writer.write(',');
+        writeText(ledger.getDescription());
+        writer.write(',');
+        writeText(ledger.getCategory());
+        writer.write("\r\n");
+    }
+
+    private void writeUser(UserInfo user) throws IOException {
+        writeText(user != null ? user.getName() : null);
+        writer.write(',');
+        writeText(user != null ? user.getEmail() : null);
+    }
+
+    /**
+     * Quotes when needed, and prefixes a quote to cells spreadsheets would evaluate as formulas
+     */
+    private void writeText(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        char first = value.charAt(0);
+        boolean formula = first == '=' || first == '+' || first == '-' || first == '@';
+        boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,22 @@
+package com.apkharsh.paymentLogger.ledger.util;
+
+import com.apkharsh.paymentLogger.id.StoredIdOrder;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+
+import java.util.Comparator;
+
+/**
+ * The order every ledger read path returns rows in, shared by all sources that get merged
+ */
+public final class LedgerOrdering {
+
+    /**
+     * (timestamp desc, id desc), exactly as Mongo sorts {timestamp: -1, _id: -1}.
+     * _id may hold legacy UUID strings next to ObjectIds, so ids are compared the way Mongo sorts them.
+     */
+    public static final Comparator<Ledger> NEWEST_FIRST =
+            Comparator.comparing(Ledger::getTimestamp).thenComparing(Ledger::getId, StoredIdOrder.ASCENDING).reversed();
+
+    private LedgerOrdering() {
+    }
+}
@@ -0,0 +1,57 @@
+package com.apkharsh.paymentLogger.ledger.util;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * K-way merge of iterators that are each already sorted by the same comparator.
+ * Only the head of every source is held in memory. Elements comparing equal to the
+ * previously returned one are dropped, so a row reachable through two sources
+ * (e.g. a ledger where payer == payee) comes out once.
+ */
+public class SortedMergeIterator<T> implements Iterator<T> {
+
+    private final Comparator<? super T> comparator;
+    private final PriorityQueue<Head<T>> heads;
+    private T last;
+
+    public SortedMergeIterator(List<? extends Iterator<? extends T>> sources, Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> comparator.compare(a.value, b.value));
+        for (Iterator<? extends T> source : sources) {
+            advance(source);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!heads.isEmpty() && last != null && comparator.compare(heads.peek().value, last) == 0) {
+            Head<T> duplicate = heads.poll();
+            advance(duplicate.source);
+        }
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Head<T> head = heads.poll();
+        advance(head.source);
+        last = head.value;
+        return last;
+    }
+
+    private void advance(Iterator<? extends T> source) {
+        if (source.hasNext()) {
+            heads.add(new Head<>(source.next(), source));
+        }
+    }
+
+    private record Head<T>(T value, Iterator<? extends T> source) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.apkharsh.paymentLogger.ledger.writer;
+
+import com.apkharsh.paymentLogger.balance.service.BalanceService;
+import com.apkharsh.paymentLogger.ledger.cache.LedgerVersionStore;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.rollup.service.RollupService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Folds stored ledgers into balances, rollups and listing versions.
+ * Runs after the insert is acknowledged and never throws: the ledgers are already stored, so a failure here must
+ * not fail the caller. Failures are logged and counted (ledger.derived_state.failures); the balance and rollup
+ * rebuilds (app.balances.rebuild, app.rollups.rebuild) repair them, and a missed version bump only keeps
+ * serving the cached listing until app.cache.ledger-list.ttl.
+ */
+@Component
+@Slf4j
+public class LedgerDerivedState {
+
+    private final BalanceService balanceService;
+    private final RollupService rollupService;
+    private final LedgerVersionStore ledgerVersionStore;
+
+    private final Counter balanceFailures;
+    private final Counter rollupFailures;
+    private final Counter versionFailures;
+
+    public LedgerDerivedState(BalanceService balanceService,
+                              RollupService rollupService,
+                              LedgerVersionStore ledgerVersionStore,
+                              MeterRegistry meterRegistry) {
+        this.balanceService = balanceService;
+        this.rollupService = rollupService;
+        this.ledgerVersionStore = ledgerVersionStore;
+        this.balanceFailures = failures(meterRegistry, "balance");
+        this.rollupFailures = failures(meterRegistry, "rollup");
+        this.versionFailures = failures(meterRegistry, "version");
+    }
+
+    private static Counter failures(MeterRegistry meterRegistry, String part) {
+        return Counter.builder("ledger.derived_state.failures")
+                .description("Stored ledger batches whose derived state could not be updated")
+                .tag("part", part)
+                .register(meterRegistry);
+    }
+
+    public void apply(List<Ledger> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        try {
+            balanceService.applyLedgers(written);
+        } catch (RuntimeException e) {
+            balanceFailures.increment();
+            log.error("Balances not updated for {} stored ledgers; a balance rebuild repairs them", written.size(), e);
+        }
+        try {
+            rollupService.applyLedgers(written);
+        } catch (RuntimeException e) {
+            rollupFailures.increment();
+            log.error("Rollups not updated for {} stored ledgers; a rollup rebuild repairs them", written.size(), e);
+        }
+        try {
+            ledgerVersionStore.bump(written);
+        } catch (RuntimeException e) {
+            versionFailures.increment();
+            log.error("Listing versions not bumped for {} stored ledgers", written.size(), e);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.apkharsh.paymentLogger.ledger.writer;
+
+import com.apkharsh.paymentLogger.consistency.ConsistencyToken;
+import com.apkharsh.paymentLogger.consistency.ReadConsistency;
+import com.apkharsh.paymentLogger.exceptions.WriteRejectedException;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.enums.GroupCommitBackpressure;
+import com.apkharsh.paymentLogger.ledger.repository.LedgerRepository;
+import com.apkharsh.paymentLogger.ledger.repository.LedgerRepositoryCustom.InsertResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in write-behind for single-ledger writes (app.ledger.group-commit.enabled=true).
+ * Callers enqueue and wait; one flusher thread collects ledgers until max-batch-size is reached or flush-interval
+ * has passed since the first one arrived, then writes them with one insertMany (plus one bulk write each for
+ * balances and rollups, one Redis call for listing versions) and completes every caller in the batch.
+ * A caller's future only completes after Mongo acknowledged its batch, so the HTTP response still means "stored";
+ * derived state is updated after the callers are released (see LedgerDerivedState).
+ * It fails with a TimeoutException after commit-timeout; the ledger may still be written by a later flush.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ledger.group-commit.enabled", havingValue = "true")
+@Slf4j
+public class LedgerGroupCommitter {
+
+    private final LedgerRepository ledgerRepository;
+    private final LedgerDerivedState derivedState;
+
+    private final BlockingQueue<PendingWrite> queue;
+    private final Duration flushInterval;
+    private final int maxBatchSize;
+    private final GroupCommitBackpressure backpressure;
+    private final Duration enqueueTimeout;
+    private final Duration commitTimeout;
+
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+    private final Counter rejected;
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public LedgerGroupCommitter(LedgerRepository ledgerRepository,
+                                LedgerDerivedState derivedState,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.ledger.group-commit.queue-capacity:10000}") int queueCapacity,
+                                @Value("${app.ledger.group-commit.flush-interval:5ms}") Duration flushInterval,
+                                @Value("${app.ledger.group-commit.max-batch-size:500}") int maxBatchSize,
+                                @Value("${app.ledger.group-commit.backpressure:BLOCK}") GroupCommitBackpressure backpressure,
+                                @Value("${app.ledger.group-commit.enqueue-timeout:1s}") Duration enqueueTimeout,
+                                @Value("${app.ledger.group-commit.commit-timeout:10s}") Duration commitTimeout) {
+        this.ledgerRepository = ledgerRepository;
+        this.derivedState = derivedState;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushInterval = flushInterval;
+        this.maxBatchSize = maxBatchSize;
+        this.backpressure = backpressure;
+        this.enqueueTimeout = enqueueTimeout;
+        this.commitTimeout = commitTimeout;
+
+        this.batchSizes = DistributionSummary.builder("ledger.group_commit.batch.size")
+                .description("Ledgers written per group commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("ledger.group_commit.flush")
+                .description("Time to write one group-commit batch")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("ledger.group_commit.rejected")
+                .description("Writes refused because the group-commit queue was full")
+                .register(meterRegistry);
+        Gauge.builder("ledger.group_commit.queue.size", queue, BlockingQueue::size)
+                .description("Ledgers waiting for the next group commit")
+                .register(meterRegistry);
+
+        this.flusher = new Thread(() -> ReadConsistency.detached(this::runFlusher), "ledger-group-commit");
+        this.flusher.setDaemon(true);
+    }
+
+    @PostConstruct
+    void start() {
+        flusher.start();
+        log.info("Ledger group commit enabled [flushInterval={}, maxBatchSize={}, queueCapacity={}, backpressure={}]",
+                flushInterval, maxBatchSize, queue.remainingCapacity(), backpressure);
+    }
+
+    /**
+     * Writes the remaining queue before the context (and the Mongo client) goes away.
+     * Anything the flusher didn't get to in time is failed rather than left waiting.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+        failRemaining();
+    }
+
+    /**
+     * Queue a ledger for the next batch. The future completes once the batch containing it is stored, with the
+     * batch's consistency token (null when the server issues none), or fails with a TimeoutException after
+     * commit-timeout.
+     *
+     * @throws WriteRejectedException if the queue is full (see GroupCommitBackpressure) or the writer is stopping
+     */
+    public CompletableFuture<ConsistencyToken> submit(Ledger ledger) {
+        if (!running) {
+            throw new WriteRejectedException("Ledger writer is shutting down");
+        }
+        PendingWrite write = new PendingWrite(ledger, new CompletableFuture<>());
+        boolean accepted;
+        try {
+            accepted = backpressure == GroupCommitBackpressure.BLOCK
+                    ? queue.offer(write, enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS)
+                    : queue.offer(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            rejected.increment();
+            throw new WriteRejectedException("Too many pending ledger writes, try again later");
+        }
+        if (!running && !flusher.isAlive() && queue.remove(write)) {
+            // stop() raced this submit and the flusher has already exited, so nothing would ever write it
+            throw new WriteRejectedException("Ledger writer is shutting down");
+        }
+        return write.result().orTimeout(commitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void runFlusher() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // ⭐ The interval starts with the first ledger, so no write waits longer than flushInterval to be sent
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Only stop() ends the loop; write what was collected so no caller is left waiting
+                log.warn("Ledger group commit flusher interrupted");
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (Throwable e) {
+                // Errors too: the loop has to survive them, or every queued caller waits until its timeout
+                log.error("Ledger group commit flusher error", e);
+                batch.forEach(write -> write.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        failRemaining();
+    }
+
+    private void failRemaining() {
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.warn("Failing {} ledger writes left in the group-commit queue at shutdown", remaining.size());
+            WriteRejectedException error = new WriteRejectedException("Ledger writer is shutting down");
+            remaining.forEach(write -> write.result().completeExceptionally(error));
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        List<Ledger> ledgers = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            ledgers.add(write.ledger());
+        }
+        batchSizes.record(batch.size());
+
+        InsertResult result;
+        try {
+            result = flushTimer.record(() -> ledgerRepository.insertUnordered(ledgers));
+        } catch (Throwable e) {
+            log.error("Group commit of {} ledgers failed", batch.size(), e);
+            batch.forEach(write -> write.result().completeExceptionally(e));
+            return;
+        }
+
+        // ⭐ Callers only wait for the insert; derived state can't fail a ledger that is already stored
+        List<Ledger> written = new ArrayList<>(ledgers.size() - result.failed().size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (result.failed().contains(i)) {
+                batch.get(i).result().completeExceptionally(new IllegalStateException("Ledger could not be stored"));
+            } else {
+                written.add(ledgers.get(i));
+                batch.get(i).result().complete(result.token());
+            }
+        }
+        derivedState.apply(written);
+    }
+
+    private record PendingWrite(Ledger ledger, CompletableFuture<ConsistencyToken> result) {
+    }
+}
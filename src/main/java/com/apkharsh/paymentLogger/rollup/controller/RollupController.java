@@ -0,0 +1,36 @@
+package com.apkharsh.paymentLogger.rollup.controller;
+
+import com.apkharsh.paymentLogger.rollup.dto.RollupBucketResponse;
+import com.apkharsh.paymentLogger.rollup.enums.RollupGranularity;
+import com.apkharsh.paymentLogger.rollup.service.RollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "/rollups")
+@RequiredArgsConstructor
+public class RollupController {
+
+    private final RollupService rollupService;
+
+    /**
+     * Sent/received totals of the current user per day, month or year (UTC) for dashboard charts
+     */
+    @GetMapping
+    public ResponseEntity<List<RollupBucketResponse>> getRollups(
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+    ) {
+        return new ResponseEntity<>(rollupService.getRollups(granularity, startDate, endDate), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,35 @@
+package com.apkharsh.paymentLogger.rollup.dto;
+
+import com.apkharsh.paymentLogger.rollup.enums.RollupGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupBucketResponse {
+
+    private RollupGranularity granularity;
+
+    /**
+     * First UTC day of the bucket
+     */
+    private LocalDate bucketStart;
+
+    private BigDecimal sent;
+    private BigDecimal received;
+
+    /**
+     * sent - received, the same sign as BalanceResponse.net: positive means the user paid out more than they took in
+     */
+    private BigDecimal net;
+
+    private long sentCount;
+    private long receivedCount;
+}
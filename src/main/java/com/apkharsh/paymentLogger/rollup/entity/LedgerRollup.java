@@ -0,0 +1,57 @@
+package com.apkharsh.paymentLogger.rollup.entity;
+
+import com.apkharsh.paymentLogger.rollup.enums.RollupGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Per-user totals for one UTC day or month, maintained with $inc on every ledger write
+ */
+@Document(collection = "ledger_rollups")
+@CompoundIndex(name = "user_granularity_bucket_idx", def = "{'userId': 1, 'granularity': 1, 'bucketStart': 1}")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerRollup {
+
+    /**
+     * userId:GRANULARITY:bucketStartDate, so an upsert targets the _id index directly
+     */
+    @Id
+    private String id;
+
+    private String userId;
+
+    private RollupGranularity granularity;
+
+    /**
+     * First instant of the bucket (UTC midnight)
+     */
+    private Instant bucketStart;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal sent;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal received;
+
+    private long sentCount;
+
+    private long receivedCount;
+
+    public static String idOf(String userId, RollupGranularity granularity, LocalDate bucketStart) {
+        return userId + ":" + granularity + ":" + bucketStart;
+    }
+}
@@ -0,0 +1,10 @@
+package com.apkharsh.paymentLogger.rollup.enums;
+
+/**
+ * DAY and MONTH buckets are stored; YEAR is derived from MONTH buckets at query time
+ */
+public enum RollupGranularity {
+    DAY,
+    MONTH,
+    YEAR
+}
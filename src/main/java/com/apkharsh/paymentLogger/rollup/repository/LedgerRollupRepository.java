@@ -0,0 +1,21 @@
+package com.apkharsh.paymentLogger.rollup.repository;
+
+import com.apkharsh.paymentLogger.rollup.entity.LedgerRollup;
+import com.apkharsh.paymentLogger.rollup.enums.RollupGranularity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface LedgerRollupRepository extends MongoRepository<LedgerRollup, String> {
+
+    /**
+     * Buckets whose start lies in [from, to], both inclusive
+     */
+    @Query(value = "{ 'userId': ?0, 'granularity': ?1, 'bucketStart': { $gte: ?2, $lte: ?3 } }",
+            sort = "{ 'bucketStart': 1 }")
+    List<LedgerRollup> findBuckets(String userId, RollupGranularity granularity, Instant from, Instant to);
+}
@@ -0,0 +1,30 @@
+package com.apkharsh.paymentLogger.rollup.runner;
+
+import com.apkharsh.paymentLogger.rollup.service.RollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds ledger_rollups from ledgers at startup, e.g.
+ * java -jar app.jar --app.rollups.rebuild=true
+ */
+@Component
+@ConditionalOnProperty(name = "app.rollups.rebuild", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class RollupRebuildRunner implements ApplicationRunner {
+
+    private final RollupService rollupService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Rebuilding ledger rollups from ledgers");
+        long started = System.currentTimeMillis();
+        rollupService.rebuild();
+        log.info("Ledger rollups rebuilt in {} ms", System.currentTimeMillis() - started);
+    }
+}
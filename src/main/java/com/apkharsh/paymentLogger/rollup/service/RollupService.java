@@ -0,0 +1,26 @@
+package com.apkharsh.paymentLogger.rollup.service;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.rollup.dto.RollupBucketResponse;
+import com.apkharsh.paymentLogger.rollup.enums.RollupGranularity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RollupService {
+
+    /**
+     * Fold freshly written ledgers into the day and month buckets of both participants (one bulk round trip)
+     */
+    void applyLedgers(List<Ledger> ledgers);
+
+    /**
+     * Non-empty buckets of the current user between startDate and endDate (inclusive, UTC), oldest first
+     */
+    List<RollupBucketResponse> getRollups(RollupGranularity granularity, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Recompute every bucket from the ledgers collection and the cold tier
+     */
+    void rebuild();
+}
@@ -0,0 +1,283 @@
+package com.apkharsh.paymentLogger.rollup.service.impl;
+
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.entity.LedgerFields;
+import com.apkharsh.paymentLogger.ledger.migration.LegacyLedgerFormat;
+import com.apkharsh.paymentLogger.ledger.tiering.LedgerColdAggregator;
+import com.apkharsh.paymentLogger.rollup.dto.RollupBucketResponse;
+import com.apkharsh.paymentLogger.rollup.entity.LedgerRollup;
+import com.apkharsh.paymentLogger.rollup.enums.RollupGranularity;
+import com.apkharsh.paymentLogger.rollup.repository.LedgerRollupRepository;
+import com.apkharsh.paymentLogger.rollup.service.RollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static com.apkharsh.paymentLogger.security.util.SecurityUtils.getCurrentUserId;
+
+/**
+ * Only DAY and MONTH buckets are written. A MONTH query reads MONTH documents for the months fully inside the
+ * range and DAY documents for the partial months at either edge; YEAR groups that result by year. So any range
+ * touches at most ~12 documents per year plus ~60 edge days.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RollupServiceImpl implements RollupService {
+
+    private static final int REBUILD_BULK_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final LedgerRollupRepository rollupRepository;
+    private final LedgerColdAggregator coldAggregator;
+    private final LegacyLedgerFormat legacyFormat;
+
+    @Value("${app.rollups.max-day-buckets:366}")
+    private int maxDayBuckets;
+
+    @Override
+    public void applyLedgers(List<Ledger> ledgers) {
+        if (ledgers.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LedgerRollup.class);
+        for (Ledger ledger : ledgers) {
+            LocalDate day = LocalDate.ofInstant(ledger.getTimestamp(), ZoneOffset.UTC);
+            addUpserts(bulk, ledger.getPayerId(), ledger.getPayeeId(), day, new Decimal128(ledger.getAmount()), 1);
+        }
+        bulk.execute();
+    }
+
+    /**
+     * One streamed $group per payer, payee and UTC day over the ledgers collection, $inc'ed into the DAY and MONTH
+     * buckets like applyLedgers does; ledgers in the cold tier are folded in afterwards (see rebuildCold).
+     * The stages are raw so documents still in the long-key format are counted too (see LegacyLedgerFormat).
+     * Writes that land while the rebuild runs may be counted twice or not at all; run it while ingestion is paused.
+     */
+    @Override
+    public void rebuild() {
+        mongoTemplate.remove(new Query(), LedgerRollup.class);
+
+        List<AggregationOperation> stages = new ArrayList<>(legacyFormat.normalizeStages());
+        stages.add(context -> new Document("$match", new Document()
+                .append(LedgerFields.PAYER, new Document("$type", "string"))
+                .append(LedgerFields.PAYEE, new Document("$type", "string"))
+                .append(LedgerFields.AMOUNT, new Document("$ne", null))
+                .append(LedgerFields.TIMESTAMP, new Document("$type", "date"))));
+        stages.add(context -> new Document("$group", new Document()
+                .append("_id", new Document("payerId", "$" + LedgerFields.PAYER)
+                        .append("payeeId", "$" + LedgerFields.PAYEE)
+                        .append("day", new Document("$dateToString", new Document("format", "%Y-%m-%d")
+                                .append("date", "$" + LedgerFields.TIMESTAMP).append("timezone", "UTC"))))
+                .append("total", new Document("$sum", new Document("$toDecimal", "$" + LedgerFields.AMOUNT)))
+                .append("count", new Document("$sum", 1))));
+        Aggregation aggregation = Aggregation.newAggregation(stages)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        long groups = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LedgerRollup.class);
+        int pending = 0;
+        try (Stream<Document> rows = mongoTemplate.aggregateStream(aggregation, mongoTemplate.getCollectionName(Ledger.class), Document.class)) {
+            for (Document row : (Iterable<Document>) rows::iterator) {
+                Document key = row.get("_id", Document.class);
+                addUpserts(bulk, key.getString("payerId"), key.getString("payeeId"), LocalDate.parse(key.getString("day")),
+                        row.get("total", Decimal128.class), row.get("count", Number.class).longValue());
+                groups++;
+                if (++pending == REBUILD_BULK_SIZE) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LedgerRollup.class);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+        long coldGroups = rebuildCold();
+        log.info("Rollup rebuild finished [payerPayeeDays={}, coldPayerPayeeDays={}]", groups, coldGroups);
+    }
+
+    /**
+     * Sums the cold tier per payer, payee and day and $inc's it into the buckets.
+     * The sums come in bounded chunks, and rows still in Mongo are skipped (see LedgerColdAggregator).
+     */
+    private long rebuildCold() {
+        return coldAggregator.sum(ledger -> new DayPair(ledger.getPayerId(), ledger.getPayeeId(),
+                LocalDate.ofInstant(ledger.getTimestamp(), ZoneOffset.UTC)), chunk -> {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LedgerRollup.class);
+            chunk.forEach((key, totals) ->
+                    addUpserts(bulk, key.payerId(), key.payeeId(), key.day(), new Decimal128(totals.amount()), totals.count()));
+            bulk.execute();
+        });
+    }
+
+    @Override
+    public List<RollupBucketResponse> getRollups(RollupGranularity granularity, LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new ValidationException("A valid startDate and endDate are required");
+        }
+        String userId = getCurrentUserId();
+
+        return switch (granularity) {
+            case DAY -> {
+                long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+                if (days > maxDayBuckets) {
+                    throw new ValidationException("DAY granularity supports at most " + maxDayBuckets + " days; use MONTH or YEAR");
+                }
+                Map<LocalDate, Totals> buckets = new TreeMap<>();
+                for (LedgerRollup rollup : findBuckets(userId, RollupGranularity.DAY, startDate, endDate)) {
+                    buckets.computeIfAbsent(bucketDate(rollup), key -> new Totals()).add(rollup);
+                }
+                yield toResponses(RollupGranularity.DAY, buckets);
+            }
+            case MONTH -> toResponses(RollupGranularity.MONTH, monthBuckets(userId, startDate, endDate));
+            case YEAR -> {
+                Map<LocalDate, Totals> years = new TreeMap<>();
+                monthBuckets(userId, startDate, endDate).forEach((month, totals) ->
+                        years.computeIfAbsent(month.withDayOfYear(1), key -> new Totals()).add(totals));
+                yield toResponses(RollupGranularity.YEAR, years);
+            }
+        };
+    }
+
+    private Map<LocalDate, Totals> monthBuckets(String userId, LocalDate startDate, LocalDate endDate) {
+        LocalDate firstFullMonth = startDate.getDayOfMonth() == 1
+                ? startDate
+                : startDate.withDayOfMonth(1).plusMonths(1);
+        LocalDate lastFullMonth = endDate.getDayOfMonth() == endDate.lengthOfMonth()
+                ? endDate.withDayOfMonth(1)
+                : endDate.withDayOfMonth(1).minusMonths(1);
+
+        List<LedgerRollup> rollups = new ArrayList<>();
+        if (firstFullMonth.isAfter(lastFullMonth)) {
+            // No complete month in range: at most two partial months of days
+            rollups.addAll(findBuckets(userId, RollupGranularity.DAY, startDate, endDate));
+        } else {
+            if (startDate.isBefore(firstFullMonth)) {
+                rollups.addAll(findBuckets(userId, RollupGranularity.DAY, startDate, firstFullMonth.minusDays(1)));
+            }
+            rollups.addAll(findBuckets(userId, RollupGranularity.MONTH, firstFullMonth, lastFullMonth));
+            LocalDate afterLastFullMonth = lastFullMonth.plusMonths(1);
+            if (!endDate.isBefore(afterLastFullMonth)) {
+                rollups.addAll(findBuckets(userId, RollupGranularity.DAY, afterLastFullMonth, endDate));
+            }
+        }
+
+        Map<LocalDate, Totals> months = new TreeMap<>();
+        for (LedgerRollup rollup : rollups) {
+            months.computeIfAbsent(bucketDate(rollup).withDayOfMonth(1), key -> new Totals()).add(rollup);
+        }
+        return months;
+    }
+
+    private List<LedgerRollup> findBuckets(String userId, RollupGranularity granularity, LocalDate from, LocalDate to) {
+        return rollupRepository.findBuckets(userId, granularity, startOfDay(from), startOfDay(to));
+    }
+
+    /**
+     * Adds {@code count} ledgers totalling {@code amount} from payer to payee on {@code day} to the DAY and MONTH buckets
+     */
+    private void addUpserts(BulkOperations bulk, String payerId, String payeeId, LocalDate day, Decimal128 amount, long count) {
+        addUpserts(bulk, payerId, payeeId, RollupGranularity.DAY, day, amount, count);
+        addUpserts(bulk, payerId, payeeId, RollupGranularity.MONTH, day.withDayOfMonth(1), amount, count);
+    }
+
+    private void addUpserts(BulkOperations bulk, String payerId, String payeeId, RollupGranularity granularity,
+                            LocalDate bucket, Decimal128 amount, long count) {
+        if (Objects.equals(payerId, payeeId)) {
+            bulk.upsert(byId(payerId, granularity, bucket), bucketUpdate(payerId, granularity, bucket)
+                    .inc("sent", amount).inc("sentCount", count)
+                    .inc("received", amount).inc("receivedCount", count));
+            return;
+        }
+        bulk.upsert(byId(payerId, granularity, bucket), bucketUpdate(payerId, granularity, bucket)
+                .inc("sent", amount).inc("sentCount", count));
+        bulk.upsert(byId(payeeId, granularity, bucket), bucketUpdate(payeeId, granularity, bucket)
+                .inc("received", amount).inc("receivedCount", count));
+    }
+
+    private Query byId(String userId, RollupGranularity granularity, LocalDate bucket) {
+        return Query.query(Criteria.where("_id").is(LedgerRollup.idOf(userId, granularity, bucket)));
+    }
+
+    private Update bucketUpdate(String userId, RollupGranularity granularity, LocalDate bucket) {
+        return new Update()
+                .setOnInsert("userId", userId)
+                .setOnInsert("granularity", granularity)
+                .setOnInsert("bucketStart", startOfDay(bucket));
+    }
+
+    private List<RollupBucketResponse> toResponses(RollupGranularity granularity, Map<LocalDate, Totals> buckets) {
+        List<RollupBucketResponse> responses = new ArrayList<>(buckets.size());
+        buckets.forEach((bucketStart, totals) -> responses.add(RollupBucketResponse.builder()
+                .granularity(granularity)
+                .bucketStart(bucketStart)
+                .sent(totals.sent)
+                .received(totals.received)
+                .net(totals.sent.subtract(totals.received))
+                .sentCount(totals.sentCount)
+                .receivedCount(totals.receivedCount)
+                .build()));
+        return responses;
+    }
+
+    private static LocalDate bucketDate(LedgerRollup rollup) {
+        return LocalDate.ofInstant(rollup.getBucketStart(), ZoneOffset.UTC);
+    }
+
+    private static Instant startOfDay(LocalDate date) {
+        return date.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    private record DayPair(String payerId, String payeeId, LocalDate day) {
+    }
+
+    private static class Totals {
+        private BigDecimal sent = BigDecimal.ZERO;
+        private BigDecimal received = BigDecimal.ZERO;
+        private long sentCount;
+        private long receivedCount;
+
+        void add(LedgerRollup rollup) {
+            if (rollup.getSent() != null) {
+                sent = sent.add(rollup.getSent());
+            }
+            if (rollup.getReceived() != null) {
+                received = received.add(rollup.getReceived());
+            }
+            sentCount += rollup.getSentCount();
+            receivedCount += rollup.getReceivedCount();
+        }
+
+        void add(Totals other) {
+            sent = sent.add(other.sent);
+            received = received.add(other.received);
+            sentCount += other.sentCount;
+            receivedCount += other.receivedCount;
+        }
+    }
+}
@@ -32,25 +32,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
-        String token = null;
-
-        // ⭐ Strategy 1: Try to get token from HttpOnly cookie (preferred for web)
-        if (request.getCookies() != null) {
-            for (Cookie cookie : request.getCookies()) {
-                if ("accessToken".equals(cookie.getName())) {
-                    token = cookie.getValue();
-                    break;
-                }
-            }
-        }
-
-        // ⭐ Strategy 2: Fallback to Authorization header (for mobile apps/API clients)
-        if (token == null) {
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                token = authHeader.substring(7);
-            }
-        }
+        String token = resolveToken(request);
 
         // No token found, continue without authentication
         if (token == null) {
@@ -98,4 +80,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Access token from the accessToken cookie, else from a Bearer Authorization header, or null
+     */
+    static String resolveToken(HttpServletRequest request) {
+        // ⭐ Strategy 1: Try to get token from HttpOnly cookie (preferred for web)
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if ("accessToken".equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+
+        // ⭐ Strategy 2: Fallback to Authorization header (for mobile apps/API clients)
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return null;
+    }
 }
@@ -0,0 +1,65 @@
+package com.apkharsh.paymentLogger.user.cache;
+
+import com.apkharsh.paymentLogger.user.dto.UserInfo;
+import com.apkharsh.paymentLogger.user.entity.User;
+import com.apkharsh.paymentLogger.user.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded in-process cache of the user fields shown next to a ledger (id, name, email).
+ * Replaces the per-row $lookup into users on ledger reads; misses are loaded with one $in query.
+ * <p>
+ * Entries are evicted on local User saves/deletes (see UserInfoCacheInvalidationListener);
+ * the TTL bounds staleness when another instance changed the user.
+ */
+@Component
+@Slf4j
+public class UserInfoCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserInfo> cache;
+
+    public UserInfoCache(UserRepository userRepository,
+                         @Value("${app.cache.user-info.max-size:10000}") long maxSize,
+                         @Value("${app.cache.user-info.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        log.info("UserInfo cache initialized [maxSize={}, ttl={}]", maxSize, ttl);
+    }
+
+    /**
+     * Users that don't exist are simply absent from the result
+     */
+    public Map<String, UserInfo> getAll(Collection<String> userIds) {
+        return cache.getAll(userIds, this::loadAll);
+    }
+
+    public void invalidate(String userId) {
+        cache.invalidate(userId);
+    }
+
+    private Map<String, UserInfo> loadAll(Set<? extends String> userIds) {
+        Map<String, UserInfo> loaded = new HashMap<>();
+        for (User user : userRepository.findUserInfoByIdIn(Set.copyOf(userIds))) {
+            loaded.put(user.getId(), UserInfo.builder()
+                    .id(user.getId())
+                    .name(user.getName())
+                    .email(user.getEmail())
+                    .build());
+        }
+        return loaded;
+    }
+}
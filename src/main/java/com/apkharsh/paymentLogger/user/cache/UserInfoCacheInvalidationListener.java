@@ -0,0 +1,31 @@
+package com.apkharsh.paymentLogger.user.cache;
+
+import com.apkharsh.paymentLogger.user.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts cached UserInfo whenever a User is written through the repository / template
+ */
+@Component
+@RequiredArgsConstructor
+public class UserInfoCacheInvalidationListener extends AbstractMongoEventListener<User> {
+
+    private final UserInfoCache userInfoCache;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        userInfoCache.invalidate(event.getSource().getId());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        Object id = event.getSource().get("_id");
+        if (id != null) {
+            userInfoCache.invalidate(id.toString());
+        }
+    }
+}
@@ -2,8 +2,11 @@ package com.apkharsh.paymentLogger.user.repository;
 
 import com.apkharsh.paymentLogger.user.entity.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +16,10 @@ public interface UserRepository extends MongoRepository<User, String> {
 
     Optional<User> findByEmail(String email);
 
+    /**
+     * Only the fields needed for UserInfo; password and role are left null
+     */
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ 'name': 1, 'email': 1 }")
+    List<User> findUserInfoByIdIn(Collection<String> ids);
+
 }
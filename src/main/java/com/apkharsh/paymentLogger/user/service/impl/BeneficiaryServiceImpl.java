@@ -2,27 +2,34 @@ package com.apkharsh.paymentLogger.user.service.impl;
 
 import com.apkharsh.paymentLogger.beneficiery.entity.Beneficiary;
 import com.apkharsh.paymentLogger.beneficiery.repository.BeneficiaryRepository;
+import com.apkharsh.paymentLogger.consistency.ReplicaReads;
 import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.apkharsh.paymentLogger.id.IdGenerator;
 import com.apkharsh.paymentLogger.user.dto.BeneficiaryEnrollRequest;
 import com.apkharsh.paymentLogger.user.dto.BeneficiaryEnrollResponse;
 import com.apkharsh.paymentLogger.user.entity.User;
 import com.apkharsh.paymentLogger.user.repository.UserRepository;
 import com.apkharsh.paymentLogger.user.service.BeneficiaryService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 import static com.apkharsh.paymentLogger.security.util.SecurityUtils.getCurrentUserId;
 
 @Service
+@Timed(value = "beneficiary.service", histogram = true)
 @RequiredArgsConstructor
 public class BeneficiaryServiceImpl implements BeneficiaryService {
 
     private final BeneficiaryRepository beneficiaryRepository;
     private final UserRepository userRepository;
+    private final IdGenerator idGenerator;
+    private final ReplicaReads replicaReads;
 
     @Override
     public BeneficiaryEnrollResponse beneficiaryEnroll(BeneficiaryEnrollRequest request) {
@@ -44,7 +51,7 @@ public class BeneficiaryServiceImpl implements BeneficiaryService {
         }
 
         Beneficiary beneficiary = Beneficiary.builder()
-                .id(UUID.randomUUID().toString())
+                .id(idGenerator.newId())
                 .payerId(payerId)
                 .payeeId(payeeId)
                 .payeeAlias(request.getPayeeAlias())
@@ -55,9 +62,14 @@ public class BeneficiaryServiceImpl implements BeneficiaryService {
         return buildPayerEnrollSuccessResponse(request);
     }
 
+    /**
+     * Read through ReplicaReads, so it may be served by a secondary
+     */
     @Override
     public List<Beneficiary> getBeneficiaries(String payerId) {
-        return beneficiaryRepository.getBeneficiariesByPayerId(payerId).orElse(List.of());
+        try (ReplicaReads.Scope reads = replicaReads.open()) {
+            return reads.template().find(Query.query(Criteria.where("payerId").is(payerId)), Beneficiary.class);
+        }
     }
 
     private BeneficiaryEnrollResponse buildPayerEnrollSuccessResponse(BeneficiaryEnrollRequest request) {
@@ -0,0 +1,185 @@
+package com.apkharsh.paymentLogger.balance.service.impl;
+
+import com.apkharsh.paymentLogger.balance.cache.CounterpartySummaryCache;
+import com.apkharsh.paymentLogger.balance.dto.BalanceResponse;
+import com.apkharsh.paymentLogger.balance.entity.CounterpartyBalance;
+import com.apkharsh.paymentLogger.balance.repository.CounterpartyBalanceRepository;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.migration.LegacyLedgerFormat;
+import com.apkharsh.paymentLogger.ledger.repository.LedgerRepository;
+import com.apkharsh.paymentLogger.ledger.tiering.LedgerColdAggregator;
+import com.apkharsh.paymentLogger.ledger.tiering.LedgerSegmentStore;
+import com.apkharsh.paymentLogger.security.UserPrincipal;
+import com.apkharsh.paymentLogger.user.cache.UserInfoCache;
+import com.apkharsh.paymentLogger.user.dto.UserInfo;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BalanceServiceImplTest {
+
+    private static final Instant NOW = Instant.parse("2024-03-15T10:00:00Z");
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CounterpartyBalanceRepository balanceRepository = mock(CounterpartyBalanceRepository.class);
+    private final UserInfoCache userInfoCache = mock(UserInfoCache.class);
+    private final CounterpartySummaryCache summaryCache = mock(CounterpartySummaryCache.class);
+    private final LedgerRepository ledgerRepository = mock(LedgerRepository.class);
+    private final LedgerSegmentStore segmentStore = mock(LedgerSegmentStore.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final BalanceServiceImpl service = new BalanceServiceImpl(mongoTemplate, balanceRepository, userInfoCache,
+            summaryCache, ledgerRepository, segmentStore, mock(LedgerColdAggregator.class), mock(LegacyLedgerFormat.class));
+
+    /**
+     * Upserts handed to the bulk, by document id
+     */
+    private final Map<String, Document> upserts = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxSummaryLimit", 100);
+        UserPrincipal principal = new UserPrincipal("alice", "alice@example.com", List.of());
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(CounterpartyBalance.class))).thenReturn(bulk);
+        when(bulk.upsert(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            Update update = invocation.getArgument(1);
+            assertNull(upserts.put(query.getQueryObject().getString("_id"), update.getUpdateObject()), "one upsert per pair");
+            return bulk;
+        });
+        when(userInfoCache.getAll(anyCollection())).thenReturn(Map.of());
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void addsSentToThePayerAndReceivedToThePayee() {
+        service.applyLedgers(List.of(ledger("alice", "bob", "12.50")));
+
+        assertEquals(2, upserts.size());
+        assertIncrements("alice", "bob", Map.of("sent", "12.50"));
+        assertIncrements("bob", "alice", Map.of("received", "12.50"));
+        verify(bulk).execute();
+        verify(summaryCache).invalidateUser("alice");
+        verify(summaryCache).invalidateUser("bob");
+    }
+
+    @Test
+    void countsASelfPaymentAsSentAndReceivedOnOneDocument() {
+        service.applyLedgers(List.of(ledger("alice", "alice", "5")));
+
+        assertEquals(1, upserts.size());
+        assertIncrements("alice", "alice", Map.of("sent", "5", "received", "5"));
+        verify(summaryCache).invalidateUser("alice");
+    }
+
+    @Test
+    void writesNothingForNoLedgers() {
+        service.applyLedgers(List.of());
+
+        verifyNoInteractions(mongoTemplate, summaryCache);
+    }
+
+    @Test
+    void reportsNetAsSentMinusReceived() {
+        when(balanceRepository.findByUserIdOrderByLastTimestampDesc("alice")).thenReturn(List.of(
+                balance("bob", "100", "30"),
+                balance("carol", "10", "25"),
+                balance("dave", null, "8")));
+        when(userInfoCache.getAll(List.of("bob", "carol", "dave")))
+                .thenReturn(Map.of("bob", UserInfo.builder().id("bob").name("Bob").build()));
+
+        List<BalanceResponse> balances = service.getBalances();
+
+        assertEquals(0, new BigDecimal("70").compareTo(balances.get(0).getNet()));
+        assertEquals("Bob", balances.get(0).getCounterparty().getName());
+        assertEquals(0, new BigDecimal("-15").compareTo(balances.get(1).getNet()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(balances.get(2).getSent()));
+        assertEquals(0, new BigDecimal("-8").compareTo(balances.get(2).getNet()));
+    }
+
+    @Test
+    void summarizesAcrossTiersWithTheSameSignAndSelfPayments() {
+        // A range reaching the cold tier is summed in memory from the merged stream
+        when(segmentStore.reaches(any())).thenReturn(true);
+        when(ledgerRepository.streamLedgers(eq("alice"), any(), any())).thenReturn(Stream.of(
+                ledger("alice", "bob", "40"),
+                ledger("bob", "alice", "15"),
+                ledger("alice", "alice", "5")));
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        List<BalanceResponse> summary = service.getCounterpartySummary(today.minusDays(30), today, 10);
+
+        assertEquals(List.of("bob", "alice"), summary.stream().map(BalanceResponse::getCounterpartyId).toList());
+        BalanceResponse bob = summary.get(0);
+        assertEquals(0, new BigDecimal("40").compareTo(bob.getSent()));
+        assertEquals(0, new BigDecimal("15").compareTo(bob.getReceived()));
+        assertEquals(0, new BigDecimal("25").compareTo(bob.getNet()));
+        assertEquals(2, bob.getLedgerCount());
+        BalanceResponse self = summary.get(1);
+        assertEquals(0, new BigDecimal("5").compareTo(self.getSent()));
+        assertEquals(0, new BigDecimal("5").compareTo(self.getReceived()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(self.getNet()));
+        assertEquals(1, self.getLedgerCount());
+    }
+
+    private void assertIncrements(String userId, String counterpartyId, Map<String, String> expected) {
+        Document update = upserts.get(CounterpartyBalance.idOf(userId, counterpartyId));
+        assertNotNull(update, userId + " -> " + counterpartyId);
+        Document inc = update.get("$inc", Document.class);
+        assertEquals(1L, inc.get("ledgerCount"));
+        expected.forEach((key, amount) -> assertEquals(new Decimal128(new BigDecimal(amount)), inc.get(key), key));
+        assertEquals(expected.size() + 1, inc.size());
+        Document onInsert = update.get("$setOnInsert", Document.class);
+        assertEquals(userId, onInsert.get("userId"));
+        assertEquals(counterpartyId, onInsert.get("counterpartyId"));
+    }
+
+    private static CounterpartyBalance balance(String counterpartyId, String sent, String received) {
+        return CounterpartyBalance.builder()
+                .id(CounterpartyBalance.idOf("alice", counterpartyId))
+                .userId("alice")
+                .counterpartyId(counterpartyId)
+                .sent(sent != null ? new BigDecimal(sent) : null)
+                .received(received != null ? new BigDecimal(received) : null)
+                .ledgerCount(1)
+                .lastTimestamp(NOW)
+                .build();
+    }
+
+    private static Ledger ledger(String payerId, String payeeId, String amount) {
+        Ledger ledger = new Ledger();
+        ledger.setPayerId(payerId);
+        ledger.setPayeeId(payeeId);
+        ledger.setAmount(new BigDecimal(amount));
+        ledger.setTimestamp(NOW);
+        return ledger;
+    }
+}
@@ -0,0 +1,84 @@
+package com.apkharsh.paymentLogger.category.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordMatcherTest {
+
+    @Test
+    void prefersTheLongestOfOverlappingKeywords() {
+        KeywordMatcher matcher = KeywordMatcher.compile(Map.of(
+                "pay rent", "Housing",
+                "rent deposit", "Deposit"));
+
+        // "rent deposit" is only reached through the failure link out of "pay rent"
+        assertEquals("Deposit", matcher.match("pay rent deposit"));
+        assertEquals("Housing", matcher.match("pay rent today"));
+    }
+
+    @Test
+    void breaksLengthTiesByWhicheverEndsFirst() {
+        KeywordMatcher matcher = KeywordMatcher.compile(Map.of("uber", "Transport", "lyft", "Rideshare"));
+
+        assertEquals("Transport", matcher.match("uber then lyft"));
+        assertEquals("Rideshare", matcher.match("lyft then uber"));
+    }
+
+    @Test
+    void matchesAKeywordThatPrefixesAnother() {
+        KeywordMatcher matcher = KeywordMatcher.compile(Map.of("coffee", "Cafe", "coffee beans", "Groceries"));
+
+        assertEquals("Groceries", matcher.match("coffee beans 1kg"));
+        assertEquals("Cafe", matcher.match("coffee shop"));
+        assertEquals("Cafe", matcher.match("coffee bean"));
+    }
+
+    @Test
+    void matchesAKeywordThatSuffixesAnother() {
+        KeywordMatcher matcher = KeywordMatcher.compile(Map.of(
+                "card fee", "Card",
+                "fee", "Fees",
+                "gym fee refund", "Refund"));
+
+        assertEquals("Card", matcher.match("annual card fee"));
+        assertEquals("Fees", matcher.match("late fee"));
+        // Stops partway along "gym fee refund", so "fee" is only found through the output link
+        assertEquals("Fees", matcher.match("gym fee"));
+        assertEquals("Refund", matcher.match("gym fee refund"));
+    }
+
+    @Test
+    void onlyMatchesWholeWords() {
+        KeywordMatcher matcher = KeywordMatcher.compile(Map.of("rent", "Housing"));
+
+        assertEquals("Housing", matcher.match("Rent - May"));
+        assertEquals("Housing", matcher.match("rent."));
+        assertNull(matcher.match("parent"));
+        assertNull(matcher.match("rental"));
+        assertNull(matcher.match("rent2"));
+    }
+
+    @Test
+    void foldsCaseOnBothSides() {
+        KeywordMatcher matcher = KeywordMatcher.compile(Map.of("  NetFlix ", "Entertainment"));
+
+        assertEquals("Entertainment", matcher.match("netflix subscription"));
+        assertEquals("Entertainment", matcher.match("NETFLIX"));
+        assertEquals("netflix", KeywordMatcher.normalize("  NetFlix "));
+    }
+
+    @Test
+    void handlesEmptyInputAndKeywords() {
+        KeywordMatcher matcher = KeywordMatcher.compile(Map.of("rent", "Housing", "   ", "Blank"));
+
+        assertNull(matcher.match(""));
+        assertNull(matcher.match(null));
+        assertNull(matcher.match("   "));
+        assertNull(KeywordMatcher.EMPTY.match("rent"));
+        assertNull(KeywordMatcher.compile(Map.of()).match("anything"));
+        assertEquals("", KeywordMatcher.normalize(null));
+    }
+}
@@ -0,0 +1,152 @@
+package com.apkharsh.paymentLogger.config;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Thousands of concurrent slow requests (each blocks for SLOW_MILLIS, standing in for a slow Mongo, Redis or SMTP
+ * call) against Tomcat on platform threads (default pool of 200) and on virtual threads, reporting throughput,
+ * p50/p99 latency and failures. Fails if requests weren't handled on the thread type under test or any request
+ * failed, and if virtual threads couldn't keep p50 near SLOW_MILLIS (every request gets its own thread).
+ * <p>
+ * Starts the application twice without touching Mongo or Redis, so it only needs to be switched on, e.g.
+ * BENCHMARK_VIRTUAL_THREADS=true ./mvnw test -Dtest=VirtualThreadRequestBenchmark
+ * <p>
+ * The client runs in the same JVM, so use a machine with several cores; on one core both variants are CPU-bound
+ * long before the platform pool is exhausted.
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_VIRTUAL_THREADS", matches = "true")
+class VirtualThreadRequestBenchmark {
+
+    private static final int CONCURRENT_REQUESTS = 2000;
+    private static final int REQUESTS_PER_CLIENT = 3;
+    private static final int SLOW_MILLIS = 500;
+
+    /**
+     * Test logging is DEBUG for web and security, which would measure the console instead of the thread model
+     */
+    private static final String QUIET_WEB_LOGGING = "logging.level.org.springframework.web=INFO";
+    private static final String QUIET_SECURITY_LOGGING = "logging.level.org.springframework.security=INFO";
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"spring.threads.virtual.enabled=false", QUIET_WEB_LOGGING, QUIET_SECURITY_LOGGING})
+    @Import(SlowController.class)
+    class PlatformThreads {
+
+        @LocalServerPort
+        int port;
+
+        @Test
+        void slowRequests() throws Exception {
+            run("platform", false, port);
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"spring.threads.virtual.enabled=true", QUIET_WEB_LOGGING, QUIET_SECURITY_LOGGING})
+    @Import(SlowController.class)
+    class VirtualThreads {
+
+        @LocalServerPort
+        int port;
+
+        @Test
+        void slowRequests() throws Exception {
+            run("virtual", true, port);
+        }
+    }
+
+    private static void run(String variant, boolean virtual, int port) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        // /api/test/** is public, so requests skip JWT parsing and only measure request handling
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/test/slow?millis=" + SLOW_MILLIS))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        assertEquals(String.valueOf(virtual), client.send(request, HttpResponse.BodyHandlers.ofString()).body(),
+                "request should run on a " + variant + " thread");
+
+        long[] latencies = new long[CONCURRENT_REQUESTS * REQUESTS_PER_CLIENT];
+        AtomicInteger failed = new AtomicInteger();
+        long started = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>(CONCURRENT_REQUESTS);
+            for (int c = 0; c < CONCURRENT_REQUESTS; c++) {
+                int offset = c * REQUESTS_PER_CLIENT;
+                running.add(clients.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        long start = System.nanoTime();
+                        try {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                failed.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                        latencies[offset + i] = System.nanoTime() - start;
+                    }
+                }));
+            }
+            for (Future<?> future : running) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("%n%-9s %6d concurrent x %d requests of %d ms: %8.0f req/s, p50 %7.1f ms, p99 %7.1f ms, failed %d%n",
+                variant, CONCURRENT_REQUESTS, REQUESTS_PER_CLIENT, SLOW_MILLIS, latencies.length / seconds,
+                percentile(latencies, 50), percentile(latencies, 99), failed.get());
+
+        assertEquals(0, failed.get(), "failed requests");
+        if (virtual) {
+            assertTrue(percentile(latencies, 50) < 2 * SLOW_MILLIS,
+                    "virtual threads should not queue requests, p50 was " + percentile(latencies, 50) + " ms");
+        }
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    @RestController
+    static class SlowController {
+
+        /**
+         * @return whether the request ran on a virtual thread
+         */
+        @GetMapping("/api/test/slow")
+        String slow(@RequestParam int millis) throws InterruptedException {
+            Thread.sleep(millis);
+            return String.valueOf(Thread.currentThread().isVirtual());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.apkharsh.paymentLogger.consistency;
+
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistencyTokenTest {
+
+    private static final BsonTimestamp OPERATION_TIME = new BsonTimestamp(1_700_000_000, 7);
+
+    @Test
+    void roundTripsThroughAUrlSafeString() {
+        String encoded = new ConsistencyToken(OPERATION_TIME).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+        assertEquals(new ConsistencyToken(OPERATION_TIME), ConsistencyToken.decode(encoded));
+    }
+
+    @Test
+    void ignoresTheClusterTimeOfAnOlderToken() {
+        BsonDocument clusterTime = new BsonDocument("clusterTime", OPERATION_TIME)
+                .append("signature", new BsonDocument("keyId", new BsonInt64(1)));
+        String encoded = encode(new BsonDocument("o", OPERATION_TIME).append("c", clusterTime));
+
+        assertEquals(new ConsistencyToken(OPERATION_TIME), ConsistencyToken.decode(encoded));
+    }
+
+    @Test
+    void rejectsTokensThatAreNotBase64() {
+        assertInvalid("not a token!");
+        assertInvalid("a+b/");
+        assertInvalid("");
+        assertInvalid(null);
+    }
+
+    @Test
+    void rejectsTokensThatAreNotBson() {
+        assertInvalid(Base64.getUrlEncoder().encodeToString("hello".getBytes()));
+        assertInvalid(Base64.getUrlEncoder().encodeToString(new byte[]{5, 0, 0, 0}));
+    }
+
+    @Test
+    void rejectsATruncatedDocument() {
+        byte[] raw = Base64.getUrlDecoder().decode(new ConsistencyToken(OPERATION_TIME).encode());
+
+        assertInvalid(Base64.getUrlEncoder().encodeToString(Arrays.copyOf(raw, raw.length - 3)));
+    }
+
+    @Test
+    void rejectsALengthPrefixPointingPastTheEnd() {
+        byte[] raw = Base64.getUrlDecoder().decode(new ConsistencyToken(OPERATION_TIME).encode());
+        ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN).putInt(0, Integer.MAX_VALUE);
+
+        assertInvalid(Base64.getUrlEncoder().encodeToString(raw));
+    }
+
+    @Test
+    void rejectsTrailingBytes() {
+        byte[] raw = Base64.getUrlDecoder().decode(new ConsistencyToken(OPERATION_TIME).encode());
+
+        assertInvalid(Base64.getUrlEncoder().encodeToString(Arrays.copyOf(raw, raw.length + 4)));
+    }
+
+    @Test
+    void rejectsAMissingOrMistypedOperationTime() {
+        assertInvalid(encode(new BsonDocument()));
+        assertInvalid(encode(new BsonDocument("o", new BsonString("1700000000"))));
+        assertInvalid(encode(new BsonDocument("o", new BsonInt64(1_700_000_000L))));
+    }
+
+    @Test
+    void picksTheLaterToken() {
+        ConsistencyToken earlier = new ConsistencyToken(new BsonTimestamp(1_700_000_000, 9));
+        ConsistencyToken later = new ConsistencyToken(new BsonTimestamp(1_700_000_001, 1));
+
+        assertSame(later, ConsistencyToken.latest(earlier, later));
+        assertSame(later, ConsistencyToken.latest(later, earlier));
+        assertSame(earlier, ConsistencyToken.latest(earlier, null));
+        assertSame(later, ConsistencyToken.latest(null, later));
+        assertNull(ConsistencyToken.latest(null, null));
+    }
+
+    private static void assertInvalid(String token) {
+        assertThrows(ValidationException.class, () -> ConsistencyToken.decode(token), token);
+    }
+
+    private static String encode(BsonDocument document) {
+        ByteBuffer bytes = new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().asNIO();
+        byte[] raw = new byte[bytes.remaining()];
+        bytes.get(raw);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+}
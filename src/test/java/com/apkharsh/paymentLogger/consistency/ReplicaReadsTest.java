@@ -0,0 +1,47 @@
+package com.apkharsh.paymentLogger.consistency;
+
+import org.bson.BsonTimestamp;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaReadsTest {
+
+    @Test
+    void usesATokenFromThePast() {
+        ConsistencyToken token = tokenAt(Instant.now().minus(Duration.ofHours(1)));
+
+        assertEquals(token, ReplicaReads.usableToken(token.encode()));
+    }
+
+    @Test
+    void toleratesClockSkew() {
+        ConsistencyToken token = tokenAt(Instant.now().plusSeconds(30));
+
+        assertEquals(token, ReplicaReads.usableToken(token.encode()));
+    }
+
+    @Test
+    void ignoresATokenFromTheFuture() {
+        assertNull(ReplicaReads.usableToken(tokenAt(Instant.now().plus(Duration.ofMinutes(5))).encode()));
+    }
+
+    @Test
+    void readsTheOperationTimeAsUnsigned() {
+        // Past 2038 as unsigned seconds, negative as an int; it must not pass as an old token
+        assertNull(ReplicaReads.usableToken(new ConsistencyToken(new BsonTimestamp(0xF0000000, 1)).encode()));
+    }
+
+    @Test
+    void ignoresAMalformedToken() {
+        assertNull(ReplicaReads.usableToken("not a token!"));
+        assertNull(ReplicaReads.usableToken("AAAA"));
+    }
+
+    private static ConsistencyToken tokenAt(Instant time) {
+        return new ConsistencyToken(new BsonTimestamp((int) time.getEpochSecond(), 1));
+    }
+}
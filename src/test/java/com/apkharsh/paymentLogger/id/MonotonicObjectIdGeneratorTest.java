@@ -0,0 +1,93 @@
+package com.apkharsh.paymentLogger.id;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonotonicObjectIdGeneratorTest {
+
+    private final MonotonicObjectIdGenerator generator = new MonotonicObjectIdGenerator();
+
+    @Test
+    void issuesLowercaseObjectIdsStampedWithTheCurrentSecond() {
+        long before = System.currentTimeMillis() / 1000;
+        String id = generator.newId();
+        long after = System.currentTimeMillis() / 1000;
+
+        assertTrue(StoredIdOrder.isObjectId(id));
+        assertEquals(id.toLowerCase(), id);
+        long seconds = new ObjectId(id).getTimestamp();
+        assertTrue(seconds >= before && seconds <= after, id);
+    }
+
+    @Test
+    void neverGoesBackwards() {
+        String previous = generator.newId();
+        for (int i = 0; i < 100_000; i++) {
+            String next = generator.newId();
+            assertTrue(StoredIdOrder.ASCENDING.compare(previous, next) < 0, previous + " then " + next);
+            previous = next;
+        }
+    }
+
+    @Test
+    void carriesASequenceOverflowIntoTheNextSecond() {
+        long now = System.currentTimeMillis() / 1000;
+        lastIssued().set((now << 24) | 0xFFFFFF);
+
+        ObjectId id = new ObjectId(generator.newId());
+
+        assertEquals(now + 1, id.getTimestamp());
+        assertEquals(0, id.toByteArray()[11] | id.toByteArray()[10] | id.toByteArray()[9]);
+    }
+
+    @Test
+    void keepsCountingWhenTheClockStepsBack() {
+        // As if the last id had been issued a minute from now
+        long ahead = System.currentTimeMillis() / 1000 + 60;
+        lastIssued().set(ahead << 24 | 41);
+
+        ObjectId id = new ObjectId(generator.newId());
+
+        assertEquals(ahead, id.getTimestamp());
+        assertEquals(42, id.toByteArray()[11]);
+    }
+
+    @Test
+    void issuesDistinctIdsAcrossThreads() throws Exception {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        ids.add(generator.newId());
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(80_000, ids.size());
+    }
+
+    private AtomicLong lastIssued() {
+        return (AtomicLong) ReflectionTestUtils.getField(generator, "last");
+    }
+}
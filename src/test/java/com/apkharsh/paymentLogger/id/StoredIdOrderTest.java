@@ -0,0 +1,58 @@
+package com.apkharsh.paymentLogger.id;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoredIdOrderTest {
+
+    @Test
+    void recognisesWhatSpringDataStoresAsAnObjectId() {
+        assertTrue(StoredIdOrder.isObjectId("65f1a2b3c4d5e6f708192a3b"));
+        assertFalse(StoredIdOrder.isObjectId("65f1a2b3c4d5e6f708192a3"));
+        assertFalse(StoredIdOrder.isObjectId("65f1a2b3c4d5e6f708192a3g"));
+        assertFalse(StoredIdOrder.isObjectId("0b6f8c1e-8e4b-4c1d-9a77-3f2b5d1c9e20"));
+    }
+
+    @Test
+    void putsStringIdsBeforeObjectIds() {
+        String objectId = "000000000000000000000000";
+        String uuid = "ffffffff-ffff-ffff-ffff-ffffffffffff";
+
+        assertTrue(StoredIdOrder.ASCENDING.compare(uuid, objectId) < 0);
+        assertTrue(StoredIdOrder.ASCENDING.compare(objectId, uuid) > 0);
+    }
+
+    @Test
+    void ordersObjectIdsLikeTheirBytes() {
+        List<ObjectId> objectIds = List.of(
+                new ObjectId(0x10, 0xFFFFFF),
+                new ObjectId(0x11, 0),
+                new ObjectId(0x7FFFFFFF, 5),
+                new ObjectId(0x80000000, 0),
+                new ObjectId(0xFFFFFFFF, 0));
+        List<String> hex = new ArrayList<>(objectIds.stream().map(ObjectId::toHexString).toList());
+        Collections.reverse(hex);
+
+        hex.sort(StoredIdOrder.ASCENDING);
+
+        // ObjectId.compareTo compares the bytes unsigned, as Mongo does
+        List<String> expected = objectIds.stream().sorted(Comparator.naturalOrder()).map(ObjectId::toHexString).toList();
+        assertEquals(expected, hex);
+    }
+
+    @Test
+    void ordersStringIdsByValue() {
+        List<String> ids = new ArrayList<>(List.of("b", "a-2", "a-10"));
+
+        ids.sort(StoredIdOrder.ASCENDING);
+
+        assertEquals(List.of("a-10", "a-2", "b"), ids);
+    }
+}
@@ -0,0 +1,107 @@
+package com.apkharsh.paymentLogger.importer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainRecordsWithEveryLineEnding() throws IOException {
+        List<List<String>> records = readAll("a,b\nc,d\r\ne,f\rg,h");
+
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d"), List.of("e", "f"), List.of("g", "h")), records);
+    }
+
+    @Test
+    void keepsTheCharacterAfterALoneCarriageReturn() throws IOException {
+        // The \r lookahead reads "x"; it has to come back as the first character of the next record
+        CsvReader reader = reader("a\rx,y\r");
+
+        assertEquals(List.of("a"), reader.readRecord());
+        assertEquals(List.of("x", "y"), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void ignoresATrailingLineBreakButKeepsEmptyFields() throws IOException {
+        assertEquals(List.of(List.of("a", "", "")), readAll("a,,\n"));
+        assertEquals(List.of(List.of("")), readAll("\n"));
+        assertEquals(List.of(), readAll(""));
+    }
+
+    @Test
+    void readsQuotedFieldsWithDelimitersEscapesAndLineBreaks() throws IOException {
+        List<List<String>> records = readAll("\"a,b\",\"say \"\"hi\"\"\",\"two\r\nlines\"\nnext,\"\"\n");
+
+        assertEquals(List.of("a,b", "say \"hi\"", "two\r\nlines"), records.get(0));
+        assertEquals(List.of("next", ""), records.get(1));
+    }
+
+    @Test
+    void treatsAQuoteInsideAnUnquotedFieldAsText() throws IOException {
+        assertEquals(List.of(List.of("5\" screen", "x")), readAll("5\" screen,x"));
+    }
+
+    @Test
+    void usesTheConfiguredDelimiter() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a;b,c\n"), ';');
+
+        assertEquals(List.of("a", "b,c"), reader.readRecord());
+    }
+
+    @Test
+    void numbersRecordsByTheLineTheyStartOn() throws IOException {
+        CsvReader reader = reader("h1,h2\n\"multi\nline\",x\r\nlast,y\n");
+
+        reader.readRecord();
+        assertEquals(1, reader.getRecordLine());
+        reader.readRecord();
+        assertEquals(2, reader.getRecordLine());
+        reader.readRecord();
+        assertEquals(4, reader.getRecordLine());
+    }
+
+    @Test
+    void rejectsAnUnterminatedQuote() throws IOException {
+        CsvReader reader = reader("ok,1\n\"never closed,2\n3\n");
+        reader.readRecord();
+
+        IOException error = assertThrows(IOException.class, reader::readRecord);
+        assertTrue(error.getMessage().contains("line 2"), error.getMessage());
+    }
+
+    @Test
+    void rejectsAFieldOverTheLimit() {
+        CsvReader reader = reader("\"" + "x".repeat(64 * 1024 + 1) + "\"\n");
+
+        IOException error = assertThrows(IOException.class, reader::readRecord);
+        assertTrue(error.getMessage().startsWith("Field longer than"), error.getMessage());
+    }
+
+    @Test
+    void acceptsAFieldExactlyAtTheLimit() throws IOException {
+        String field = "x".repeat(64 * 1024);
+
+        assertEquals(List.of(List.of(field)), readAll(field + "\n"));
+    }
+
+    private static CsvReader reader(String csv) {
+        return new CsvReader(new StringReader(csv), ',');
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader reader = reader(csv)) {
+            for (List<String> record = reader.readRecord(); record != null; record = reader.readRecord()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,85 @@
+package com.apkharsh.paymentLogger.importer.util;
+
+import com.apkharsh.paymentLogger.importer.util.LedgerRowParser.ParsedRow;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerRowParserTest {
+
+    // Columns out of order and one unused column, as a real export would have them
+    private final LedgerRowParser parser = new LedgerRowParser(1, 2, 3, 0, 5);
+
+    @Test
+    void parsesAndTrimsAFullRow() {
+        ParsedRow row = parser.parse(7, List.of(" 2024-03-01T10:15:30Z ", " alice ", "bob", " 12.50 ", "ignored", " Lunch "));
+
+        assertNull(row.error());
+        assertEquals(7, row.line());
+        LedgerRequest request = row.request();
+        assertEquals("alice", request.getPayerId());
+        assertEquals("bob", request.getPayeeId());
+        assertEquals(new BigDecimal("12.50"), request.getAmount());
+        assertEquals(Instant.parse("2024-03-01T10:15:30Z"), request.getTimestamp());
+        assertEquals("Lunch", request.getDescription());
+    }
+
+    @Test
+    void leavesAnEmptyTimestampForTheWriteToFillIn() {
+        ParsedRow row = parser.parse(2, List.of("  ", "alice", "bob", "1", "", ""));
+
+        assertNull(row.error());
+        assertNull(row.request().getTimestamp());
+    }
+
+    @Test
+    void rejectsAShortRow() {
+        ParsedRow row = parser.parse(3, List.of("2024-03-01", "alice", "bob", "1", "x"));
+
+        assertNull(row.request());
+        assertEquals("expected at least 6 columns, found 5", row.error());
+        assertEquals(3, row.line());
+    }
+
+    @Test
+    void rejectsABadAmount() {
+        ParsedRow row = parser.parse(4, List.of("2024-03-01", "alice", "bob", "12,50", "", ""));
+
+        assertNull(row.request());
+        assertEquals("invalid amount '12,50'", row.error());
+    }
+
+    @Test
+    void rejectsABadTimestamp() {
+        ParsedRow row = parser.parse(5, List.of(" 01/03/2024 ", "alice", "bob", "1", "", ""));
+
+        assertNull(row.request());
+        assertEquals("invalid timestamp '01/03/2024'", row.error());
+    }
+
+    @Test
+    void readsInstantsWithAnyOffset() {
+        assertEquals(Instant.parse("2024-03-01T10:15:30Z"), LedgerRowParser.parseTimestamp("2024-03-01T10:15:30Z"));
+        assertEquals(Instant.parse("2024-03-01T08:15:30Z"), LedgerRowParser.parseTimestamp("2024-03-01T10:15:30+02:00"));
+    }
+
+    @Test
+    void readsZonelessDateTimesAndDatesAsUtc() {
+        assertEquals(Instant.parse("2024-03-01T10:15:30Z"), LedgerRowParser.parseTimestamp("2024-03-01T10:15:30"));
+        assertEquals(Instant.parse("2024-03-01T10:15:00Z"), LedgerRowParser.parseTimestamp("2024-03-01T10:15"));
+        assertEquals(Instant.parse("2024-03-01T00:00:00Z"), LedgerRowParser.parseTimestamp("2024-03-01"));
+    }
+
+    @Test
+    void rejectsOtherTimestampFormats() {
+        assertThrows(DateTimeParseException.class, () -> LedgerRowParser.parseTimestamp("2024-03-01 10:15:30"));
+        assertThrows(DateTimeParseException.class, () -> LedgerRowParser.parseTimestamp("1709288130"));
+        assertThrows(DateTimeParseException.class, () -> LedgerRowParser.parseTimestamp("2024-02-30"));
+    }
+}
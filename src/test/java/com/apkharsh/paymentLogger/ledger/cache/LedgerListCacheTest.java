@@ -0,0 +1,159 @@
+package com.apkharsh.paymentLogger.ledger.cache;
+
+import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LedgerListCacheTest {
+
+    private static final LocalDate START = LocalDate.parse("2024-01-01");
+    private static final LocalDate END = LocalDate.parse("2024-01-31");
+
+    private final Map<String, String> redis = new HashMap<>();
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> values = mock(ValueOperations.class);
+
+    private LedgerListCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.get(anyString())).thenAnswer(call -> redis.get(call.<String>getArgument(0)));
+        doAnswer(call -> redis.put(call.getArgument(0), call.getArgument(1)))
+                .when(values).set(anyString(), anyString(), any(Duration.class));
+        cache = new LedgerListCache(redisTemplate, JsonMapper.builder().build(), new SimpleMeterRegistry(), Duration.ofMinutes(10), 100);
+    }
+
+    @Test
+    void servesARepeatFromRedis() {
+        CountingLoader loader = new CountingLoader(rows(3));
+
+        List<LedgerResponse> first = cache.get("u1", "v1", START, END, loader);
+        List<LedgerResponse> second = cache.get("u1", "v1", START, END, loader);
+
+        assertEquals(1, loader.calls.get());
+        assertEquals(first, second);
+        assertTrue(onlyValue().startsWith("j"), "small listings are stored as plain JSON");
+    }
+
+    @Test
+    void compressesLargeListings() {
+        CountingLoader loader = new CountingLoader(rows(50));
+
+        cache.get("u1", "v1", null, null, loader);
+        List<LedgerResponse> cached = cache.get("u1", "v1", null, null, loader);
+
+        assertEquals(1, loader.calls.get());
+        assertEquals(rows(50), cached);
+        assertTrue(onlyValue().startsWith("z"), "large listings are gzipped");
+    }
+
+    @Test
+    void keysOnVersionAndRange() {
+        CountingLoader loader = new CountingLoader(rows(1));
+
+        cache.get("u1", "v1", START, END, loader);
+        cache.get("u1", "v2", START, END, loader);
+        cache.get("u1", "v2", null, null, loader);
+        cache.get("u2", "v2", null, null, loader);
+
+        assertEquals(4, loader.calls.get());
+        assertEquals(4, redis.size());
+    }
+
+    @Test
+    void bypassesTheCacheWithoutAVersion() {
+        CountingLoader loader = new CountingLoader(rows(1));
+
+        cache.get("u1", null, START, END, loader);
+        cache.get("u1", null, START, END, loader);
+
+        assertEquals(2, loader.calls.get());
+        verifyNoInteractions(values);
+    }
+
+    @Test
+    void doesNotStoreListingsOverMaxRows() {
+        CountingLoader loader = new CountingLoader(rows(101));
+
+        cache.get("u1", "v1", null, null, loader);
+
+        assertTrue(redis.isEmpty());
+    }
+
+    @Test
+    void reloadsUnreadableEntries() {
+        CountingLoader loader = new CountingLoader(rows(2));
+        cache.get("u1", "v1", START, END, loader);
+        redis.replaceAll((key, value) -> "z" + "not gzip");
+
+        assertEquals(rows(2), cache.get("u1", "v1", START, END, loader));
+        assertEquals(2, loader.calls.get());
+        assertTrue(onlyValue().startsWith("j"), "the unreadable entry is replaced");
+    }
+
+    @Test
+    void fallsBackToTheLoaderWhenRedisIsDown() {
+        when(values.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        CountingLoader loader = new CountingLoader(rows(2));
+
+        assertEquals(rows(2), cache.get("u1", "v1", START, END, loader));
+        assertEquals(1, loader.calls.get());
+    }
+
+    private String onlyValue() {
+        assertEquals(1, redis.size());
+        return redis.values().iterator().next();
+    }
+
+    private static List<LedgerResponse> rows(int count) {
+        List<LedgerResponse> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(LedgerResponse.builder()
+                    .id("id-" + i)
+                    .payerId("u1")
+                    .payeeId("peer-" + i)
+                    .amount(new BigDecimal(i + ".50"))
+                    .timestamp(Instant.parse("2024-01-01T00:00:00Z").plusSeconds(i * 60L))
+                    .description("payment " + i)
+                    .build());
+        }
+        return rows;
+    }
+
+    private static final class CountingLoader implements Supplier<List<LedgerResponse>> {
+        private final List<LedgerResponse> rows;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private CountingLoader(List<LedgerResponse> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public List<LedgerResponse> get() {
+            calls.incrementAndGet();
+            return rows;
+        }
+    }
+}
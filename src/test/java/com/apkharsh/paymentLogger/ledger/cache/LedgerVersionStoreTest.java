@@ -0,0 +1,142 @@
+package com.apkharsh.paymentLogger.ledger.cache;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerVersionStoreTest {
+
+    private final InMemoryRedis redis = new InMemoryRedis();
+    private final LedgerVersionStore store = new LedgerVersionStore(redis);
+
+    @Test
+    void startsANewUserFromTheCurrentTime() {
+        long before = System.currentTimeMillis() * 1000;
+
+        String version = store.currentVersion("alice");
+
+        assertTrue(Long.parseLong(version) >= before, version);
+        assertEquals(version, store.currentVersion("alice"));
+    }
+
+    @Test
+    void bumpsBothParticipantsOnce() {
+        String alice = store.currentVersion("alice");
+        String bob = store.currentVersion("bob");
+        String carol = store.currentVersion("carol");
+
+        store.bump(List.of(ledger("alice", "bob"), ledger("bob", "alice")));
+
+        assertEquals(Long.parseLong(alice) + 1, Long.parseLong(store.currentVersion("alice")));
+        assertEquals(Long.parseLong(bob) + 1, Long.parseLong(store.currentVersion("bob")));
+        assertEquals(carol, store.currentVersion("carol"));
+        assertEquals(List.of(List.of("ledger_version:alice", "ledger_version:bob")), redis.bumpedKeys);
+    }
+
+    @Test
+    void skipsRedisWhenNoLedgerNamesAUser() {
+        store.bump(List.of());
+        store.bump(List.of(ledger(null, null)));
+
+        assertTrue(redis.bumpedKeys.isEmpty());
+    }
+
+    @Test
+    void formatsAWeakETag() {
+        assertEquals("W/\"123\"", LedgerVersionStore.eTag("123"));
+    }
+
+    @Test
+    void servesNoVersionWhileRedisIsDown() {
+        redis.down = true;
+
+        assertNull(store.currentVersion("alice"));
+    }
+
+    @Test
+    void removesTheVersionsAFailedBumpLeftBehind() {
+        redis.values.put("ledger_version:alice", "5");
+        redis.failScripts = true;
+
+        store.bump(List.of(ledger("alice", "bob")));
+
+        assertFalse(redis.values.containsKey("ledger_version:alice"));
+        redis.failScripts = false;
+        assertTrue(Long.parseLong(store.currentVersion("alice")) > 5);
+    }
+
+    @Test
+    void withholdsTheVersionUntilAStaleKeyIsRemoved() {
+        redis.values.put("ledger_version:alice", "5");
+        redis.down = true;
+
+        // Neither the bump nor the clean-up reached Redis, so the stored version predates the write
+        store.bump(List.of(ledger("alice", "bob")));
+        assertEquals("5", redis.values.get("ledger_version:alice"));
+        assertNull(store.currentVersion("alice"));
+
+        redis.down = false;
+        String after = store.currentVersion("alice");
+        assertTrue(Long.parseLong(after) > 5, after);
+        assertEquals(after, store.currentVersion("alice"));
+    }
+
+    private static Ledger ledger(String payerId, String payeeId) {
+        Ledger ledger = new Ledger();
+        ledger.setPayerId(payerId);
+        ledger.setPayeeId(payeeId);
+        return ledger;
+    }
+
+    /**
+     * Runs the two version scripts against a map, telling them apart by result type
+     */
+    private static final class InMemoryRedis extends StringRedisTemplate {
+        private final Map<String, String> values = new HashMap<>();
+        private final List<List<String>> bumpedKeys = new ArrayList<>();
+        private boolean down;
+        private boolean failScripts;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            if (down || failScripts) {
+                throw new RedisConnectionFailureException("Redis is down");
+            }
+            if (script.getResultType() == String.class) {
+                return (T) values.computeIfAbsent(keys.get(0), key -> (String) args[0]);
+            }
+            bumpedKeys.add(List.copyOf(keys));
+            for (String key : keys) {
+                values.merge(key, (String) args[0], (current, initial) -> String.valueOf(Long.parseLong(current) + 1));
+            }
+            return (T) Long.valueOf(keys.size());
+        }
+
+        @Override
+        public Boolean delete(String key) {
+            if (down) {
+                throw new RedisConnectionFailureException("Redis is down");
+            }
+            return values.remove(key) != null;
+        }
+
+        @Override
+        public Long delete(Collection<String> keys) {
+            if (down) {
+                throw new RedisConnectionFailureException("Redis is down");
+            }
+            return keys.stream().filter(key -> values.remove(key) != null).count();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.apkharsh.paymentLogger.ledger.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares GET /ledgers?limit=.. (servlet) with GET /reactive/ledgers?limit=.. (reactive profile) under rising
+ * numbers of concurrent connections, reporting throughput, p50/p99 latency and failed requests. Fails if either
+ * endpoint doesn't answer 200 with a page before measuring (a bad token would otherwise time fast 401s), or if
+ * any request fails at the lowest concurrency.
+ * <p>
+ * Runs against an already started instance with the reactive profile active, so it only runs when
+ * BENCHMARK_BASE_URL and BENCHMARK_TOKEN (an access token for a user with ledgers) are set, e.g.
+ * BENCHMARK_BASE_URL=http://localhost:8080 BENCHMARK_TOKEN=... ./mvnw test -Dtest=LedgerEndpointLoadBenchmark
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_BASE_URL", matches = ".+")
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_TOKEN", matches = ".+")
+class LedgerEndpointLoadBenchmark {
+
+    private static final int[] CONNECTIONS = {50, 200, 1000, 2000};
+    private static final int REQUESTS_PER_CONNECTION = 20;
+    private static final int PAGE_SIZE = 50;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl = System.getenv("BENCHMARK_BASE_URL");
+    private final String token = System.getenv("BENCHMARK_TOKEN");
+
+    @Test
+    void compareServletAndReactive() throws Exception {
+        System.out.printf("%nLedger page endpoint under load (%d requests per connection)%n", REQUESTS_PER_CONNECTION);
+        System.out.printf("%-10s %12s %12s %10s %10s %8s%n", "variant", "connections", "req/s", "p50 ms", "p99 ms", "failed");
+        for (int connections : CONNECTIONS) {
+            Result servlet = run("/ledgers?limit=" + PAGE_SIZE, connections);
+            report("servlet", connections, servlet);
+            Result reactive = run("/reactive/ledgers?limit=" + PAGE_SIZE, connections);
+            report("reactive", connections, reactive);
+            if (connections == CONNECTIONS[0]) {
+                assertEquals(0, servlet.failed(), "servlet requests failed at " + connections + " connections");
+                assertEquals(0, reactive.failed(), "reactive requests failed at " + connections + " connections");
+            }
+        }
+    }
+
+    /**
+     * Every connection is its own client thread issuing requests back to back
+     */
+    private Result run(String path, int connections) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+
+        // Warm up connection pools and JIT before measuring
+        HttpResponse<String> warmUp = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, warmUp.statusCode(), path + " answered " + warmUp.body());
+        assertTrue(warmUp.body().contains("\"items\""), path + " should return a page: " + warmUp.body());
+
+        long[][] latencies = new long[connections][REQUESTS_PER_CONNECTION];
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+        long started = System.nanoTime();
+        try {
+            List<CompletableFuture<Void>> clients = new ArrayList<>(connections);
+            for (int c = 0; c < connections; c++) {
+                long[] own = latencies[c];
+                clients.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CONNECTION; i++) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                failed.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                        own[i] = System.nanoTime() - start;
+                    }
+                }, pool));
+            }
+            CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - started;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(all, elapsed, failed.get());
+    }
+
+    private void report(String variant, int connections, Result result) {
+        double seconds = result.elapsedNanos() / 1e9;
+        System.out.printf("%-10s %12d %12.0f %10.1f %10.1f %8d%n", variant, connections,
+                result.latencies().length / seconds,
+                percentile(result.latencies(), 50), percentile(result.latencies(), 99), result.failed());
+    }
+
+    private double percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private record Result(long[] latencies, long elapsedNanos, int failed) {
+    }
+}
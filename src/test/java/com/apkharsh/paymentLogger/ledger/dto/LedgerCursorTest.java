@@ -0,0 +1,53 @@
+package com.apkharsh.paymentLogger.ledger.dto;
+
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerCursorTest {
+
+    @Test
+    void roundTrips() {
+        LedgerCursor cursor = new LedgerCursor(Instant.parse("2024-03-01T10:15:30.123Z"), "65e1a2b3c4d5e6f708090a0b");
+
+        assertEquals(cursor, LedgerCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void keepsSeparatorsInsideTheId() {
+        LedgerCursor cursor = new LedgerCursor(Instant.ofEpochMilli(0), "legacy:id:with:colons");
+
+        assertEquals(cursor, LedgerCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void isUrlSafe() {
+        String token = new LedgerCursor(Instant.parse("2024-03-01T10:15:30Z"), "???>>>").encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void takesItsPositionFromTheLastRow() {
+        LedgerResponse row = LedgerResponse.builder().id("abc").timestamp(Instant.parse("2024-03-01T00:00:00Z")).build();
+
+        assertEquals(new LedgerCursor(row.getTimestamp(), "abc"), LedgerCursor.of(row));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        for (String raw : new String[]{"", "1700000000000", "1700000000000:", ":abc", "yesterday:abc"}) {
+            assertThrows(ValidationException.class, () -> LedgerCursor.decode(encode(raw)), raw);
+        }
+        assertThrows(ValidationException.class, () -> LedgerCursor.decode("not base64!"));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
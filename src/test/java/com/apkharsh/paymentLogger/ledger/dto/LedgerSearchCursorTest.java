@@ -0,0 +1,87 @@
+package com.apkharsh.paymentLogger.ledger.dto;
+
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerSearchCursorTest {
+
+    private static final byte[] SECRET = "test-secret".getBytes(StandardCharsets.UTF_8);
+    private static final String[] SCOPE = {"u1", "coffee", "null", "null"};
+
+    private final LedgerSearchCursor cursor =
+            new LedgerSearchCursor(1.1666666666666667, Instant.parse("2024-03-01T10:15:30.123Z"), "a:b", 150);
+
+    @Test
+    void roundTrips() {
+        LedgerSearchCursor decoded = LedgerSearchCursor.decode(cursor.encode(SECRET, SCOPE), SECRET, SCOPE);
+
+        assertEquals(cursor, decoded);
+        // The next page seeks past this exact score, so it must not lose precision
+        assertEquals(Double.doubleToLongBits(cursor.score()), Double.doubleToLongBits(decoded.score()));
+    }
+
+    @Test
+    void rejectsAnEditedCount() {
+        // The cap is checked against "returned"; a client resetting it to 0 must not get past verification
+        String token = cursor.encode(SECRET, SCOPE);
+        String signature = token.substring(token.lastIndexOf('.'));
+        String forged = encode("s:0:1.1666666666666667:1709288130123:a:b") + signature;
+
+        assertThrows(ValidationException.class, () -> LedgerSearchCursor.decode(forged, SECRET, SCOPE));
+    }
+
+    @Test
+    void rejectsACursorFromAnotherSearch() {
+        String token = cursor.encode(SECRET, SCOPE);
+
+        assertThrows(ValidationException.class, () -> LedgerSearchCursor.decode(token, SECRET, "u2", "coffee", "null", "null"));
+        assertThrows(ValidationException.class, () -> LedgerSearchCursor.decode(token, SECRET, "u1", "tea", "null", "null"));
+        assertThrows(ValidationException.class, () ->
+                LedgerSearchCursor.decode(token, SECRET, "u1", "coffee", "2024-01-01T00:00:00Z", "null"));
+        // Moving a character between scope values changes the MAC too
+        assertThrows(ValidationException.class, () -> LedgerSearchCursor.decode(token, SECRET, "u1c", "offee", "null", "null"));
+    }
+
+    @Test
+    void rejectsACursorSignedWithAnotherSecret() {
+        String token = cursor.encode("other-secret".getBytes(StandardCharsets.UTF_8), SCOPE);
+
+        assertThrows(ValidationException.class, () -> LedgerSearchCursor.decode(token, SECRET, SCOPE));
+    }
+
+    @Test
+    void rejectsUnsignedTokens() {
+        LedgerCursor listCursor = new LedgerCursor(Instant.ofEpochMilli(1), "abc");
+        assertThrows(ValidationException.class, () -> LedgerSearchCursor.decode(listCursor.encode(), SECRET, SCOPE));
+        assertThrows(ValidationException.class, () ->
+                LedgerSearchCursor.decode(encode("s:150:1.0:1709288130123:id"), SECRET, SCOPE));
+        assertThrows(ValidationException.class, () -> LedgerSearchCursor.decode("", SECRET, SCOPE));
+        assertThrows(ValidationException.class, () -> LedgerSearchCursor.decode("!!.!!", SECRET, SCOPE));
+    }
+
+    @Test
+    void rejectsMalformedTokensEvenWhenSigned() {
+        for (String raw : new String[]{"s:", "s:1:2.0:3", "s:1:2.0:3:", "s:-1:2.0:3:id", "s:1:NaN:3:id",
+                "s:1:Infinity:3:id", "s:x:2.0:3:id", "s:1:2.0:later:id", "x:1:2.0:3:id"}) {
+            assertThrows(ValidationException.class, () -> LedgerSearchCursor.decode(signed(raw), SECRET, SCOPE), raw);
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A correctly signed token around an arbitrary payload, so the parser behind the signature check is reached
+     */
+    private static String signed(String raw) {
+        byte[] payload = raw.getBytes(StandardCharsets.UTF_8);
+        return encode(raw) + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(LedgerSearchCursor.sign(SECRET, payload, SCOPE));
+    }
+}
@@ -0,0 +1,228 @@
+package com.apkharsh.paymentLogger.ledger.idempotency;
+
+import com.apkharsh.paymentLogger.consistency.ConsistencyToken;
+import com.apkharsh.paymentLogger.consistency.ReadConsistency;
+import com.apkharsh.paymentLogger.exceptions.ConflictException;
+import com.apkharsh.paymentLogger.exceptions.NotFoundException;
+import com.apkharsh.paymentLogger.exceptions.ServiceUnavailableException;
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.apkharsh.paymentLogger.exceptions.WriteRejectedException;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerRequest;
+import com.apkharsh.paymentLogger.ledger.dto.LedgerResponse;
+import com.apkharsh.paymentLogger.security.UserPrincipal;
+import org.bson.BsonTimestamp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LedgerIdempotencyStoreTest {
+
+    private final InMemoryRedis redis = new InMemoryRedis();
+    private final LedgerIdempotencyStore store =
+            new LedgerIdempotencyStore(redis, JsonMapper.builder().build(), Duration.ofHours(24), Duration.ofMinutes(5));
+
+    @BeforeEach
+    void signIn() {
+        UserPrincipal principal = new UserPrincipal("u1", "u1@example.com", List.of());
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void replaysTheStoredResponse() {
+        CountingWrite write = new CountingWrite();
+
+        LedgerIdempotencyStore.Result first = store.execute("key-1", request("10.00"), write);
+        LedgerIdempotencyStore.Result retry = store.execute("key-1", request("10.00"), write);
+
+        assertEquals(1, write.calls.get());
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.response(), retry.response());
+    }
+
+    @Test
+    void scopesKeysToTheUser() {
+        CountingWrite write = new CountingWrite();
+        store.execute("key-1", request("10.00"), write);
+
+        UserPrincipal other = new UserPrincipal("u2", "u2@example.com", List.of());
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(other, null, other.getAuthorities()));
+
+        assertFalse(store.execute("key-1", request("10.00"), write).replayed());
+        assertEquals(2, write.calls.get());
+    }
+
+    @Test
+    void rejectsAKeyReusedForADifferentRequest() {
+        store.execute("key-1", request("10.00"), new CountingWrite());
+
+        assertThrows(ValidationException.class, () -> store.execute("key-1", request("11.00"), new CountingWrite()));
+    }
+
+    @Test
+    void refusesARetryWhileTheFirstRequestIsRunning() {
+        CountingWrite retry = new CountingWrite();
+        store.execute("key-1", request("10.00"), () -> {
+            assertThrows(ConflictException.class, () -> store.execute("key-1", request("10.00"), retry));
+            return response();
+        });
+
+        assertEquals(0, retry.calls.get());
+    }
+
+    @Test
+    void releasesTheKeyWhenTheWriteIsRejected() {
+        for (RuntimeException rejection : List.of(new ValidationException("bad"), new NotFoundException("no user"),
+                new ConflictException("conflict"))) {
+            assertThrows(rejection.getClass(), () -> store.execute("key-1", request("10.00"), () -> {
+                throw rejection;
+            }));
+        }
+
+        CountingWrite write = new CountingWrite();
+        assertFalse(store.execute("key-1", request("10.00"), write).replayed());
+        assertEquals(1, write.calls.get());
+    }
+
+    @Test
+    void releasesTheKeyWhenTheWriterRefusedTheWrite() {
+        assertThrows(WriteRejectedException.class, () -> store.execute("key-1", request("10.00"), () -> {
+            throw new WriteRejectedException("Too many pending ledger writes, try again later");
+        }));
+
+        CountingWrite write = new CountingWrite();
+        assertFalse(store.execute("key-1", request("10.00"), write).replayed());
+        assertEquals(1, write.calls.get());
+    }
+
+    @Test
+    void keepsTheKeyWhenTheCommitTimesOut() {
+        assertThrows(ServiceUnavailableException.class, () -> store.execute("key-1", request("10.00"), () -> {
+            throw new ServiceUnavailableException("Ledger write is taking too long, it may still be stored");
+        }));
+
+        assertThrows(ConflictException.class, () -> store.execute("key-1", request("10.00"), new CountingWrite()));
+    }
+
+    @Test
+    void keepsTheKeyWhenTheOutcomeIsUnknown() {
+        assertThrows(IllegalStateException.class, () -> store.execute("key-1", request("10.00"), () -> {
+            throw new IllegalStateException("socket closed after the insert was sent");
+        }));
+
+        CountingWrite write = new CountingWrite();
+        assertThrows(ConflictException.class, () -> store.execute("key-1", request("10.00"), write));
+        assertEquals(0, write.calls.get());
+    }
+
+    @Test
+    void replaysTheConsistencyTokenOfTheOriginalWrite() {
+        ConsistencyToken token = new ConsistencyToken(new BsonTimestamp(1_700_000_000, 7));
+        ReadConsistency.detached(() -> store.execute("key-1", request("10.00"), () -> {
+            ReadConsistency.recordWrite(token);
+            return response();
+        }));
+
+        AtomicReference<ConsistencyToken> replayed = new AtomicReference<>();
+        ReadConsistency.detached(() -> {
+            assertTrue(store.execute("key-1", request("10.00"), new CountingWrite()).replayed());
+            replayed.set(ReadConsistency.writeToken());
+        });
+        assertEquals(token, replayed.get());
+    }
+
+    @Test
+    void validatesTheKey() {
+        assertThrows(ValidationException.class, () -> store.execute(" ", request("10.00"), new CountingWrite()));
+        assertThrows(ValidationException.class, () -> store.execute("k".repeat(256), request("10.00"), new CountingWrite()));
+    }
+
+    private static LedgerRequest request(String amount) {
+        return LedgerRequest.builder()
+                .payerId("u1")
+                .payeeId("u2")
+                .amount(new BigDecimal(amount))
+                .description("dinner")
+                .timestamp(Instant.parse("2024-03-01T19:00:00Z"))
+                .build();
+    }
+
+    private static LedgerResponse response() {
+        return LedgerResponse.builder()
+                .id("65e1a2b3c4d5e6f708090a0b")
+                .payerId("u1")
+                .payeeId("u2")
+                .amount(new BigDecimal("10.00"))
+                .description("dinner")
+                .timestamp(Instant.parse("2024-03-01T19:00:00Z"))
+                .build();
+    }
+
+    private static final class CountingWrite implements Supplier<LedgerResponse> {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public LedgerResponse get() {
+            calls.incrementAndGet();
+            return response();
+        }
+    }
+
+    /**
+     * Just enough of Redis for the store: the reserve script, GET/SET and DEL on one map
+     */
+    private static final class InMemoryRedis extends StringRedisTemplate {
+        private final Map<String, String> values = new HashMap<>();
+        @SuppressWarnings("unchecked")
+        private final ValueOperations<String, String> operations = mock(ValueOperations.class);
+
+        private InMemoryRedis() {
+            when(operations.get(anyString())).thenAnswer(call -> values.get(call.<String>getArgument(0)));
+            doAnswer(call -> values.put(call.getArgument(0), call.getArgument(1)))
+                    .when(operations).set(anyString(), anyString(), any(Duration.class));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            return (T) values.putIfAbsent(keys.get(0), (String) args[0]);
+        }
+
+        @Override
+        public Boolean delete(String key) {
+            return values.remove(key) != null;
+        }
+
+        @Override
+        public ValueOperations<String, String> opsForValue() {
+            return operations;
+        }
+    }
+}
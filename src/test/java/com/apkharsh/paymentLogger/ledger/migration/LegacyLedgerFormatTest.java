@@ -0,0 +1,135 @@
+package com.apkharsh.paymentLogger.ledger.migration;
+
+import com.apkharsh.paymentLogger.ledger.entity.LedgerFields;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LegacyLedgerFormatTest {
+
+    private static final Date WHEN = new Date(1_709_288_130_000L);
+
+    private final LedgerCollectionLayout collectionLayout = mock(LedgerCollectionLayout.class);
+
+    @Test
+    void upgradesALongKeyDocument() {
+        Document document = new Document("_id", "id-1")
+                .append("_class", "com.apkharsh.paymentLogger.ledger.entity.Ledger")
+                .append("payerId", "alice")
+                .append("payeeId", "bob")
+                .append("amount", "12.50")
+                .append("timestamp", WHEN)
+                .append("description", "Lunch")
+                .append("createdAt", WHEN)
+                .append("updatedAt", WHEN);
+
+        assertTrue(LegacyLedgerFormat.upgrade(document));
+
+        assertEquals(new Document("_id", "id-1")
+                .append(LedgerFields.PAYER, "alice")
+                .append(LedgerFields.PAYEE, "bob")
+                .append(LedgerFields.AMOUNT, new Decimal128(new BigDecimal("12.50")))
+                .append(LedgerFields.TIMESTAMP, WHEN)
+                .append(LedgerFields.DESCRIPTION, "Lunch")
+                .append(LedgerFields.CREATED_AT, WHEN)
+                .append(LedgerFields.UPDATED_AT, WHEN), document);
+    }
+
+    @Test
+    void convertsNumericAmountsToDecimal128() {
+        Document fromDouble = new Document(LedgerFields.AMOUNT, 0.1);
+        Document fromInt = new Document(LedgerFields.AMOUNT, 7);
+
+        assertTrue(LegacyLedgerFormat.upgrade(fromDouble));
+        assertTrue(LegacyLedgerFormat.upgrade(fromInt));
+
+        assertEquals(new Decimal128(new BigDecimal("0.1")), fromDouble.get(LedgerFields.AMOUNT));
+        assertEquals(new Decimal128(7), fromInt.get(LedgerFields.AMOUNT));
+    }
+
+    @Test
+    void leavesACompactDocumentAlone() {
+        Document document = new Document("_id", "id-1")
+                .append(LedgerFields.PAYER, "alice")
+                .append(LedgerFields.AMOUNT, new Decimal128(new BigDecimal("3")))
+                .append(LedgerFields.CATEGORY, "food");
+        Document before = new Document(document);
+
+        assertFalse(LegacyLedgerFormat.upgrade(document));
+        assertEquals(before, document);
+    }
+
+    @Test
+    void countsARemovedClassKeyAsAChange() {
+        Document document = new Document(LedgerFields.PAYER, "alice").append("_class", "Ledger");
+
+        assertTrue(LegacyLedgerFormat.upgrade(document));
+        assertFalse(document.containsKey("_class"));
+    }
+
+    @Test
+    void filtersOnBothKeysWhileLegacyReadsAreOn() {
+        LegacyLedgerFormat format = format(true, false);
+
+        Document filter = format.filter(LedgerFields.PAYER, "alice");
+
+        assertEquals(new Document("$or", List.of(
+                new Document(LedgerFields.PAYER, "alice"),
+                new Document(LedgerFields.LEGACY_PAYER, "alice"))), filter);
+    }
+
+    @Test
+    void filtersOnTheCompactKeyOnlyOtherwise() {
+        assertEquals(new Document(LedgerFields.PAYER, "alice"), format(false, false).filter(LedgerFields.PAYER, "alice"));
+        assertEquals(new Document(LedgerFields.PAYER, "alice"), format(true, true).filter(LedgerFields.PAYER, "alice"));
+    }
+
+    @Test
+    void rejectsAKeyWithoutALegacyCounterpart() {
+        LegacyLedgerFormat format = format(true, false);
+
+        assertThrows(IllegalArgumentException.class, () -> format.filter(LedgerFields.CATEGORY, "food"));
+    }
+
+    @Test
+    void normalizesTheAggregatedKeysWhileLegacyReadsAreOn() {
+        List<AggregationOperation> stages = format(true, false).normalizeStages();
+
+        assertEquals(1, stages.size());
+        Document fields = stages.get(0).toDocument(Aggregation.DEFAULT_CONTEXT).get("$addFields", Document.class);
+        assertEquals(List.of(LedgerFields.PAYER, LedgerFields.PAYEE, LedgerFields.AMOUNT, LedgerFields.TIMESTAMP),
+                List.copyOf(fields.keySet()));
+        assertEquals(new Document("$ifNull", List.of("$" + LedgerFields.AMOUNT, "$" + LedgerFields.LEGACY_AMOUNT)),
+                fields.get(LedgerFields.AMOUNT));
+    }
+
+    @Test
+    void addsNoStagesOtherwise() {
+        assertEquals(List.of(), format(false, false).normalizeStages());
+        assertEquals(List.of(), format(true, true).normalizeStages());
+    }
+
+    @Test
+    void neverReadsLegacyDocumentsFromATimeSeriesCollection() {
+        assertTrue(format(true, false).isLegacyReadsEnabled());
+        assertFalse(format(true, true).isLegacyReadsEnabled());
+        assertFalse(format(false, false).isLegacyReadsEnabled());
+    }
+
+    private LegacyLedgerFormat format(boolean legacyReads, boolean timeSeries) {
+        when(collectionLayout.isTimeSeries()).thenReturn(timeSeries);
+        LegacyLedgerFormat format = new LegacyLedgerFormat(collectionLayout);
+        ReflectionTestUtils.setField(format, "legacyReads", legacyReads);
+        return format;
+    }
+}
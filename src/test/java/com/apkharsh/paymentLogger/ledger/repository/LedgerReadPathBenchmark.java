@@ -0,0 +1,203 @@
+package com.apkharsh.paymentLogger.ledger.repository;
+
+import com.apkharsh.paymentLogger.consistency.ReplicaReads;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.entity.LedgerFields;
+import com.apkharsh.paymentLogger.ledger.enums.LedgerStorageLayout;
+import com.apkharsh.paymentLogger.ledger.migration.LedgerCollectionLayout;
+import com.apkharsh.paymentLogger.ledger.migration.LegacyLedgerFormat;
+import com.apkharsh.paymentLogger.ledger.tiering.LedgerSegmentStore;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the old single-pipeline read ($or + $lookup + $sort) with the split-branch read in
+ * LedgerRepositoryCustomImpl, reporting docs examined (from explain) and median latency.
+ * Fails if the two paths disagree on the rows returned, or if the split branches read more documents than they return.
+ * Users are resolved from the in-process UserInfoCache on the new path, so it is measured without a join.
+ * <p>
+ * Needs a real MongoDB, so it only runs when BENCHMARK_MONGODB_URI is set, e.g.
+ * BENCHMARK_MONGODB_URI=mongodb://localhost:27017 ./mvnw test -Dtest=LedgerReadPathBenchmark
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_MONGODB_URI", matches = ".+")
+class LedgerReadPathBenchmark {
+
+    private static final String DATABASE = "paymentLogger-benchmark";
+    private static final int USERS = 500;
+    private static final int LEDGERS = 200_000;
+    private static final int HEAVY_USER_SHARE_PERCENT = 10;
+    private static final int PAGE_SIZE = 50;
+    private static final int RUNS = 7;
+
+    private static final List<Document> LEGACY_PIPELINE = Stream.of(
+            "{ $lookup: { from: 'users', localField: '" + LedgerFields.PAYER + "', foreignField: '_id', as: 'payer' } }",
+            "{ $lookup: { from: 'users', localField: '" + LedgerFields.PAYEE + "', foreignField: '_id', as: 'payee' } }",
+            "{ $unwind: { path: '$payer', preserveNullAndEmptyArrays: true } }",
+            "{ $unwind: { path: '$payee', preserveNullAndEmptyArrays: true } }",
+            "{ $sort: { " + LedgerFields.TIMESTAMP + ": -1 } }"
+    ).map(Document::parse).toList();
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+    private static LedgerRepositoryCustomImpl repository;
+    private static List<String> userIds;
+
+    @BeforeAll
+    static void seed() {
+        client = MongoClients.create(System.getenv("BENCHMARK_MONGODB_URI"));
+        mongoTemplate = new MongoTemplate(client, DATABASE);
+        repository = new LedgerRepositoryCustomImpl(mongoTemplate, new LegacyLedgerFormat(new LedgerCollectionLayout(mongoTemplate, Optional.empty(), LedgerStorageLayout.STANDARD)), new LedgerSegmentStore(Path.of("target/no-segments")), ReplicaReads.primaryOnly(mongoTemplate));
+        mongoTemplate.getDb().drop();
+
+        userIds = new ArrayList<>();
+        List<Document> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            String id = UUID.randomUUID().toString();
+            userIds.add(id);
+            users.add(new Document("_id", id).append("name", "User " + i).append("email", "user" + i + "@example.com"));
+        }
+        mongoTemplate.getCollection("users").insertMany(users);
+
+        // userIds.get(0) takes part in HEAVY_USER_SHARE_PERCENT of all payments
+        Random random = new Random(42);
+        Instant now = Instant.now();
+        List<Ledger> batch = new ArrayList<>();
+        for (int i = 0; i < LEDGERS; i++) {
+            String payer = random.nextInt(100) < HEAVY_USER_SHARE_PERCENT ? userIds.get(0) : userIds.get(1 + random.nextInt(USERS - 1));
+            String payee = userIds.get(1 + random.nextInt(USERS - 1));
+            if (random.nextBoolean()) {
+                String swap = payer;
+                payer = payee;
+                payee = swap;
+            }
+            batch.add(Ledger.builder()
+                    .id(UUID.randomUUID().toString())
+                    .payerId(payer)
+                    .payeeId(payee)
+                    .amount(BigDecimal.valueOf(random.nextInt(100_000), 2))
+                    .timestamp(now.minus(random.nextInt(3 * 365 * 24 * 60), ChronoUnit.MINUTES))
+                    .description("Benchmark payment " + i)
+                    .build());
+            if (batch.size() == 10_000) {
+                mongoTemplate.insert(batch, Ledger.class);
+                batch.clear();
+            }
+        }
+        mongoTemplate.insert(batch, Ledger.class);
+
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Ledger.class)
+                .forEach(index -> mongoTemplate.indexOps(Ledger.class).createIndex(index));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (client != null) {
+            mongoTemplate.getDb().drop();
+            client.close();
+        }
+    }
+
+    @Test
+    void compareReadPaths() {
+        String userId = userIds.get(0);
+        MongoCollection<Document> ledgers = mongoTemplate.getCollection("ledgers");
+        Document orMatch = new Document("$match", new Document("$or", List.of(
+                new Document(LedgerFields.PAYER, userId), new Document(LedgerFields.PAYEE, userId))));
+
+        List<Document> legacyFull = new ArrayList<>(List.of(orMatch));
+        legacyFull.addAll(LEGACY_PIPELINE);
+        List<Document> legacyPage = new ArrayList<>(legacyFull);
+        legacyPage.add(new Document("$limit", PAGE_SIZE));
+
+        Document sort = new Document(LedgerFields.TIMESTAMP, -1).append("_id", -1);
+        long splitFullExamined = docsExamined(ledgers.find(new Document(LedgerFields.PAYER, userId)).sort(sort).explain(ExplainVerbosity.EXECUTION_STATS))
+                + docsExamined(ledgers.find(new Document(LedgerFields.PAYEE, userId)).sort(sort).explain(ExplainVerbosity.EXECUTION_STATS));
+        long splitPageExamined = docsExamined(ledgers.find(new Document(LedgerFields.PAYER, userId)).sort(sort).limit(PAGE_SIZE).explain(ExplainVerbosity.EXECUTION_STATS))
+                + docsExamined(ledgers.find(new Document(LedgerFields.PAYEE, userId)).sort(sort).limit(PAGE_SIZE).explain(ExplainVerbosity.EXECUTION_STATS));
+
+        System.out.printf("%nLedger read path, user with ~%d%% of %d ledgers%n", HEAVY_USER_SHARE_PERCENT, LEDGERS);
+        System.out.printf("%-28s %14s %14s%n", "variant", "docsExamined", "median ms");
+        int legacyFullRows = report("legacy $or pipeline, full", docsExamined(ledgers.aggregate(legacyFull).explain(ExplainVerbosity.EXECUTION_STATS)),
+                () -> ledgers.aggregate(legacyFull).into(new ArrayList<>()).size());
+        int splitFullRows = report("split branches, full", splitFullExamined,
+                () -> {
+                    try (Stream<?> rows = repository.streamLedgers(userId, null, null)) {
+                        return (int) rows.count();
+                    }
+                });
+        int legacyPageRows = report("legacy $or pipeline, page", docsExamined(ledgers.aggregate(legacyPage).explain(ExplainVerbosity.EXECUTION_STATS)),
+                () -> ledgers.aggregate(legacyPage).into(new ArrayList<>()).size());
+        int splitPageRows = report("split branches, page", splitPageExamined,
+                () -> repository.findLedgerPage(userId, null, null, null, PAGE_SIZE).size());
+
+        assertEquals(legacyFullRows, splitFullRows, "both paths should return the user's whole history");
+        assertEquals(PAGE_SIZE, legacyPageRows);
+        assertEquals(PAGE_SIZE, splitPageRows);
+        // The heavy user never pays themselves, so every document a branch fetches is one it returns
+        assertEquals(splitFullRows, splitFullExamined, "split branches should be index-backed");
+        assertTrue(splitPageExamined <= 2L * PAGE_SIZE,
+                "a page should read at most one page per branch, read " + splitPageExamined);
+    }
+
+    /**
+     * @return rows returned by the last run
+     */
+    private static int report(String variant, long docsExamined, Supplier<Integer> run) {
+        int rows = run.get(); // warm up caches and the plan cache
+        long[] timings = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run.get();
+            timings[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(timings);
+        System.out.printf("%-28s %14d %14.1f%n", variant, docsExamined, timings[RUNS / 2] / 1_000_000.0);
+        return rows;
+    }
+
+    /**
+     * Explain output differs between the classic and SBE engines; take every totalDocsExamined found
+     */
+    private static long docsExamined(Object node) {
+        long total = 0;
+        if (node instanceof Document document) {
+            for (var entry : document.entrySet()) {
+                if (entry.getKey().equals("totalDocsExamined") && entry.getValue() instanceof Number number) {
+                    total += number.longValue();
+                } else if (!entry.getKey().equals("allPlansExecution")) {
+                    total += docsExamined(entry.getValue());
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object item : list) {
+                total += docsExamined(item);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,173 @@
+package com.apkharsh.paymentLogger.ledger.repository;
+
+import com.apkharsh.paymentLogger.consistency.ReplicaReads;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.migration.LedgerTimeSeriesCollection;
+import com.apkharsh.paymentLogger.ledger.enums.LedgerStorageLayout;
+import com.apkharsh.paymentLogger.ledger.migration.LedgerCollectionLayout;
+import com.apkharsh.paymentLogger.ledger.migration.LegacyLedgerFormat;
+import com.apkharsh.paymentLogger.ledger.tiering.LedgerSegmentStore;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the STANDARD and TIME_SERIES ledger layouts on the same data: storage and index size (from $collStats)
+ * and median latency of the repository's range reads. Each layout gets its own database with a "ledgers"
+ * collection, set up the way the application sets it up, and is read through LedgerRepositoryCustomImpl.
+ * Fails if the two layouts return different rows for the same read.
+ * <p>
+ * Needs a real MongoDB (6.0+), so it only runs when BENCHMARK_MONGODB_URI is set, e.g.
+ * BENCHMARK_MONGODB_URI=mongodb://localhost:27017 ./mvnw test -Dtest=LedgerStorageLayoutBenchmark
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_MONGODB_URI", matches = ".+")
+class LedgerStorageLayoutBenchmark {
+
+    private static final String STANDARD_DATABASE = "paymentLogger-benchmark-standard";
+    private static final String TIME_SERIES_DATABASE = "paymentLogger-benchmark-timeseries";
+    private static final int USERS = 500;
+    private static final int LEDGERS = 200_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int RUNS = 7;
+
+    private static MongoClient client;
+    private static MongoTemplate standard;
+    private static MongoTemplate timeSeries;
+    private static List<String> userIds;
+
+    @BeforeAll
+    static void seed() {
+        client = MongoClients.create(System.getenv("BENCHMARK_MONGODB_URI"));
+        standard = new MongoTemplate(client, STANDARD_DATABASE);
+        timeSeries = new MongoTemplate(client, TIME_SERIES_DATABASE);
+        standard.getDb().drop();
+        timeSeries.getDb().drop();
+
+        new MongoPersistentEntityIndexResolver(standard.getConverter().getMappingContext())
+                .resolveIndexFor(Ledger.class)
+                .forEach(index -> standard.indexOps(Ledger.class).createIndex(index));
+        new LedgerTimeSeriesCollection(timeSeries, Granularity.HOURS).ensureCollection();
+
+        userIds = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(new ObjectId().toHexString());
+        }
+
+        Random random = new Random(42);
+        Instant now = Instant.now();
+        List<Ledger> batch = new ArrayList<>();
+        for (int i = 0; i < LEDGERS; i++) {
+            batch.add(Ledger.builder()
+                    .id(new ObjectId().toHexString())
+                    .payerId(userIds.get(random.nextInt(USERS)))
+                    .payeeId(userIds.get(random.nextInt(USERS)))
+                    .amount(BigDecimal.valueOf(random.nextInt(100_000), 2))
+                    .timestamp(now.minus(random.nextInt(3 * 365 * 24 * 60), ChronoUnit.MINUTES))
+                    .description("Benchmark payment " + i)
+                    .build());
+            if (batch.size() == 10_000) {
+                standard.insert(batch, Ledger.class);
+                timeSeries.insert(batch, Ledger.class);
+                batch.clear();
+            }
+        }
+        standard.insert(batch, Ledger.class);
+        timeSeries.insert(batch, Ledger.class);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (client != null) {
+            standard.getDb().drop();
+            timeSeries.getDb().drop();
+            client.close();
+        }
+    }
+
+    @Test
+    void compareLayouts() {
+        String userId = userIds.get(0);
+        Instant to = Instant.now();
+        Instant from = to.minus(90, ChronoUnit.DAYS);
+
+        System.out.printf("%nLedger storage layout, %d ledgers over %d users%n", LEDGERS, USERS);
+        System.out.printf("%-12s %14s %14s%n", "layout", "storage KiB", "indexes KiB");
+        reportSize("STANDARD", standard);
+        reportSize("TIME_SERIES", timeSeries);
+
+        System.out.printf("%-36s %14s%n", "read", "median ms");
+        List<List<Integer>> rowsByLayout = new ArrayList<>();
+        List<List<String>> pageIdsByLayout = new ArrayList<>();
+        for (MongoTemplate template : List.of(standard, timeSeries)) {
+            String layout = template == standard ? "STANDARD" : "TIME_SERIES";
+            LedgerRepositoryCustomImpl repository = new LedgerRepositoryCustomImpl(template, new LegacyLedgerFormat(new LedgerCollectionLayout(template, Optional.empty(), LedgerStorageLayout.STANDARD)), new LedgerSegmentStore(Path.of("target/no-segments")), ReplicaReads.primaryOnly(template));
+            List<Integer> rows = new ArrayList<>();
+            rows.add(reportLatency(layout + ", page", () -> repository.findLedgerPage(userId, null, null, null, PAGE_SIZE).size()));
+            rows.add(reportLatency(layout + ", 90 days", () -> {
+                try (Stream<?> ledgers = repository.streamLedgers(userId, from, to)) {
+                    return (int) ledgers.count();
+                }
+            }));
+            rows.add(reportLatency(layout + ", full history", () -> {
+                try (Stream<?> ledgers = repository.streamLedgers(userId, null, null)) {
+                    return (int) ledgers.count();
+                }
+            }));
+            rowsByLayout.add(rows);
+            pageIdsByLayout.add(repository.findLedgerPage(userId, null, null, null, PAGE_SIZE).stream().map(Ledger::getId).toList());
+        }
+
+        assertEquals(PAGE_SIZE, rowsByLayout.get(0).get(0));
+        assertTrue(rowsByLayout.get(0).get(1) > 0, "the 90 day read should return rows");
+        assertEquals(rowsByLayout.get(0), rowsByLayout.get(1), "page, 90 day and full reads should match across layouts");
+        assertEquals(pageIdsByLayout.get(0), pageIdsByLayout.get(1), "both layouts should return the same first page");
+    }
+
+    private static void reportSize(String layout, MongoTemplate template) {
+        Document stats = template.getCollection("ledgers")
+                .aggregate(List.of(new Document("$collStats", new Document("storageStats", new Document()))))
+                .first();
+        Document storage = stats.get("storageStats", Document.class);
+        System.out.printf("%-12s %14d %14d%n", layout,
+                storage.get("storageSize", Number.class).longValue() / 1024,
+                storage.get("totalIndexSize", Number.class).longValue() / 1024);
+    }
+
+    /**
+     * @return rows returned by the last run
+     */
+    private static int reportLatency(String read, Supplier<Integer> run) {
+        int rows = run.get(); // warm up caches and the plan cache
+        long[] timings = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run.get();
+            timings[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(timings);
+        System.out.printf("%-36s %14.1f%n", read, timings[RUNS / 2] / 1_000_000.0);
+        return rows;
+    }
+}
@@ -0,0 +1,92 @@
+package com.apkharsh.paymentLogger.ledger.tiering;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LedgerColdAggregatorTest {
+
+    private static final Instant BASE = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final LedgerSegmentStore segmentStore = mock(LedgerSegmentStore.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final LedgerColdAggregator aggregator = new LedgerColdAggregator(segmentStore, mongoTemplate);
+
+    @Test
+    void sumsPerKeyAndSkipsRowsStillInMongo() {
+        Ledger hot = ledger(0, "alice", "bob", "5");
+        List<Ledger> cold = List.of(
+                ledger(1, "alice", "bob", "10"),
+                ledger(2, "alice", "bob", "2.5"),
+                hot,
+                ledger(3, "alice", "carol", "1"),
+                ledger(4, "bob", "alice", "7"),
+                ledger(5, null, "alice", "3"));
+        when(segmentStore.ledgers()).thenReturn(cold.iterator());
+        when(mongoTemplate.find(any(Query.class), eq(Ledger.class))).thenReturn(List.of(hot));
+
+        Map<String, LedgerColdAggregator.Totals> sums = new HashMap<>();
+        long count = aggregator.sum(ledger -> ledger.getPayerId() + ">" + ledger.getPayeeId(), sums::putAll);
+
+        assertEquals(3, count);
+        LedgerColdAggregator.Totals aliceToBob = sums.get("alice>bob");
+        assertEquals(0, new BigDecimal("12.5").compareTo(aliceToBob.amount()));
+        assertEquals(2, aliceToBob.count());
+        assertEquals(BASE.plusSeconds(2), aliceToBob.last());
+        assertEquals(1, sums.get("alice>carol").count());
+        assertEquals(1, sums.get("bob>alice").count());
+    }
+
+    @Test
+    void splitsChunksOnlyBetweenPayers() {
+        List<Ledger> cold = new ArrayList<>();
+        for (int i = 0; i < 10_500; i++) {
+            cold.add(ledger(i, "alice", "payee-" + i, "1"));
+        }
+        cold.add(ledger(20_000, "bob", "alice", "1"));
+        cold.add(ledger(20_001, "carol", "alice", "1"));
+        when(segmentStore.ledgers()).thenReturn(cold.iterator());
+        when(mongoTemplate.find(any(Query.class), eq(Ledger.class))).thenReturn(List.of());
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        long count = aggregator.sum(ledger -> ledger.getPayerId() + ">" + ledger.getPayeeId(), chunk -> chunkSizes.add(chunk.size()));
+
+        // Alice's keys are never split, however many there are
+        assertEquals(List.of(10_500, 2), chunkSizes);
+        assertEquals(10_502, count);
+    }
+
+    @Test
+    void handsOutNothingForAnEmptyColdTier() {
+        when(segmentStore.ledgers()).thenReturn(List.<Ledger>of().iterator());
+
+        List<Map<String, LedgerColdAggregator.Totals>> chunks = new ArrayList<>();
+        assertEquals(0, aggregator.sum(Ledger::getPayerId, chunks::add));
+        assertTrue(chunks.isEmpty());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private static Ledger ledger(int second, String payerId, String payeeId, String amount) {
+        Instant timestamp = BASE.plusSeconds(second);
+        Ledger ledger = new Ledger();
+        ledger.setId(new ObjectId().toHexString());
+        ledger.setTimestamp(timestamp);
+        ledger.setPayerId(payerId);
+        ledger.setPayeeId(payeeId);
+        ledger.setAmount(new BigDecimal(amount));
+        return ledger;
+    }
+}
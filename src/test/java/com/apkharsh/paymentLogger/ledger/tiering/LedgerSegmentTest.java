@@ -0,0 +1,157 @@
+package com.apkharsh.paymentLogger.ledger.tiering;
+
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerSegmentTest {
+
+    private static final Instant BASE = Instant.parse("2024-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEntriesAcrossBlocks() throws IOException {
+        List<SegmentEntry> written = sampleEntries();
+        LedgerSegment segment = write(directory.resolve("a.seg"), written);
+
+        assertTrue(segment.blockCount() > 1, "sample should span several blocks");
+        List<SegmentEntry> read = drain(segment.entries());
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(written.get(i).userId(), read.get(i).userId());
+            assertEquals(written.get(i).ledger(), read.get(i).ledger());
+        }
+        assertEquals(BASE, segment.minTimestamp());
+    }
+
+    @Test
+    void keepsMissingFieldsMissing() throws IOException {
+        Ledger bare = ledger(BASE, null, null, null);
+        LedgerSegment segment = write(directory.resolve("b.seg"), List.of(new SegmentEntry("u1", bare)));
+
+        Ledger read = segment.entries().next().ledger();
+        assertNull(read.getPayerId());
+        assertNull(read.getPayeeId());
+        assertNull(read.getAmount());
+        assertNull(read.getDescription());
+        assertNull(read.getCategory());
+        assertNull(read.getCreatedAt());
+        assertNull(read.getUpdatedAt());
+        assertEquals(bare, read);
+    }
+
+    @Test
+    void readsOneUserAcrossABlockBoundary() throws IOException {
+        List<SegmentEntry> written = sampleEntries();
+        LedgerSegment segment = write(directory.resolve("c.seg"), written);
+
+        for (String userId : List.of("u0", "u1", "u2", "u3")) {
+            List<Ledger> expected = written.stream()
+                    .filter(entry -> entry.userId().equals(userId))
+                    .map(SegmentEntry::ledger)
+                    .toList();
+            assertEquals(expected, drain(segment.read(userId, null, null)), userId);
+        }
+        assertFalse(segment.read("nobody", null, null).hasNext());
+    }
+
+    @Test
+    void appliesInclusiveTimeBounds() throws IOException {
+        List<SegmentEntry> written = sampleEntries();
+        LedgerSegment segment = write(directory.resolve("d.seg"), written);
+
+        Instant from = BASE.plusSeconds(300);
+        Instant to = BASE.plusSeconds(900);
+        List<Ledger> expected = written.stream()
+                .filter(entry -> entry.userId().equals("u2"))
+                .map(SegmentEntry::ledger)
+                .filter(ledger -> !ledger.getTimestamp().isBefore(from) && !ledger.getTimestamp().isAfter(to))
+                .toList();
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, drain(segment.read("u2", from, to)));
+    }
+
+    @Test
+    void rejectsOutOfOrderAppends() throws IOException {
+        try (LedgerSegmentWriter writer = new LedgerSegmentWriter(directory.resolve("e.seg"))) {
+            writer.append(new SegmentEntry("u2", ledger(BASE, "u2", "u1", BigDecimal.ONE)));
+            assertThrows(IllegalStateException.class,
+                    () -> writer.append(new SegmentEntry("u1", ledger(BASE, "u2", "u1", BigDecimal.ONE))));
+        }
+    }
+
+    /**
+     * Four users with enough rows (and descriptions) to fill several 64 KB blocks, in segment order.
+     * Every seventh row shares its neighbour's timestamp, so ties are ordered by id; every fifth drops
+     * payer, payee or amount the way legacy rows can.
+     */
+    private static List<SegmentEntry> sampleEntries() {
+        List<SegmentEntry> entries = new ArrayList<>();
+        for (String userId : List.of("u0", "u1", "u2", "u3")) {
+            List<SegmentEntry> rows = new ArrayList<>();
+            for (int i = 0; i < 1200; i++) {
+                Instant timestamp = BASE.plusSeconds(i % 7 == 0 && i > 0 ? i - 1 : i);
+                BigDecimal amount = i % 5 == 2 ? null : new BigDecimal(i + ".25");
+                String payer = i % 5 == 0 ? null : userId;
+                String payee = i % 5 == 1 ? null : "peer-" + (i % 13);
+                Ledger ledger = ledger(timestamp, payer, payee, amount);
+                if (i % 3 != 0) {
+                    ledger.setDescription("payment " + i + " for " + userId + " — groceries, rent and the rest of it");
+                }
+                if (i % 4 != 0) {
+                    ledger.setCategory("category-" + (i % 6));
+                }
+                if (i % 2 == 0) {
+                    ledger.setCreatedAt(timestamp.plusMillis(5));
+                    ledger.setUpdatedAt(timestamp.plusMillis(9));
+                }
+                rows.add(new SegmentEntry(userId, ledger));
+            }
+            rows.sort(SegmentEntry.ORDER);
+            entries.addAll(rows);
+        }
+        return entries;
+    }
+
+    private static Ledger ledger(Instant timestamp, String payerId, String payeeId, BigDecimal amount) {
+        Ledger ledger = new Ledger();
+        ledger.setId(new ObjectId(Date.from(timestamp)).toHexString());
+        ledger.setTimestamp(timestamp);
+        ledger.setPayerId(payerId);
+        ledger.setPayeeId(payeeId);
+        if (amount != null) {
+            ledger.setAmount(amount);
+        }
+        return ledger;
+    }
+
+    private static LedgerSegment write(Path file, List<SegmentEntry> entries) throws IOException {
+        try (LedgerSegmentWriter writer = new LedgerSegmentWriter(file)) {
+            for (SegmentEntry entry : entries) {
+                writer.append(entry);
+            }
+            writer.finish();
+        }
+        return LedgerSegment.open(file);
+    }
+
+    private static <T> List<T> drain(Iterator<T> iterator) {
+        List<T> items = new ArrayList<>();
+        iterator.forEachRemaining(items::add);
+        return items;
+    }
+}
@@ -0,0 +1,52 @@
+package com.apkharsh.paymentLogger.ledger.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AcceptEncodingTest {
+
+    @Test
+    void acceptsGzipListedWithoutAWeight() {
+        assertTrue(AcceptEncoding.acceptsGzip("gzip"));
+        assertTrue(AcceptEncoding.acceptsGzip("deflate, GZIP, br"));
+        assertTrue(AcceptEncoding.acceptsGzip("x-gzip"));
+    }
+
+    @Test
+    void honoursTheWeight() {
+        assertTrue(AcceptEncoding.acceptsGzip("gzip;q=0.5"));
+        assertTrue(AcceptEncoding.acceptsGzip("br;q=1.0, gzip ; Q=0.001"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=0"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip; q=0.000, identity"));
+    }
+
+    @Test
+    void fallsBackToTheWildcard() {
+        assertTrue(AcceptEncoding.acceptsGzip("*"));
+        assertTrue(AcceptEncoding.acceptsGzip("br, *;q=0.1"));
+        assertFalse(AcceptEncoding.acceptsGzip("br, *;q=0"));
+    }
+
+    @Test
+    void prefersAnExplicitEntryOverTheWildcard() {
+        assertFalse(AcceptEncoding.acceptsGzip("*, gzip;q=0"));
+        assertTrue(AcceptEncoding.acceptsGzip("*;q=0, gzip"));
+    }
+
+    @Test
+    void rejectsWhatDoesNotNameGzip() {
+        assertFalse(AcceptEncoding.acceptsGzip(null));
+        assertFalse(AcceptEncoding.acceptsGzip(""));
+        assertFalse(AcceptEncoding.acceptsGzip("identity"));
+        assertFalse(AcceptEncoding.acceptsGzip("br, deflate"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzipped, nogzip"));
+    }
+
+    @Test
+    void treatsAMalformedWeightAsZero() {
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=high"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=1.5"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=-1"));
+    }
+}
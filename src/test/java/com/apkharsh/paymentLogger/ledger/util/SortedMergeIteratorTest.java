@@ -0,0 +1,101 @@
+package com.apkharsh.paymentLogger.ledger.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedMergeIteratorTest {
+
+    @Test
+    void interleavesSortedSources() {
+        SortedMergeIterator<Integer> merged = new SortedMergeIterator<>(List.of(
+                List.of(1, 4, 7).iterator(),
+                List.of(2, 5, 8, 9).iterator(),
+                List.of(3, 6).iterator()), Comparator.naturalOrder());
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9), drain(merged));
+    }
+
+    @Test
+    void followsTheGivenOrder() {
+        SortedMergeIterator<Integer> merged = new SortedMergeIterator<>(List.of(
+                List.of(9, 5, 1).iterator(),
+                List.of(8, 4).iterator()), Comparator.reverseOrder());
+
+        assertEquals(List.of(9, 8, 5, 4, 1), drain(merged));
+    }
+
+    @Test
+    void returnsARowReachableThroughTwoSourcesOnce() {
+        // e.g. a ledger where payer == payee shows up in both the payer and the payee branch
+        SortedMergeIterator<Integer> merged = new SortedMergeIterator<>(List.of(
+                List.of(1, 3, 5).iterator(),
+                List.of(3, 4, 5).iterator()), Comparator.naturalOrder());
+
+        assertEquals(List.of(1, 3, 4, 5), drain(merged));
+    }
+
+    @Test
+    void dropsRepeatsWithinOneSource() {
+        SortedMergeIterator<Integer> merged = new SortedMergeIterator<>(List.of(
+                List.of(1, 1, 2, 2, 2).iterator()), Comparator.naturalOrder());
+
+        assertEquals(List.of(1, 2), drain(merged));
+    }
+
+    @Test
+    void handlesNoAndEmptySources() {
+        assertFalse(new SortedMergeIterator<Integer>(List.of(), Comparator.naturalOrder()).hasNext());
+
+        SortedMergeIterator<Integer> merged = new SortedMergeIterator<>(List.of(
+                List.<Integer>of().iterator(),
+                List.of(2).iterator(),
+                List.<Integer>of().iterator()), Comparator.naturalOrder());
+        assertEquals(List.of(2), drain(merged));
+        assertThrows(NoSuchElementException.class, merged::next);
+    }
+
+    @Test
+    void readsOnlyTheHeadOfEachSource() {
+        CountingIterator first = new CountingIterator(List.of(1, 3, 5, 7));
+        CountingIterator second = new CountingIterator(List.of(2, 4, 6, 8));
+        SortedMergeIterator<Integer> merged = new SortedMergeIterator<>(List.of(first, second), Comparator.naturalOrder());
+
+        assertEquals(1, merged.next());
+        assertEquals(2, merged.next());
+        // Two returned plus one buffered head per source
+        assertEquals(4, first.read + second.read);
+    }
+
+    private static <T> List<T> drain(Iterator<T> iterator) {
+        List<T> items = new ArrayList<>();
+        iterator.forEachRemaining(items::add);
+        return items;
+    }
+
+    private static final class CountingIterator implements Iterator<Integer> {
+        private final Iterator<Integer> delegate;
+        private int read;
+
+        private CountingIterator(List<Integer> values) {
+            this.delegate = values.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public Integer next() {
+            read++;
+            return delegate.next();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.apkharsh.paymentLogger.ledger.writer;
+
+import com.apkharsh.paymentLogger.consistency.ConsistencyToken;
+import com.apkharsh.paymentLogger.exceptions.WriteRejectedException;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.enums.GroupCommitBackpressure;
+import com.apkharsh.paymentLogger.ledger.repository.LedgerRepository;
+import com.apkharsh.paymentLogger.ledger.repository.LedgerRepositoryCustom.InsertResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LedgerGroupCommitterTest {
+
+    private static final Duration LONG = Duration.ofSeconds(30);
+
+    private final LedgerRepository ledgerRepository = mock(LedgerRepository.class);
+    private final LedgerDerivedState derivedState = mock(LedgerDerivedState.class);
+
+    /**
+     * Sizes of the batches handed to insertUnordered, in order
+     */
+    private final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Counted down when the flusher enters insertUnordered; the insert then waits for {@link #release}
+     */
+    private final CountDownLatch inserting = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private LedgerGroupCommitter committer;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        release.countDown();
+        if (committer != null) {
+            committer.stop();
+        }
+    }
+
+    @Test
+    void flushesOnceTheBatchIsFull() throws Exception {
+        insertsSucceed();
+        committer = started(3, LONG, 100, GroupCommitBackpressure.REJECT, LONG, LONG);
+
+        List<CompletableFuture<ConsistencyToken>> results = List.of(
+                committer.submit(ledger()), committer.submit(ledger()), committer.submit(ledger()));
+
+        // Well before the 30s interval: the third ledger filled the batch
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(3), batches);
+    }
+
+    @Test
+    void flushesAPartialBatchAfterTheInterval() throws Exception {
+        insertsSucceed();
+        committer = started(100, Duration.ofMillis(200), 100, GroupCommitBackpressure.REJECT, LONG, LONG);
+
+        CompletableFuture<ConsistencyToken> first = committer.submit(ledger());
+        CompletableFuture<ConsistencyToken> second = committer.submit(ledger());
+
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(2), batches);
+    }
+
+    @Test
+    void rejectsAtOnceWhenTheQueueIsFullUnderReject() throws Exception {
+        insertsBlock();
+        committer = started(1, Duration.ZERO, 1, GroupCommitBackpressure.REJECT, LONG, LONG);
+        committer.submit(ledger());
+        assertTrue(inserting.await(5, TimeUnit.SECONDS));
+        committer.submit(ledger());
+
+        long start = System.nanoTime();
+        assertThrows(WriteRejectedException.class, () -> committer.submit(ledger()));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void waitsForSpaceUnderBlockThenRejects() throws Exception {
+        insertsBlock();
+        committer = started(1, Duration.ZERO, 1, GroupCommitBackpressure.BLOCK, Duration.ofMillis(200), LONG);
+        committer.submit(ledger());
+        assertTrue(inserting.await(5, TimeUnit.SECONDS));
+        committer.submit(ledger());
+
+        long start = System.nanoTime();
+        assertThrows(WriteRejectedException.class, () -> committer.submit(ledger()));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    void acceptsUnderBlockOnceSpaceFrees() throws Exception {
+        insertsBlock();
+        committer = started(1, Duration.ZERO, 1, GroupCommitBackpressure.BLOCK, LONG, LONG);
+        CompletableFuture<ConsistencyToken> first = committer.submit(ledger());
+        assertTrue(inserting.await(5, TimeUnit.SECONDS));
+        committer.submit(ledger());
+
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(release::countDown);
+        CompletableFuture<ConsistencyToken> third = committer.submit(ledger());
+
+        first.get(5, TimeUnit.SECONDS);
+        third.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void failsTheCallerAfterTheCommitTimeout() throws Exception {
+        insertsBlock();
+        committer = started(1, Duration.ZERO, 10, GroupCommitBackpressure.REJECT, LONG, Duration.ofMillis(100));
+
+        CompletableFuture<ConsistencyToken> result = committer.submit(ledger());
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+    }
+
+    @Test
+    void failsOnlyTheLedgersMongoRefusedAndAppliesTheRest() throws Exception {
+        when(ledgerRepository.insertUnordered(anyList())).thenReturn(new InsertResult(Set.of(1), null));
+        committer = started(2, LONG, 10, GroupCommitBackpressure.REJECT, LONG, LONG);
+        Ledger stored = ledger();
+        Ledger refused = ledger();
+
+        CompletableFuture<ConsistencyToken> storedResult = committer.submit(stored);
+        CompletableFuture<ConsistencyToken> refusedResult = committer.submit(refused);
+
+        storedResult.get(5, TimeUnit.SECONDS);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> refusedResult.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        verify(derivedState, timeout(5000)).apply(List.of(stored));
+    }
+
+    @Test
+    void failsTheWholeBatchWhenTheInsertThrows() {
+        when(ledgerRepository.insertUnordered(anyList())).thenThrow(new IllegalStateException("Mongo is down"));
+        committer = started(1, Duration.ZERO, 10, GroupCommitBackpressure.REJECT, LONG, LONG);
+
+        CompletableFuture<ConsistencyToken> result = committer.submit(ledger());
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals("Mongo is down", error.getCause().getMessage());
+        verifyNoInteractions(derivedState);
+    }
+
+    @Test
+    void writesWhatIsQueuedBeforeStopping() throws Exception {
+        insertsBlock();
+        committer = started(1, Duration.ZERO, 10, GroupCommitBackpressure.REJECT, LONG, LONG);
+        CompletableFuture<ConsistencyToken> first = committer.submit(ledger());
+        assertTrue(inserting.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ConsistencyToken> queued = committer.submit(ledger());
+
+        release.countDown();
+        committer.stop();
+
+        first.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        assertThrows(WriteRejectedException.class, () -> committer.submit(ledger()));
+    }
+
+    @Test
+    void failsWritesTheFlusherNeverReached() throws Exception {
+        // Never started, as if the flusher had died: stop() must not leave callers waiting
+        committer = new LedgerGroupCommitter(ledgerRepository, derivedState, new SimpleMeterRegistry(),
+                10, Duration.ZERO, 10, GroupCommitBackpressure.REJECT, LONG, LONG);
+        CompletableFuture<ConsistencyToken> result = committer.submit(ledger());
+
+        committer.stop();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(WriteRejectedException.class, error.getCause());
+        verifyNoInteractions(ledgerRepository);
+    }
+
+    private LedgerGroupCommitter started(int maxBatchSize, Duration flushInterval, int queueCapacity,
+                                         GroupCommitBackpressure backpressure, Duration enqueueTimeout, Duration commitTimeout) {
+        LedgerGroupCommitter started = new LedgerGroupCommitter(ledgerRepository, derivedState, new SimpleMeterRegistry(),
+                queueCapacity, flushInterval, maxBatchSize, backpressure, enqueueTimeout, commitTimeout);
+        started.start();
+        return started;
+    }
+
+    private void insertsSucceed() {
+        when(ledgerRepository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            batches.add(invocation.<List<Ledger>>getArgument(0).size());
+            return new InsertResult(Set.of(), null);
+        });
+    }
+
+    private void insertsBlock() {
+        when(ledgerRepository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            batches.add(invocation.<List<Ledger>>getArgument(0).size());
+            inserting.countDown();
+            release.await();
+            return new InsertResult(Set.of(), null);
+        });
+    }
+
+    private static Ledger ledger() {
+        Ledger ledger = new Ledger();
+        ledger.setId(new ObjectId().toHexString());
+        return ledger;
+    }
+}
@@ -0,0 +1,247 @@
+package com.apkharsh.paymentLogger.rollup.service.impl;
+
+import com.apkharsh.paymentLogger.exceptions.ValidationException;
+import com.apkharsh.paymentLogger.ledger.entity.Ledger;
+import com.apkharsh.paymentLogger.ledger.migration.LegacyLedgerFormat;
+import com.apkharsh.paymentLogger.ledger.tiering.LedgerColdAggregator;
+import com.apkharsh.paymentLogger.rollup.dto.RollupBucketResponse;
+import com.apkharsh.paymentLogger.rollup.entity.LedgerRollup;
+import com.apkharsh.paymentLogger.rollup.enums.RollupGranularity;
+import com.apkharsh.paymentLogger.rollup.repository.LedgerRollupRepository;
+import com.apkharsh.paymentLogger.security.UserPrincipal;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RollupServiceImplTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final LedgerRollupRepository rollupRepository = mock(LedgerRollupRepository.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final RollupServiceImpl service = new RollupServiceImpl(mongoTemplate, rollupRepository,
+            mock(LedgerColdAggregator.class), mock(LegacyLedgerFormat.class));
+
+    /**
+     * Upserts handed to the bulk, by document id
+     */
+    private final Map<String, Document> upserts = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxDayBuckets", 366);
+        UserPrincipal principal = new UserPrincipal("u1", "u1@example.com", List.of());
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(LedgerRollup.class))).thenReturn(bulk);
+        when(bulk.upsert(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            Update update = invocation.getArgument(1);
+            assertNull(upserts.put(query.getQueryObject().getString("_id"), update.getUpdateObject()), "one upsert per bucket");
+            return bulk;
+        });
+        when(rollupRepository.findBuckets(any(), any(), any(), any())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void writesTheDayAndMonthBucketsOfBothSides() {
+        service.applyLedgers(List.of(ledger("alice", "bob", "12.50", "2024-03-15T10:00:00Z")));
+
+        assertEquals(4, upserts.size());
+        assertIncrements("alice", RollupGranularity.DAY, "2024-03-15", Map.of("sent", "12.50", "sentCount", 1L));
+        assertIncrements("alice", RollupGranularity.MONTH, "2024-03-01", Map.of("sent", "12.50", "sentCount", 1L));
+        assertIncrements("bob", RollupGranularity.DAY, "2024-03-15", Map.of("received", "12.50", "receivedCount", 1L));
+        assertIncrements("bob", RollupGranularity.MONTH, "2024-03-01", Map.of("received", "12.50", "receivedCount", 1L));
+        verify(bulk).execute();
+    }
+
+    @Test
+    void bucketsByTheUtcDay() {
+        // 00:30 on April 1st in UTC+2 is still March 31st in UTC
+        service.applyLedgers(List.of(ledger("alice", "bob", "1", "2024-04-01T00:30:00+02:00")));
+
+        assertTrue(upserts.containsKey(LedgerRollup.idOf("alice", RollupGranularity.DAY, LocalDate.of(2024, 3, 31))));
+        assertTrue(upserts.containsKey(LedgerRollup.idOf("alice", RollupGranularity.MONTH, LocalDate.of(2024, 3, 1))));
+    }
+
+    @Test
+    void countsASelfPaymentAsSentAndReceivedOnOneDocument() {
+        service.applyLedgers(List.of(ledger("alice", "alice", "5", "2024-03-15T10:00:00Z")));
+
+        assertEquals(2, upserts.size());
+        Map<String, Object> both = Map.of("sent", "5", "sentCount", 1L, "received", "5", "receivedCount", 1L);
+        assertIncrements("alice", RollupGranularity.DAY, "2024-03-15", both);
+        assertIncrements("alice", RollupGranularity.MONTH, "2024-03-01", both);
+    }
+
+    @Test
+    void writesNothingForNoLedgers() {
+        service.applyLedgers(List.of());
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void reportsNetAsSentMinusReceived() {
+        stubBuckets(RollupGranularity.DAY, "2024-03-01", "2024-03-02",
+                rollup(RollupGranularity.DAY, "2024-03-01", "100", "30"),
+                rollup(RollupGranularity.DAY, "2024-03-02", "10", "25"));
+
+        List<RollupBucketResponse> days = service.getRollups(RollupGranularity.DAY, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 2));
+
+        assertEquals(2, days.size());
+        assertEquals(0, new BigDecimal("70").compareTo(days.get(0).getNet()));
+        assertEquals(0, new BigDecimal("-15").compareTo(days.get(1).getNet()));
+    }
+
+    @Test
+    void treatsAMissingSideAsZero() {
+        LedgerRollup receivedOnly = rollup(RollupGranularity.DAY, "2024-03-01", null, "8");
+        stubBuckets(RollupGranularity.DAY, "2024-03-01", "2024-03-01", receivedOnly);
+
+        RollupBucketResponse day = service.getRollups(RollupGranularity.DAY, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 1)).get(0);
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(day.getSent()));
+        assertEquals(0, new BigDecimal("-8").compareTo(day.getNet()));
+    }
+
+    @Test
+    void readsMonthDocumentsForFullMonthsAndDaysForTheEdges() {
+        stubBuckets(RollupGranularity.DAY, "2024-01-20", "2024-01-31",
+                rollup(RollupGranularity.DAY, "2024-01-20", "1", "0"),
+                rollup(RollupGranularity.DAY, "2024-01-31", "2", "0"));
+        stubBuckets(RollupGranularity.MONTH, "2024-02-01", "2024-02-01",
+                rollup(RollupGranularity.MONTH, "2024-02-01", "40", "10"));
+        stubBuckets(RollupGranularity.DAY, "2024-03-01", "2024-03-10",
+                rollup(RollupGranularity.DAY, "2024-03-05", "0", "7"));
+
+        List<RollupBucketResponse> months = service.getRollups(RollupGranularity.MONTH, LocalDate.of(2024, 1, 20), LocalDate.of(2024, 3, 10));
+
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 1)),
+                months.stream().map(RollupBucketResponse::getBucketStart).toList());
+        assertEquals(0, new BigDecimal("3").compareTo(months.get(0).getSent()));
+        assertEquals(2, months.get(0).getSentCount());
+        assertEquals(0, new BigDecimal("30").compareTo(months.get(1).getNet()));
+        assertEquals(0, new BigDecimal("-7").compareTo(months.get(2).getNet()));
+        verify(rollupRepository, never()).findBuckets(any(), eq(RollupGranularity.MONTH), eq(day("2024-01-01")), any());
+    }
+
+    @Test
+    void readsOnlyDaysWhenNoMonthIsComplete() {
+        stubBuckets(RollupGranularity.DAY, "2024-01-20", "2024-02-10",
+                rollup(RollupGranularity.DAY, "2024-01-25", "4", "1"),
+                rollup(RollupGranularity.DAY, "2024-02-03", "6", "0"));
+
+        List<RollupBucketResponse> months = service.getRollups(RollupGranularity.MONTH, LocalDate.of(2024, 1, 20), LocalDate.of(2024, 2, 10));
+
+        assertEquals(2, months.size());
+        verify(rollupRepository, never()).findBuckets(any(), eq(RollupGranularity.MONTH), any(), any());
+    }
+
+    @Test
+    void sumsMonthsIntoYears() {
+        stubBuckets(RollupGranularity.MONTH, "2023-01-01", "2024-12-01",
+                rollup(RollupGranularity.MONTH, "2023-06-01", "10", "4"),
+                rollup(RollupGranularity.MONTH, "2023-11-01", "5", "20"),
+                rollup(RollupGranularity.MONTH, "2024-02-01", "1", "0"));
+
+        List<RollupBucketResponse> years = service.getRollups(RollupGranularity.YEAR, LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31));
+
+        assertEquals(2, years.size());
+        assertEquals(LocalDate.of(2023, 1, 1), years.get(0).getBucketStart());
+        assertEquals(RollupGranularity.YEAR, years.get(0).getGranularity());
+        assertEquals(0, new BigDecimal("15").compareTo(years.get(0).getSent()));
+        assertEquals(0, new BigDecimal("24").compareTo(years.get(0).getReceived()));
+        assertEquals(0, new BigDecimal("-9").compareTo(years.get(0).getNet()));
+        assertEquals(2, years.get(0).getSentCount());
+        assertEquals(0, new BigDecimal("1").compareTo(years.get(1).getNet()));
+    }
+
+    @Test
+    void limitsTheNumberOfDayBuckets() {
+        assertThrows(ValidationException.class, () ->
+                service.getRollups(RollupGranularity.DAY, LocalDate.of(2024, 1, 1), LocalDate.of(2025, 1, 1)));
+        assertDoesNotThrow(() ->
+                service.getRollups(RollupGranularity.DAY, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+    }
+
+    @Test
+    void rejectsAnInvertedRange() {
+        assertThrows(ValidationException.class, () ->
+                service.getRollups(RollupGranularity.MONTH, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1)));
+    }
+
+    private void assertIncrements(String userId, RollupGranularity granularity, String bucket, Map<String, Object> expected) {
+        Document update = upserts.get(LedgerRollup.idOf(userId, granularity, LocalDate.parse(bucket)));
+        assertNotNull(update, userId + " " + granularity + " " + bucket);
+        Document inc = update.get("$inc", Document.class);
+        assertEquals(expected.keySet(), inc.keySet());
+        expected.forEach((key, value) -> {
+            if (value instanceof String amount) {
+                assertEquals(new Decimal128(new BigDecimal(amount)), inc.get(key), key);
+            } else {
+                assertEquals(value, inc.get(key), key);
+            }
+        });
+        Document onInsert = update.get("$setOnInsert", Document.class);
+        assertEquals(userId, onInsert.get("userId"));
+        assertEquals(day(bucket), onInsert.get("bucketStart"));
+    }
+
+    private void stubBuckets(RollupGranularity granularity, String from, String to, LedgerRollup... rollups) {
+        when(rollupRepository.findBuckets("u1", granularity, day(from), day(to))).thenReturn(List.of(rollups));
+    }
+
+    private static LedgerRollup rollup(RollupGranularity granularity, String bucket, String sent, String received) {
+        return LedgerRollup.builder()
+                .id(LedgerRollup.idOf("u1", granularity, LocalDate.parse(bucket)))
+                .userId("u1")
+                .granularity(granularity)
+                .bucketStart(day(bucket))
+                .sent(sent != null ? new BigDecimal(sent) : null)
+                .received(received != null ? new BigDecimal(received) : null)
+                .sentCount(sent != null && new BigDecimal(sent).signum() > 0 ? 1 : 0)
+                .receivedCount(received != null && new BigDecimal(received).signum() > 0 ? 1 : 0)
+                .build();
+    }
+
+    private static Instant day(String date) {
+        return LocalDate.parse(date).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    private static Ledger ledger(String payerId, String payeeId, String amount, String timestamp) {
+        Ledger ledger = new Ledger();
+        ledger.setPayerId(payerId);
+        ledger.setPayeeId(payeeId);
+        ledger.setAmount(new BigDecimal(amount));
+        ledger.setTimestamp(OffsetDateTime.parse(timestamp).toInstant());
+        return ledger;
+    }
+}